@@ -1,15 +1,47 @@
 package org.ek.n23;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.stream.Collectors;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.ek.n23.cpm.CycleFinder;
+import org.ek.n23.cpm.IncrementalSchedule;
+import org.ek.n23.cpm.LongestPaths;
+import org.ek.n23.cpm.MonteCarloSimulation;
+import org.ek.n23.cpm.PartitionedScheduleCalculator;
+import org.ek.n23.cpm.Schedule;
+import org.ek.n23.cpm.ScheduleCalculator;
+import org.ek.n23.cpm.ScheduleGraph;
+import org.ek.n23.cpm.WhatIfSchedule;
 import org.ek.n23.entity.Action;
 import org.ek.n23.entity.Precedes;
+import org.ek.n23.extension.ScheduleMaintenance;
+import org.ek.n23.utility.ActionCriticality;
+import org.ek.n23.utility.CompletionOrderStream;
+import org.ek.n23.utility.CriticalAction;
+import org.ek.n23.utility.Cycle;
+import org.ek.n23.utility.ProjectSchedule;
+import org.ek.n23.utility.RankedPath;
+import org.ek.n23.utility.ScheduleChange;
+import org.ek.n23.utility.ScheduleSummary;
+import org.ek.n23.utility.ScheduleUpdate;
+import org.neo4j.graphalgo.impl.util.PathImpl;
 import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
-import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Path;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.procedure.Context;
@@ -29,12 +61,52 @@ public class ProcedureGraphTraversal {
   @Context
   public Transaction tx;
 
+  @Context
+  public GraphDatabaseService db;
+
+  // names of the phases that are timed in the ScheduleSummary
+  private static final String LOAD_PHASE = "Load Graph";
+  private static final String CALCULATE_PHASE = "Forward And Backward Pass";
+  private static final String WRITE_PHASE = "Write Properties";
+
+  protected static final String END_NOT_REACHABLE =
+    "The end node cannot be reached from the start node";
+  protected static final String NO_WORKERS = "Workers must be at least 1";
+
+  // percentiles of the simulated project durations that are returned
+  private static final List<Integer> PERCENTILES = List.of(
+    10,
+    50,
+    80,
+    90,
+    95,
+    99
+  );
+
+  protected static final String CYCLE_FOUND =
+    "The PRECEDES relationships contain a cycle: ";
+
   public static class ProcedureName {
 
     private ProcedureName() {}
 
     public static final String FORWARD_PATH = "org.ek.n23.forwardPath";
     public static final String BACKWARD_PATH = "org.ek.n23.backwardPath";
+    public static final String COMPUTE_SCHEDULE = "org.ek.n23.computeSchedule";
+    public static final String COMPUTE_SCHEDULE_IN_BATCHES =
+      "org.ek.n23.computeScheduleInBatches";
+    public static final String CRITICAL_PATH = "org.ek.n23.criticalPath";
+    public static final String UPDATE_DURATION = "org.ek.n23.updateDuration";
+    public static final String ADD_DEPENDENCY = "org.ek.n23.addDependency";
+    public static final String FIND_CYCLES = "org.ek.n23.findCycles";
+    public static final String COMPUTE_SCHEDULE_PARTITIONED =
+      "org.ek.n23.computeSchedulePartitioned";
+    public static final String LONGEST_PATHS = "org.ek.n23.longestPaths";
+    public static final String WHAT_IF = "org.ek.n23.whatIf";
+    public static final String SIMULATE_SCHEDULE =
+      "org.ek.n23.simulateSchedule";
+    public static final String SCHEDULE_PORTFOLIO =
+      "org.ek.n23.schedulePortfolio";
   }
 
   /**
@@ -42,43 +114,72 @@ public class ProcedureGraphTraversal {
    * calculating the earliest start and earliest finish times.
    * Cp. https://www.pmcalculators.com/how-to-calculate-the-critical-path/,
    * Example 1, Forward Path.
+   * Only values that differ from the stored ones are written, the number
+   * of written properties is returned with the number of actions and the
+   * project duration, i.e. the maximum "earliestFinish" value.
+   * The nodes on a cycle never become ready, so they are left out. If
+   * checkCycles is true, the graph is checked for cycles first and the
+   * procedure fails with one of them instead.
    */
   @Procedure(mode = Mode.WRITE, name = ProcedureName.FORWARD_PATH)
   @Description("Executes a forward path calculation.")
-  public void forwardPath(@Name("Start node") Node startNode) {
+  public Stream<ScheduleSummary> forwardPath(
+    @Name("Start node") Node startNode,
+    @Name(value = "CheckCycles", defaultValue = "false") boolean checkCycles
+  ) {
+    if (checkCycles) {
+      rejectCycles(tx, startNode, Direction.OUTGOING);
+    }
+    ScheduleSummary summary = new ScheduleSummary();
+
     /* Set earliest start and earliest finish on startNode */
-    Action.setEarliestStart(startNode, 0l);
-    Action.setEarliestFinish(startNode, 0l);
+    countWritten(summary, Action.setEarliestStart(startNode, 0l));
+    countWritten(summary, Action.setEarliestFinish(startNode, 0l));
+    summary.actions = 1;
 
-    /* create queue that contains the current nodes by
-     * fetching all relationships that are outgoing from startNode,
-     * fetching all the end nodes of all relationships and collecting
-     * them into currentNodes.
-     */
-    ArrayDeque<Node> currentNodes = startNode
-      .getRelationships(Direction.OUTGOING, Precedes.PRECEDES_TYPE)
-      .stream()
-      .flatMap(rel -> Stream.of(rel.getEndNode()))
-      .collect(Collectors.toCollection(ArrayDeque::new));
-
-    /* set the earliestStart value to 0 for all nodes in currentNodes */
-    currentNodes.stream().forEach(node -> Action.setEarliestStart(node, 0l));
-
-    /** iteration over all current nodes; fetching of new current nodes
-     * until the end node is in the currentNodes set which means that
-     * all nodes are worked through */
+    /* for every node that has been reached but is not ready yet, count
+     * the predecessors that have not been worked through and keep the
+     * maximum "earliestFinish" value of the ones that have. */
+    HashMap<Node, PendingNode> pendingNodes = new HashMap<>();
+
+    /* create queue that contains the current nodes, i.e. the nodes
+     * whose predecessors have all been worked through. The successors of
+     * startNode that have no other predecessors are the first ones. */
+    ArrayDeque<Node> currentNodes = new ArrayDeque<>();
+    addReadySuccessorNodes(
+      startNode,
+      0l,
+      pendingNodes,
+      currentNodes,
+      summary
+    );
+
+    /** iteration over all current nodes; every relationship is looked at
+     * once when its start node is worked through, so all nodes are
+     * worked through when the queue is empty */
     while (!currentNodes.isEmpty()) {
       // take the first of the currentNodes
       Node currentNode = currentNodes.poll();
 
       // set the "earliestFinish" value on currentNode
-      setEarliestFinish(currentNode);
+      long earliestFinish = setEarliestFinish(currentNode, summary);
+      summary.actions++;
+      summary.projectDuration =
+        Math.max(summary.projectDuration, earliestFinish);
 
       /* add all successor nodes of currentNode the predecessors
-       * of which have already been calculated through to
+       * of which have now all been calculated through to
        * currentNodes */
-      currentNodes.addAll(getReadySuccessorNodes(currentNode));
+      addReadySuccessorNodes(
+        currentNode,
+        earliestFinish,
+        pendingNodes,
+        currentNodes,
+        summary
+      );
     }
+
+    return Stream.of(summary);
   }
 
   /**
@@ -86,46 +187,626 @@ public class ProcedureGraphTraversal {
    * calculating the latest start and latest finish times.
    * Cp. https://www.pmcalculators.com/how-to-calculate-the-critical-path/,
    * Example 1, Backward Path.
+   * Like forwardPath, only values that differ from the stored ones are
+   * written. The project duration is the "earliestStart" value of endNode.
+   * checkCycles has the same meaning as for forwardPath.
    */
   @Procedure(mode = Mode.WRITE, name = ProcedureName.BACKWARD_PATH)
   @Description("Executes a backward path calculation.")
-  public void backwardPath(@Name("Finish node") Node endNode) {
+  public Stream<ScheduleSummary> backwardPath(
+    @Name("Finish node") Node endNode,
+    @Name(value = "CheckCycles", defaultValue = "false") boolean checkCycles
+  ) {
+    if (checkCycles) {
+      rejectCycles(tx, endNode, Direction.INCOMING);
+    }
+    ScheduleSummary summary = new ScheduleSummary();
+
     /* Set latest start and latest finish on endNode */
     long startEndNode = Action.getEarliestStart(endNode);
-    Action.setLatestStart(endNode, startEndNode);
-    Action.setLatestFinish(endNode, startEndNode);
+    countWritten(summary, Action.setLatestStart(endNode, startEndNode));
+    countWritten(summary, Action.setLatestFinish(endNode, startEndNode));
+    summary.actions = 1;
+    summary.projectDuration = startEndNode;
 
-    /* create queue that contains the current nodes by
-     * fetching all relationships that are incoming into endNode,
-     * fetching all the start nodes of all relationships and collecting
-     * them into currentNodes.
-     */
-    ArrayDeque<Node> currentNodes = endNode
-      .getRelationships(Direction.INCOMING, Precedes.PRECEDES_TYPE)
-      .stream()
-      .flatMap(rel -> Stream.of(rel.getStartNode()))
-      .collect(Collectors.toCollection(ArrayDeque::new));
-
-    /* set the latestFinish value to endNode's latestStart for all nodes in currentNodes */
-    currentNodes
-      .stream()
-      .forEach(node -> Action.setLatestFinish(node, startEndNode));
-
-    /** iteration over all current nodes; fetching of new current nodes
-     * until the start node is in the currentNodes set which means that
-     * all nodes are worked through */
+    /* for every node that has been reached but is not ready yet, count
+     * the successors that have not been worked through and keep the
+     * minimum "latestStart" value of the ones that have. */
+    HashMap<Node, PendingNode> pendingNodes = new HashMap<>();
+
+    /* create queue that contains the current nodes, i.e. the nodes
+     * whose successors have all been worked through. The predecessors of
+     * endNode that have no other successors are the first ones. */
+    ArrayDeque<Node> currentNodes = new ArrayDeque<>();
+    addReadyPredecessorNodes(
+      endNode,
+      startEndNode,
+      pendingNodes,
+      currentNodes,
+      summary
+    );
+
+    /** iteration over all current nodes; every relationship is looked at
+     * once when its end node is worked through, so all nodes are
+     * worked through when the queue is empty */
     while (!currentNodes.isEmpty()) {
       // take the first of the currentNodes
       Node currentNode = currentNodes.poll();
 
       // set the "latestStart" value on currentNode
-      setLatestStart(currentNode);
+      long latestStart = setLatestStart(currentNode, summary);
+      summary.actions++;
 
       /* add all predecessor nodes of currentNode the successors
-       * of which have already been calculated through to
+       * of which have now all been calculated through to
        * currentNodes */
-      currentNodes.addAll(getReadyPredecessorNodes(currentNode));
+      addReadyPredecessorNodes(
+        currentNode,
+        latestStart,
+        pendingNodes,
+        currentNodes,
+        summary
+      );
     }
+
+    return Stream.of(summary);
+  }
+
+  /**
+   * This procedure calculates earliest start, earliest finish, latest start
+   * and latest finish of all nodes that can be reached from startNode.
+   * In contrast to forwardPath and backwardPath, the graph is loaded into
+   * memory once, both passes run on the loaded arrays and the four
+   * properties of every node are written in one final pass.
+   * The nodes without successors finish at the project duration.
+   * With more than one worker, the nodes that become ready at the same
+   * time are worked through concurrently, the results are the same.
+   * Every call starts its own threads and stops them when it is done, which
+   * only pays off for large graphs, see ParallelScheduleCalculator.
+   */
+  @Procedure(mode = Mode.WRITE, name = ProcedureName.COMPUTE_SCHEDULE)
+  @Description(
+    "Calculates the earliest and latest start and finish times in memory."
+  )
+  public Stream<ScheduleSummary> computeSchedule(
+    @Name("Start node") Node startNode,
+    @Name(value = "Workers", defaultValue = "1") long workers
+  ) {
+    return Stream.of(computeAndWrite(tx, startNode, workerCount(workers)));
+  }
+
+  /**
+   * This procedure calculates the schedules of many separate projects
+   * like computeSchedule, concurrently on at most concurrency threads, but
+   * not on more threads than there are processors. A project is all nodes
+   * that are connected by PRECEDES relationships (a weakly connected
+   * component), so a project with several nodes without predecessors is
+   * scheduled once and as a whole. Every project is loaded, calculated and
+   * written in its own transaction, starting with one of startNodes.
+   * Start nodes of a project that has been found already are skipped.
+   * Without startNodes, every Action node without predecessors is taken
+   * as a start node. A ProjectSchedule is returned for every project as
+   * soon as its transaction has been committed, so the order of the rows
+   * does not need to be the order of startNodes.
+   */
+  @Procedure(mode = Mode.WRITE, name = ProcedureName.SCHEDULE_PORTFOLIO)
+  @Description(
+    "Calculates the schedules of many projects concurrently in separate transactions."
+  )
+  public Stream<ProjectSchedule> schedulePortfolio(
+    @Name(value = "StartNodes", defaultValue = "null") List<Node> startNodes,
+    @Name(value = "Concurrency", defaultValue = "4") long concurrency
+  ) {
+    List<Node> candidates = new ArrayList<>();
+    if (startNodes == null || startNodes.isEmpty()) {
+      tx
+        .findNodes(Action.LABEL)
+        .stream()
+        .filter(node ->
+          !node.hasRelationship(Direction.INCOMING, Precedes.PRECEDES_TYPE)
+        )
+        .forEach(candidates::add);
+    } else {
+      candidates.addAll(startNodes);
+    }
+
+    /* the nodes of this transaction cannot be used in the others,
+     * so one start node per project is passed on by its element id */
+    List<String> elementIds = new ArrayList<>();
+    Set<Node> remaining = new HashSet<>(candidates);
+    for (Node candidate : candidates) {
+      if (remaining.contains(candidate)) {
+        elementIds.add(candidate.getElementId());
+        remaining.removeAll(ScheduleGraph.componentOf(candidate));
+      }
+    }
+
+    GraphDatabaseService database = db;
+    List<Callable<ProjectSchedule>> projects = new ArrayList<>();
+    for (String elementId : elementIds) {
+      projects.add(() -> {
+        try (Transaction ownTx = database.beginTx()) {
+          Node startNode = ownTx.getNodeByElementId(elementId);
+          ProjectSchedule project = new ProjectSchedule(
+            Action.getName(startNode),
+            Action.getGraphId(startNode),
+            computeAndWrite(
+              ownTx,
+              () -> ScheduleGraph.load(ScheduleGraph.componentOf(startNode)),
+              1
+            )
+          );
+          ownTx.commit();
+          return project;
+        }
+      });
+    }
+    return CompletionOrderStream.of(
+      projects,
+      (int) Math.min(concurrency, Runtime.getRuntime().availableProcessors()),
+      "n23-portfolio-schedule"
+    );
+  }
+
+  /**
+   * This procedure calculates the same schedule as computeSchedule, but
+   * writes it in separate transactions that are committed every batchSize
+   * nodes instead of in the transaction of the caller. So the transaction
+   * state stays small even for very large graphs. Batches that have been
+   * committed stay committed if a later batch fails.
+   * Besides the values of computeSchedule, the number of commits and the
+   * written properties per second are returned.
+   */
+  @Procedure(
+    mode = Mode.WRITE,
+    name = ProcedureName.COMPUTE_SCHEDULE_IN_BATCHES
+  )
+  @Description(
+    "Calculates the schedule in memory and commits it every batchSize nodes."
+  )
+  public Stream<ScheduleSummary> computeScheduleInBatches(
+    @Name("Start node") Node startNode,
+    @Name(value = "BatchSize", defaultValue = "10000") long batchSize,
+    @Name(value = "Workers", defaultValue = "1") long workers
+  ) {
+    ScheduleSummary summary = new ScheduleSummary();
+
+    // load the graph into memory
+    long phaseStart = System.nanoTime();
+    ScheduleGraph graph = ScheduleGraph.load(startNode, Direction.OUTGOING);
+    summary.addTiming(LOAD_PHASE, phaseStart);
+
+    // run forward and backward pass
+    phaseStart = System.nanoTime();
+    Schedule schedule = ScheduleCalculator.compute(
+      graph,
+      workerCount(workers)
+    );
+    summary.addTiming(CALCULATE_PHASE, phaseStart);
+
+    // write the results in batches
+    phaseStart = System.nanoTime();
+    schedule.writePropertiesInBatches(db, batchSize, summary);
+    long writeNanos = System.nanoTime() - phaseStart;
+    summary.addTiming(WRITE_PHASE, phaseStart);
+    summary.propertiesPerSecond =
+      writeNanos == 0 ? 0 : summary.propertiesWritten * 1e9 / writeNanos;
+
+    summary.actions = graph.nodeCount();
+    summary.relationships = graph.relationshipCount();
+    summary.projectDuration = schedule.projectDuration();
+    return Stream.of(summary);
+  }
+
+  /**
+   * This procedure calculates the same schedule as computeSchedule for a
+   * program of projects that are linked by PRECEDES relationships, without
+   * loading the whole program into memory. Every graph id is a partition,
+   * the partitions that are connected to the one of startNode, in either
+   * direction, are calculated one after the other, the independent ones
+   * on at most concurrency threads, see PartitionedScheduleCalculator. Every
+   * partition, or group of partitions that depend on each other, is
+   * written in its own transaction, so commits is the number of groups.
+   */
+  @Procedure(
+    mode = Mode.WRITE,
+    name = ProcedureName.COMPUTE_SCHEDULE_PARTITIONED
+  )
+  @Description(
+    "Calculates the schedule partition by partition, one per graphId."
+  )
+  public Stream<ScheduleSummary> computeSchedulePartitioned(
+    @Name("Start node") Node startNode,
+    @Name(value = "Concurrency", defaultValue = "4") long concurrency
+  ) {
+    ScheduleSummary summary = new ScheduleSummary();
+    PartitionedScheduleCalculator.compute(
+      tx,
+      db,
+      startNode,
+      (int) Math.min(concurrency, Integer.MAX_VALUE),
+      summary
+    );
+    return Stream.of(summary);
+  }
+
+  /**
+   * This procedure calculates the schedule of all nodes that can be reached
+   * from startNode like computeSchedule and additionally the total float,
+   * the free float and whether a node is critical, i.e. has no total float.
+   * All seven properties of every node are written in one pass.
+   * The longest chain of actions from startNode to endNode, which is
+   * critical if endNode finishes the project, is returned in its order,
+   * together with the earliest finish of endNode as the project duration.
+   * If several chains are equally long, only the one whose actions come
+   * first among the predecessors is returned. Workers has the same meaning
+   * as for computeSchedule.
+   */
+  @Procedure(mode = Mode.WRITE, name = ProcedureName.CRITICAL_PATH)
+  @Description(
+    "Calculates the schedule and the floats and returns the critical chain."
+  )
+  public Stream<CriticalAction> criticalPath(
+    @Name("Start node") Node startNode,
+    @Name("End node") Node endNode,
+    @Name(value = "Workers", defaultValue = "1") long workers
+  ) {
+    ScheduleGraph graph = ScheduleGraph.load(startNode, Direction.OUTGOING);
+    int end = graph.indexOf(endNode);
+    if (end < 0) {
+      throw new IllegalArgumentException(END_NOT_REACHABLE);
+    }
+    Schedule schedule = ScheduleCalculator.compute(
+      graph,
+      workerCount(workers)
+    );
+    schedule.writeProperties(tx, true);
+
+    /* walk the chain backwards from endNode: every action starts when
+     * one of its predecessors finishes, which is the one before it in
+     * the chain. Only startNode has no predecessors, since all nodes
+     * have been loaded from it. */
+    List<Integer> chain = new ArrayList<>();
+    for (int index = end; index >= 0; ) {
+      chain.add(index);
+      int previous = -1;
+      for (
+        int k = graph.predecessorOffset(index);
+        k < graph.predecessorOffset(index + 1) && previous < 0;
+        k++
+      ) {
+        int predecessor = graph.predecessorTarget(k);
+        if (
+          schedule.earliestFinish(predecessor) == schedule.earliestStart(index)
+        ) {
+          previous = predecessor;
+        }
+      }
+      index = previous;
+    }
+    Collections.reverse(chain);
+
+    // their positions in the chain are counted from 0
+    long projectDuration = schedule.earliestFinish(end);
+    List<CriticalAction> criticalActions = new ArrayList<>();
+    for (int index : chain) {
+      Node node = graph.node(tx, index);
+      criticalActions.add(
+        new CriticalAction(
+          criticalActions.size(),
+          node,
+          Action.getName(node),
+          schedule.earliestStart(index),
+          schedule.earliestFinish(index),
+          projectDuration
+        )
+      );
+    }
+    return criticalActions.stream();
+  }
+
+  /**
+   * This procedure returns the k longest paths of PRECEDES relationships
+   * from startNode to endNode, the longest first, so the critical path
+   * comes first and the near-critical paths follow with their slack.
+   * The length of a path is the sum of the durations of its actions.
+   * The paths are searched for one by one while they are read, see
+   * LongestPaths, so a query that stops reading early, e.g. with a
+   * WHERE on the slack and a LIMIT, does not pay for the others.
+   */
+  @Procedure(mode = Mode.READ, name = ProcedureName.LONGEST_PATHS)
+  @Description("Returns the k longest paths from the start to the end node.")
+  public Stream<RankedPath> longestPaths(
+    @Name("Start node") Node startNode,
+    @Name("End node") Node endNode,
+    @Name(value = "K", defaultValue = "10") long k
+  ) {
+    ScheduleGraph graph = ScheduleGraph.load(startNode, Direction.OUTGOING);
+    if (graph.indexOf(endNode) < 0) {
+      throw new IllegalArgumentException(END_NOT_REACHABLE);
+    }
+    LongestPaths paths = LongestPaths.between(
+      graph,
+      graph.indexOf(startNode),
+      graph.indexOf(endNode)
+    );
+
+    return StreamSupport
+      .stream(
+        Spliterators.spliteratorUnknownSize(
+          new RankedPaths(tx, graph, paths),
+          Spliterator.ORDERED
+        ),
+        false
+      )
+      .limit(Math.max(0, k));
+  }
+
+  /**
+   * This procedure simulates the project that starts with startNode
+   * iterations times with random durations between the optimistic and the
+   * pessimistic duration of every action, see MonteCarloSimulation. Actions
+   * without these estimates keep their duration. Nothing is written.
+   * For every action in topological order, the share of the iterations in
+   * which it is critical is returned together with the percentiles of the
+   * project duration. The same seed gives the same results, the iterations
+   * are simulated on at most workers threads. At most
+   * MonteCarloSimulation.MAX_ITERATIONS iterations are simulated at once.
+   */
+  @Procedure(mode = Mode.READ, name = ProcedureName.SIMULATE_SCHEDULE)
+  @Description(
+    "Simulates the project with uncertain durations and returns the criticality of the actions."
+  )
+  public Stream<ActionCriticality> simulateSchedule(
+    @Name("Start node") Node startNode,
+    @Name(value = "Iterations", defaultValue = "10000") long iterations,
+    @Name(value = "Seed", defaultValue = "0") long seed,
+    @Name(value = "Workers", defaultValue = "4") long workers
+  ) {
+    ScheduleGraph graph = ScheduleGraph.load(startNode, Direction.OUTGOING);
+    MonteCarloSimulation simulation = MonteCarloSimulation.run(
+      tx,
+      graph,
+      (int) Math.min(iterations, Integer.MAX_VALUE),
+      seed,
+      workerCount(workers)
+    );
+
+    Map<String, Double> percentiles = new LinkedHashMap<>();
+    for (int percent : PERCENTILES) {
+      percentiles.put("p" + percent, simulation.percentile(percent));
+    }
+    double meanDuration = simulation.meanDuration();
+
+    List<ActionCriticality> actions = new ArrayList<>();
+    for (int position = 0; position < graph.nodeCount(); position++) {
+      int index = simulation.topologicalOrder(position);
+      Node node = graph.node(tx, index);
+      actions.add(
+        new ActionCriticality(
+          node,
+          Action.getName(node),
+          simulation.criticality(index),
+          simulation.iterations(),
+          meanDuration,
+          percentiles
+        )
+      );
+    }
+    return actions.stream();
+  }
+
+  /**
+   * This procedure answers what would happen to the schedule of the
+   * project that starts with startNode if the durations of some actions
+   * changed or PRECEDES relationships were added or removed, without
+   * changing anything. durations maps action names to new durations, the
+   * dependencies are lists of the names of predecessor and successor.
+   * The schedules before and after the changes are calculated in memory,
+   * see WhatIfSchedule, and the actions whose values would change are
+   * returned in topological order with the new project duration. So
+   * nothing is returned if the changes do not move any action.
+   */
+  @Procedure(mode = Mode.READ, name = ProcedureName.WHAT_IF)
+  @Description(
+    "Returns the schedule changes that duration and dependency changes would cause."
+  )
+  public Stream<ScheduleChange> whatIf(
+    @Name("Start node") Node startNode,
+    @Name(
+      value = "Durations",
+      defaultValue = "{}"
+    ) Map<String, Object> durations,
+    @Name(
+      value = "AddedDependencies",
+      defaultValue = "[]"
+    ) List<List<String>> addedDependencies,
+    @Name(
+      value = "RemovedDependencies",
+      defaultValue = "[]"
+    ) List<List<String>> removedDependencies
+  ) {
+    ScheduleGraph graph = ScheduleGraph.load(startNode, Direction.OUTGOING);
+    WhatIfSchedule whatIf = WhatIfSchedule.evaluate(
+      tx,
+      graph,
+      durations,
+      addedDependencies,
+      removedDependencies
+    );
+    Schedule after = whatIf.after();
+    long projectDurationChange =
+      after.projectDuration() - whatIf.before().projectDuration();
+
+    List<ScheduleChange> changes = new ArrayList<>();
+    for (int position = 0; position < graph.nodeCount(); position++) {
+      int index = after.topologicalOrder(position);
+      if (whatIf.hasChanged(index)) {
+        Node node = graph.node(tx, index);
+        changes.add(
+          new ScheduleChange(
+            node,
+            Action.getName(node),
+            after.earliestStart(index),
+            after.earliestFinish(index),
+            after.latestStart(index),
+            after.latestFinish(index),
+            after.projectDuration(),
+            projectDurationChange
+          )
+        );
+      }
+    }
+    return changes.stream();
+  }
+
+  /**
+   * This procedure sets the duration of node and updates the schedule that
+   * has been written by computeSchedule or criticalPath. Only the nodes
+   * after node whose earliest values change and the nodes before them whose
+   * latest values change are recalculated, see IncrementalSchedule.
+   */
+  @Procedure(mode = Mode.WRITE, name = ProcedureName.UPDATE_DURATION)
+  @Description("Sets the duration of an action and updates the schedule.")
+  public Stream<ScheduleUpdate> updateDuration(
+    @Name("Node") Node node,
+    @Name("Duration") long duration
+  ) {
+    ScheduleMaintenance.ignoreChanges(tx);
+    return Stream.of(IncrementalSchedule.updateDuration(node, duration));
+  }
+
+  /**
+   * This procedure adds a PRECEDES relationship from predecessor to
+   * successor and updates the schedule that has been written by
+   * computeSchedule or criticalPath like updateDuration does. A relationship
+   * that would create a cycle is not added.
+   */
+  @Procedure(mode = Mode.WRITE, name = ProcedureName.ADD_DEPENDENCY)
+  @Description("Adds a PRECEDES relationship and updates the schedule.")
+  public Stream<ScheduleUpdate> addDependency(
+    @Name("Predecessor") Node predecessor,
+    @Name("Successor") Node successor
+  ) {
+    ScheduleMaintenance.ignoreChanges(tx);
+    return Stream.of(IncrementalSchedule.addDependency(predecessor, successor));
+  }
+
+  /**
+   * This procedure looks for cycles of PRECEDES relationships among the
+   * nodes that can be reached from startNode. A schedule cannot be
+   * calculated for the nodes on a cycle. The graph is loaded into memory
+   * and its strongly connected components are found in linear time, see
+   * CycleFinder. One cycle is returned for every component that contains
+   * cycles, so nothing is returned if the graph is free of cycles.
+   */
+  @Procedure(mode = Mode.READ, name = ProcedureName.FIND_CYCLES)
+  @Description("Returns the cycles of PRECEDES relationships.")
+  public Stream<Cycle> findCycles(@Name("Start node") Node startNode) {
+    ScheduleGraph graph = ScheduleGraph.load(startNode, Direction.OUTGOING);
+    List<int[]> components = CycleFinder.cyclicComponents(graph);
+
+    List<int[]> cyclesOfComponents = CycleFinder.cyclesIn(graph, components);
+
+    List<Cycle> cycles = new ArrayList<>();
+    for (int i = 0; i < components.size(); i++) {
+      int[] component = components.get(i);
+      int[] cycle = cyclesOfComponents.get(i);
+      List<String> names = new ArrayList<>();
+      List<Node> nodes = new ArrayList<>();
+      for (int index : cycle) {
+        Node node = graph.node(tx, index);
+        names.add(Action.getName(node));
+        nodes.add(node);
+      }
+      cycles.add(new Cycle(cycles.size(), component.length, names, nodes));
+    }
+    return cycles.stream();
+  }
+
+  /**
+   * This private method loads the nodes that can be reached from node in
+   * direction and throws an IllegalArgumentException that names the
+   * actions of a cycle if there is one.
+   * @param tx: transaction of node
+   * @param node: the node the passes start with
+   * @param direction: the direction the passes follow
+   */
+  private static void rejectCycles(
+    Transaction tx,
+    Node node,
+    Direction direction
+  ) {
+    ScheduleGraph graph = ScheduleGraph.load(node, direction);
+    List<int[]> components = CycleFinder.cyclicComponents(graph);
+    if (components.isEmpty()) {
+      return;
+    }
+    StringBuilder message = new StringBuilder(CYCLE_FOUND);
+    for (int index : CycleFinder.cycleIn(graph, components.get(0))) {
+      if (message.length() > CYCLE_FOUND.length()) {
+        message.append(" -> ");
+      }
+      message.append(Action.getName(graph.node(tx, index)));
+    }
+    throw new IllegalArgumentException(message.toString());
+  }
+
+  /**
+   * This private method loads the nodes that can be reached from startNode
+   * into memory, calculates their schedule and writes it in the transaction
+   * of startNode.
+   * @param tx: transaction of startNode
+   * @param startNode: the node the project starts with
+   * @param workers: number of threads of the calculation
+   * @return the summary of the calculation
+   */
+  private static ScheduleSummary computeAndWrite(
+    Transaction tx,
+    Node startNode,
+    int workers
+  ) {
+    return computeAndWrite(
+      tx,
+      () -> ScheduleGraph.load(startNode, Direction.OUTGOING),
+      workers
+    );
+  }
+
+  /**
+   * This private method loads a graph with loader, calculates its schedule
+   * and writes it in tx. The loading is timed as the load phase.
+   * @param tx: transaction the nodes of the graph belong to
+   * @param loader: loads the graph into memory
+   * @param workers: number of threads of the calculation
+   * @return the summary of the calculation
+   */
+  private static ScheduleSummary computeAndWrite(
+    Transaction tx,
+    Supplier<ScheduleGraph> loader,
+    int workers
+  ) {
+    ScheduleSummary summary = new ScheduleSummary();
+
+    // load the graph into memory
+    long phaseStart = System.nanoTime();
+    ScheduleGraph graph = loader.get();
+    summary.addTiming(LOAD_PHASE, phaseStart);
+
+    // run forward and backward pass
+    phaseStart = System.nanoTime();
+    Schedule schedule = ScheduleCalculator.compute(graph, workers);
+    summary.addTiming(CALCULATE_PHASE, phaseStart);
+
+    // write the results
+    phaseStart = System.nanoTime();
+    summary.propertiesWritten = schedule.writeProperties(tx, false);
+    summary.addTiming(WRITE_PHASE, phaseStart);
+
+    summary.actions = graph.nodeCount();
+    summary.relationships = graph.relationshipCount();
+    summary.projectDuration = schedule.projectDuration();
+    return summary;
   }
 
   // region forwardPath helper methods
@@ -135,8 +816,10 @@ public class ProcedureGraphTraversal {
    * to obtain its "earliestFinish" property. The property is written on the node if
    * "earliestStart" and "duration" properties both exist on node.
    * @param node: the node that the "earliestFinish" property should be calculated for
+   * @param summary: summary that counts the written properties
+   * @return the "earliestFinish" value of node
    */
-  private void setEarliestFinish(Node node) {
+  private long setEarliestFinish(Node node, ScheduleSummary summary) {
     // fetch "earliestStart" property of node
     long nodeEarliestStart = Action.getEarliestStart(node);
 
@@ -146,96 +829,57 @@ public class ProcedureGraphTraversal {
     /* add "earliestStart" and "duration" to obtain "earliestFinish"
      * and set "earliestFinish" property on currentNode
      */
-    Action.setEarliestFinish(node, nodeEarliestStart + nodeDuration);
+    long nodeEarliestFinish = nodeEarliestStart + nodeDuration;
+    countWritten(summary, Action.setEarliestFinish(node, nodeEarliestFinish));
+    return nodeEarliestFinish;
   }
 
   /**
-   * This private method checks all successor nodes
-   * of node to see whether their "earliestStart" property can already
-   * be calculated, i.e. all of their predecessors have already
-   * a calculated "earliestFinish" value.
-   * @param node: node whose successors need to be checked
-   * @return set of all ready successor nodes
+   * This private method passes the "earliestFinish" value of node on to
+   * all of its successors. A successor is ready as soon as the last of
+   * its predecessors has passed on its value: the maximum of the values
+   * is set as its "earliestStart" property and it is added to currentNodes.
+   * @param node: node that has just been worked through
+   * @param earliestFinish: the "earliestFinish" value of node
+   * @param pendingNodes: the reached successors that are not ready yet
+   * @param currentNodes: queue the ready successors are added to
+   * @param summary: summary that counts the written properties
    */
-  private HashSet<Node> getReadySuccessorNodes(Node node) {
-    /* initialize set of ready successor nodes that will be
-     * returned by this method. */
-    HashSet<Node> readySuccessorNodes = new HashSet<>();
-
-    /* fetch all outgoing relationships of node.
-     * Test whether all predecessors of the successors of node
-     * have already been calculated through and if so, add the successor
-     * to readySuccessorNodes. */
-    node
-      .getRelationships(Direction.OUTGOING, Precedes.PRECEDES_TYPE)
-      .stream()
-      .forEach(rel -> {
-        if (setEarliestStart(rel.getEndNode())) {
-          readySuccessorNodes.add(rel.getEndNode());
-        }
-      });
+  private void addReadySuccessorNodes(
+    Node node,
+    long earliestFinish,
+    HashMap<Node, PendingNode> pendingNodes,
+    ArrayDeque<Node> currentNodes,
+    ScheduleSummary summary
+  ) {
+    for (Relationship rel : node.getRelationships(
+      Direction.OUTGOING,
+      Precedes.PRECEDES_TYPE
+    )) {
+      Node successorNode = rel.getEndNode();
 
-    // return the list of all successor nodes of node that are ready.
-    return readySuccessorNodes;
-  }
-
-  /**
-   * This private method looks at all predecessors of node.
-   * If all of them have "earliestFinish" values, their maximum yields the
-   * node's "earliestStart" value which is set. If one node is found that
-   * does not have an "earliestFinish" value yet, the search is terminated
-   * and this method returns "false".
-   * @param node: node whose "earliestStart" value is to be calculated.
-   * @return true if the "earliestStart" property could be calculated
-   * and false otherwise.
-   */
-  private boolean setEarliestStart(Node node) {
-    // fetch all incoming relationships into node
-    Iterator<Relationship> incomingRelsIt = node
-      .getRelationships(Direction.INCOMING, Precedes.PRECEDES_TYPE)
-      .iterator();
-
-    // initialize a maximum value for the "earliestFinish" values of 0
-    long maxEarliestFinish = 0;
-
-    /* test if all start nodes of the incomingRels have already been processed,
-     * i.e. whether the property "earliestFinish" already exists on them */
-    while (incomingRelsIt.hasNext()) {
-      // get the start node of next incoming relationship
-      Node predecessorNode = incomingRelsIt.next().getStartNode();
-
-      /* fetch the "earliestFinish" property of predecessorNode.
-       * If the property does not exist that means that predecessorNode has
-       * not yet been processed. Hence, we can stop checking on the rest
-       * of the predecessor nodes of node. The return command
-       * in the catch part will quit this method and report back about it.*/
-      long predecessorNodeEarliestFinish;
-      try {
-        predecessorNodeEarliestFinish =
-          Action.getEarliestFinish(predecessorNode);
-      } catch (NotFoundException e) {
-        return false;
-      }
+      /* the first predecessor that reaches successorNode
+       * fetches its number of predecessors */
+      PendingNode pending = pendingNodes.computeIfAbsent(
+        successorNode,
+        n ->
+          new PendingNode(
+            n.getDegree(Precedes.PRECEDES_TYPE, Direction.INCOMING),
+            0l
+          )
+      );
+      pending.value = Math.max(pending.value, earliestFinish);
 
-      /* if the property could be fetched, we need to continue finding the maximum
-       * of all predecessor node "earliestFinish" properties. Hence, if the newly
-       * fetched predecessorNodeEarliestFinish value is higher than the current maximum,
-       * we need to update maxEarliestFinish */
-      if (predecessorNodeEarliestFinish > maxEarliestFinish) {
-        maxEarliestFinish = predecessorNodeEarliestFinish;
+      // if node was the last predecessor, successorNode is ready
+      if (--pending.remaining == 0) {
+        pendingNodes.remove(successorNode);
+        countWritten(
+          summary,
+          Action.setEarliestStart(successorNode, pending.value)
+        );
+        currentNodes.add(successorNode);
       }
     }
-    /* if every predecessorNode had an "earliestFinish" value, we found the
-     * maximum of them in maxEarliestFinish. Hence, there are no
-     * additional checks needed and we can set the "earliestStart" property
-     * of node to be maxEarliestFinish and return true so that
-     * node can be added to the currentNodes queue
-     * higher up in the call stack.
-     */
-    if (!incomingRelsIt.hasNext()) {
-      Action.setEarliestStart(node, maxEarliestFinish);
-    }
-    return true;
   }
 
   // endregion
@@ -247,8 +891,10 @@ public class ProcedureGraphTraversal {
    * to obtain its "latestStart" property. The property is written on the node if
    * "latestFinish" and "duration" properties both exist on node.
    * @param node: the node that the "latestStart" property should be calculated for
+   * @param summary: summary that counts the written properties
+   * @return the "latestStart" value of node
    */
-  private void setLatestStart(Node node) {
+  private long setLatestStart(Node node, ScheduleSummary summary) {
     // fetch "latestFinish" property of node
     long nodeLatestFinish = Action.getLatestFinish(node);
 
@@ -258,96 +904,155 @@ public class ProcedureGraphTraversal {
     /* subtract "duration" from "latestFinish" to obtain "latestStart"
      * and set "latestStart" property on currentNode
      */
-    Action.setLatestStart(node, nodeLatestFinish - nodeDuration);
+    long nodeLatestStart = nodeLatestFinish - nodeDuration;
+    countWritten(summary, Action.setLatestStart(node, nodeLatestStart));
+    return nodeLatestStart;
   }
 
-  // endregion
-
   /**
-   * This private method checks all predecessor nodes
-   * of node to see whether their "LatestFinish" property can already
-   * be calculated, i.e. all of their successors have already
-   * a calculated "latestStart" value.
-   * @param node: node whose predecessors need to be checked
-   * @return set of all ready predecessor nodes
+   * This private method passes the "latestStart" value of node on to
+   * all of its predecessors. A predecessor is ready as soon as the last of
+   * its successors has passed on its value: the minimum of the values
+   * is set as its "latestFinish" property and it is added to currentNodes.
+   * @param node: node that has just been worked through
+   * @param latestStart: the "latestStart" value of node
+   * @param pendingNodes: the reached predecessors that are not ready yet
+   * @param currentNodes: queue the ready predecessors are added to
+   * @param summary: summary that counts the written properties
    */
-  private HashSet<Node> getReadyPredecessorNodes(Node node) {
-    /* initialize set of ready predecessor nodes that will be
-     * returned by this method. */
-    HashSet<Node> readyPredecessorNodes = new HashSet<>();
-
-    /* fetch all incoming relationships of node.
-     * Test whether all successors of the predecessors of node
-     * have already been calculated through and if so, add the predecessor
-     * to readyPredecessorNodes. */
-    node
-      .getRelationships(Direction.INCOMING, Precedes.PRECEDES_TYPE)
-      .stream()
-      .forEach(rel -> {
-        if (setLatestFinish(rel.getStartNode())) {
-          readyPredecessorNodes.add(rel.getStartNode());
-        }
-      });
+  private void addReadyPredecessorNodes(
+    Node node,
+    long latestStart,
+    HashMap<Node, PendingNode> pendingNodes,
+    ArrayDeque<Node> currentNodes,
+    ScheduleSummary summary
+  ) {
+    for (Relationship rel : node.getRelationships(
+      Direction.INCOMING,
+      Precedes.PRECEDES_TYPE
+    )) {
+      Node predecessorNode = rel.getStartNode();
+
+      /* the first successor that reaches predecessorNode
+       * fetches its number of successors */
+      PendingNode pending = pendingNodes.computeIfAbsent(
+        predecessorNode,
+        n ->
+          new PendingNode(
+            n.getDegree(Precedes.PRECEDES_TYPE, Direction.OUTGOING),
+            Long.MAX_VALUE
+          )
+      );
+      pending.value = Math.min(pending.value, latestStart);
+
+      // if node was the last successor, predecessorNode is ready
+      if (--pending.remaining == 0) {
+        pendingNodes.remove(predecessorNode);
+        countWritten(
+          summary,
+          Action.setLatestFinish(predecessorNode, pending.value)
+        );
+        currentNodes.add(predecessorNode);
+      }
+    }
+  }
+
+  // endregion
+
+  // counts a property in summary if it has been written
+  private static void countWritten(ScheduleSummary summary, boolean written) {
+    if (written) {
+      summary.propertiesWritten++;
+    }
+  }
 
-    // return the list of all successor nodes of node that are ready.
-    return readyPredecessorNodes;
+  /* workers as an int, values beyond the range of an int are limited to
+   * Integer.MAX_VALUE, values below 1 are rejected */
+  private static int workerCount(long workers) {
+    if (workers < 1) {
+      throw new IllegalArgumentException(NO_WORKERS);
+    }
+    return (int) Math.min(workers, Integer.MAX_VALUE);
   }
 
   /**
-   * This private method looks at all successors of node.
-   * If all of them have "latestStart" values, their minimum yields the
-   * node's "latestFinish" value which is set. If one node is found that
-   * does not have a "latestStart" value yet, the search is terminated
-   * and this method returns "false".
-   * @param node: node whose "latestFinish" value is to be calculated.
-   * @return true if the "latestFinish" property could be calculated
-   * and false otherwise.
+   * This private method turns a path of node indices of graph into a path
+   * of the nodes and the PRECEDES relationships between them.
+   * @param tx: transaction the nodes are looked up in
+   * @param graph: the loaded graph
+   * @param path: node indices of the path
+   * @return the path with its nodes and relationships
    */
-  private boolean setLatestFinish(Node node) {
-    // fetch all outgoing relationships from node
-    Iterator<Relationship> outgoingRelsIt = node
-      .getRelationships(Direction.OUTGOING, Precedes.PRECEDES_TYPE)
-      .iterator();
-
-    // initialize a maximum value for the "latestStart" values of Long.MAX_VALUE
-    long minLatestStart = Long.MAX_VALUE;
-
-    /* test if all start nodes of the incomingRels have already been processed,
-     * i.e. whether the property "latestStart" already exists on them */
-    while (outgoingRelsIt.hasNext()) {
-      // get the end node of next outgoing relationship
-      Node successorNode = outgoingRelsIt.next().getEndNode();
-
-      /* fetch the "latestStart" property of successorNode.
-       * If the property does not exist that means that successorNode has
-       * not yet been processed. Hence, we can stop checking on the rest
-       * of the successor nodes of node. The return command
-       * in the catch part will quit this method and report back about it.*/
-      long successorNodeLatestStart;
-      try {
-        successorNodeLatestStart = Action.getLatestStart(successorNode);
-      } catch (NotFoundException e) {
-        return false;
+  private static Path toPath(Transaction tx, ScheduleGraph graph, int[] path) {
+    PathImpl.Builder builder = new PathImpl.Builder(graph.node(tx, path[0]));
+    for (int i = 1; i < path.length; i++) {
+      Node successor = graph.node(tx, path[i]);
+      for (Relationship rel : graph
+        .node(tx, path[i - 1])
+        .getRelationships(Direction.OUTGOING, Precedes.PRECEDES_TYPE)) {
+        if (rel.getEndNode().equals(successor)) {
+          builder = builder.push(rel);
+          break;
+        }
       }
+    }
+    return builder.build();
+  }
+
+  // turns the paths of LongestPaths into RankedPaths while they are read
+  private static class RankedPaths implements Iterator<RankedPath> {
+
+    private final Transaction tx;
+    private final ScheduleGraph graph;
+    private final LongestPaths paths;
+    private long rank;
+    private long longest;
+
+    private RankedPaths(
+      Transaction tx,
+      ScheduleGraph graph,
+      LongestPaths paths
+    ) {
+      this.tx = tx;
+      this.graph = graph;
+      this.paths = paths;
+    }
 
-      /* if the property could be fetched, we need to continue finding the minimum
-       * of all successor node "latestStart" properties. Hence, if the newly
-       * fetched successorNodeLatestStart value is lower than the current minimum,
-       * we need to update minLatestStart */
-      if (successorNodeLatestStart < minLatestStart) {
-        minLatestStart = successorNodeLatestStart;
+    @Override
+    public boolean hasNext() {
+      return paths.hasNext();
+    }
+
+    @Override
+    public RankedPath next() {
+      int[] path = paths.next();
+      long length = paths.length(path);
+      if (rank == 0) {
+        longest = length;
       }
+      return new RankedPath(
+        rank++,
+        toPath(tx, graph, path),
+        length,
+        longest - length
+      );
     }
-    /* if every successorNode had a "latestStart" value, we found the
-     * minimum of them in minLatestStart. Hence, there are no
-     * additional checks needed and we can set the "latestFinish" property
-     * of node to be minLatestStart and return true so that
-     * node can be added to the currentNodes queue
-     * higher up in the call stack.
-     */
-    if (!outgoingRelsIt.hasNext()) {
-      Action.setLatestFinish(node, minLatestStart);
+  }
+
+  /**
+   * A node that has been reached by a pass but is not ready yet.
+   * remaining counts the neighbours that still have to be worked through,
+   * value is the maximum (forward) or minimum (backward) of the values
+   * the other neighbours have passed on so far.
+   */
+  private static class PendingNode {
+
+    private int remaining;
+    private long value;
+
+    private PendingNode(int remaining, long value) {
+      this.remaining = remaining;
+      this.value = value;
     }
-    return true;
   }
 }
@@ -1,16 +1,29 @@
 package org.ek.n23;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
-import java.util.TreeSet;
+import java.util.concurrent.Callable;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
 import org.ek.n23.entity.Action;
 import org.ek.n23.entity.Config;
-import org.ek.n23.entity.Precedes;
+import org.ek.n23.generator.ActionGraph;
+import org.ek.n23.generator.ActionGraphDeleter;
+import org.ek.n23.generator.ActionGraphGenerator;
+import org.ek.n23.generator.ActionGraphWriter;
+import org.ek.n23.generator.ParallelActionGraphGenerator;
+import org.ek.n23.generator.WriteProgress;
+import org.ek.n23.job.GenerationJob;
+import org.ek.n23.job.GenerationJobs;
+import org.ek.n23.utility.CompletionOrderStream;
 import org.ek.n23.utility.ConfigObjectMap;
-import org.ek.n23.utility.NodeComparer;
-import org.ek.n23.utility.RandomNumbers;
+import org.ek.n23.utility.GraphEnds;
+import org.ek.n23.utility.JobInfo;
+import org.ek.n23.utility.RunHistory;
+import org.ek.n23.utility.SchemaEntry;
 import org.ek.n23.utility.Summary;
+import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.procedure.Context;
@@ -30,12 +43,31 @@ public class Procedures {
   @Context
   public Transaction tx;
 
+  @Context
+  public GraphDatabaseService db;
+
   private static Logger logger = Logger.getLogger(Procedures.class.getName());
 
   protected static final String NO_SUCH_CONFIG =
     "There is no config object with that name";
 
-  private static Summary summary = new Summary();
+  protected static final String NO_SUCH_RUN =
+    "There is no run with that id in the run history";
+
+  protected static final String NO_SUCH_GRAPH =
+    "There is no generated graph with that id";
+
+  protected static final String NO_SUCH_JOB =
+    "There is no generation job with that id";
+
+  // number of runs that are kept for showSummary
+  private static final int RUN_HISTORY_SIZE = 100;
+
+  private static final String GENERATE_PHASE = "Generate Graph In Memory";
+
+  private static final RunHistory runHistory = new RunHistory(
+    RUN_HISTORY_SIZE
+  );
 
   /* ProcedureName exists to seperate the names
    * of the procedures from other static
@@ -52,10 +84,38 @@ public class Procedures {
     public static final String GENERATE_GRAPH_BY_SEED_AND_CONFIG =
       "org.ek.n23.generateGraphBySeedAndConfig";
 
+    public static final String GENERATE_GRAPH_BY_SEED_AND_CONFIG_BATCHED =
+      "org.ek.n23.generateGraphBySeedAndConfigBatched";
+
+    public static final String GENERATE_GRAPH_BY_SEED_AND_CONFIG_PARALLEL =
+      "org.ek.n23.generateGraphBySeedAndConfigParallel";
+
+    public static final String GENERATE_GRAPHS_BY_SEEDS_AND_CONFIG =
+      "org.ek.n23.generateGraphsBySeedsAndConfig";
+
     public static final String GENERATE_CONFIG_NODE =
       "org.ek.n23.generateConfigNode";
 
     public static final String SHOW_SUMMARY = "org.ek.n23.showSummary";
+
+    public static final String CREATE_GRAPH_INDEXES =
+      "org.ek.n23.createGraphIndexes";
+
+    public static final String FIND_GRAPH = "org.ek.n23.findGraph";
+
+    public static final String DELETE_GRAPHS = "org.ek.n23.deleteGraphs";
+
+    public static final String SUBMIT_GENERATION =
+      "org.ek.n23.submitGeneration";
+
+    public static final String LIST_GENERATION_JOBS =
+      "org.ek.n23.listGenerationJobs";
+
+    public static final String GENERATION_JOB_STATUS =
+      "org.ek.n23.generationJobStatus";
+
+    public static final String CANCEL_GENERATION_JOB =
+      "org.ek.n23.cancelGenerationJob";
   }
 
   /** This function generates the Action graph.
@@ -63,24 +123,32 @@ public class Procedures {
    * by the different procedures.
    */
   private Stream<Summary> generateGraph(long seed, ConfigObject config) {
+    return Stream.of(generateGraph(tx, seed, config));
+  }
+
+  /** This function generates the Action graph in the given transaction
+   * and records the run in the run history.
+   */
+  private static Summary generateGraph(
+    Transaction tx,
+    long seed,
+    ConfigObject config
+  ) {
     Random random = new Random(seed);
 
-    summary.clear();
+    Summary summary = runHistory.newRun(seed);
 
-    // create Action nodes and return them for further use
-    TreeSet<Node> actionNodes = createActionNodes(random, config);
+    // build the whole topology in memory first
+    long phaseStart = System.nanoTime();
+    ActionGraph graph = ActionGraphGenerator.generate(random, config);
+    summary.addTiming(GENERATE_PHASE, phaseStart);
 
-    // connect Action nodes and return startingNodes for further use
-    TreeSet<Node> startingNodes = connectActionNodes(
-      random,
-      config,
-      actionNodes
-    );
-
-    // create additional Action nodes for start and end with relationships
-    createAdditionalStartAndEndNodes(startingNodes, actionNodes);
+    /* create Action nodes and PRECEDES relationships including
+     * additional start and end nodes in one write pass */
+    ActionGraphWriter.write(tx, graph, summary);
 
-    return Stream.of(summary);
+    runHistory.record(summary);
+    return summary;
   }
 
   /** This procedure generates an Action graph
@@ -118,262 +186,298 @@ public class Procedures {
     return generateGraph(seed, config);
   }
 
-  /** This procedure creates a Config Node in the database
-   * with all necessary properties and some default values.
+  /** This procedure generates an Action graph
+   * by receiving a seed value and a configObject name from Neo4j.
+   * Instead of using the transaction of the procedure call, the graph is
+   * written in separate transactions that are committed every batchSize
+   * nodes and relationships, so graphs of any size can be generated.
    */
-  @Procedure(mode = Mode.WRITE, name = ProcedureName.GENERATE_CONFIG_NODE)
-  @Description("Create a config node")
-  public Stream<ConfigObjectMap> generateConfigNode() {
-    ConfigObject conf = ConfigObject.SampleConfig;
-    Node configNode = tx.createNode(Config.LABEL);
-    conf.write2Node(configNode);
-    return Stream.of(new ConfigObjectMap(configNode));
-  }
+  @Procedure(
+    mode = Mode.WRITE,
+    name = ProcedureName.GENERATE_GRAPH_BY_SEED_AND_CONFIG_BATCHED
+  )
+  @Description(
+    "Create a graph by seed and named config, committing every batchSize entities"
+  )
+  public Stream<Summary> generateGraphBySeedAndConfigBatched(
+    @Name("Seed") long seed,
+    @Name("ConfigName") String configName,
+    @Name(value = "BatchSize", defaultValue = "50000") long batchSize
+  ) {
+    ConfigObject config = ConfigObject.getConfig(configName);
+    if (config == null) {
+      throw new IllegalArgumentException(NO_SUCH_CONFIG);
+    }
 
-  /** This procedure returns the summary of the latest graph creation */
-  @Procedure(mode = Mode.WRITE, name = ProcedureName.SHOW_SUMMARY)
-  @Description("Show summary of last graph creation")
-  public Stream<Summary> showSummary() {
-    return Stream.of(summary);
+    return Stream.of(
+      generateGraphInBatches(db, seed, config, batchSize, new WriteProgress())
+    );
   }
 
-  /** This private function generates Action nodes of the provided
-   * number and return a HashSet containning them all
+  /** This function generates the Action graph and writes it in batches
+   * of separately committed transactions. It does not depend on the
+   * transaction of a procedure call, so it can also run in the background.
    */
-  private TreeSet<Node> createActionNodes(Random random, ConfigObject config) {
-    TreeSet<Node> nodes = new TreeSet<>(new NodeComparer());
-    String name;
-    long duration;
-
-    long minNumberActions = config.actionCount().min();
-    long maxNumberActions = config.actionCount().max();
-    long minActionDuration = config.actionDuration().min();
-    long maxActionDuration = config.actionDuration().max();
-
-    long numberNodes = RandomNumbers.randomNumber(
-      random,
-      minNumberActions,
-      maxNumberActions
-    );
+  private static Summary generateGraphInBatches(
+    GraphDatabaseService db,
+    long seed,
+    ConfigObject config,
+    long batchSize,
+    WriteProgress progress
+  ) {
+    Random random = new Random(seed);
 
-    // Create the provided number of Action nodes
-    for (int i = 1; i <= numberNodes; i++) {
-      // determine properties of node
-      name = Action.transformToNodeName(i);
-      duration =
-        RandomNumbers.randomNumber(
-          random,
-          minActionDuration,
-          maxActionDuration
-        );
-
-      // create node
-      Node newNode = Action.createNode(tx, name, duration);
-
-      // add to collection
-      nodes.add(newNode);
-    }
+    Summary summary = runHistory.newRun(seed);
 
-    // add info about created Action nodes to summary
-    summary.addNodeInfo(
-      Action.LABEL_NAME + " (without start and end node)",
-      nodes.size()
-    );
+    // build the whole topology in memory first
+    long phaseStart = System.nanoTime();
+    ActionGraph graph = ActionGraphGenerator.generate(random, config);
+    summary.addTiming(GENERATE_PHASE, phaseStart);
+
+    // write it in batches of separately committed transactions
+    ActionGraphWriter.writeInBatches(db, graph, batchSize, summary, progress);
 
-    return nodes;
+    runHistory.record(summary);
+    return summary;
   }
 
-  /** This private function creates edges between the Action nodes
-   * and returns a HashSet containning all starting nodes
+  /** This procedure generates an Action graph
+   * by receiving a seed value and a configObject name from Neo4j.
+   * The Action nodes are split into one partition per worker and the
+   * partitions are generated in parallel. The same seed and number of
+   * workers always produce the same graph, but a different number of
+   * workers produces a different graph than the other procedures.
    */
-  private TreeSet<Node> connectActionNodes(
-    Random random,
-    ConfigObject config,
-    TreeSet<Node> actionNodes
+  @Procedure(
+    mode = Mode.WRITE,
+    name = ProcedureName.GENERATE_GRAPH_BY_SEED_AND_CONFIG_PARALLEL
+  )
+  @Description(
+    "Create a graph by seed and named config using a number of parallel workers"
+  )
+  public Stream<Summary> generateGraphBySeedAndConfigParallel(
+    @Name("Seed") long seed,
+    @Name("ConfigName") String configName,
+    @Name(value = "Workers", defaultValue = "4") long workers
   ) {
-    long minNumberStartingNodes = config.startingNodesCount().min();
-    long maxNumberStartingNodes = config.startingNodesCount().max();
-    long minNumberOutgoingRels = config.outgoingRelationsCount().min();
-    long maxNumberOutgoingRels = config.outgoingRelationsCount().max();
-
-    TreeSet<Node> currentNodes = new TreeSet<>(new NodeComparer());
-    TreeSet<Node> unvisitedNodes = new TreeSet<>(new NodeComparer());
-    TreeSet<Node> visitedNodes = new TreeSet<>(new NodeComparer());
-    TreeSet<Node> startingNodes = new TreeSet<>(new NodeComparer());
-    TreeSet<Node> actionNodesWithoutStartingNodes = new TreeSet<>(
-      new NodeComparer()
-    );
+    ConfigObject config = ConfigObject.getConfig(configName);
+    if (config == null) {
+      throw new IllegalArgumentException(NO_SUCH_CONFIG);
+    }
 
-    int relationshipCounter = 0;
+    int workerCount = (int) Math.min(workers, Integer.MAX_VALUE);
 
-    // add all action nodes to unvisited nodes
-    unvisitedNodes.addAll(actionNodes);
+    Summary summary = runHistory.newRun(seed);
 
-    // Find starting nodes
-    long numberStartingNodes = RandomNumbers.randomNumber(
-      random,
-      minNumberStartingNodes,
-      maxNumberStartingNodes
+    // build the whole topology in memory on several cores
+    long phaseStart = System.nanoTime();
+    ActionGraph graph = ParallelActionGraphGenerator.generate(
+      seed,
+      config,
+      workerCount
     );
-    for (int i = 1; i <= numberStartingNodes; i++) {
-      currentNodes.add(RandomNumbers.getRandomElement(random, actionNodes));
-    }
+    summary.addTiming(GENERATE_PHASE, phaseStart);
 
-    // all starting nodes are visited by default
-    startingNodes.addAll(currentNodes);
-    visitedNodes.addAll(currentNodes);
-    unvisitedNodes.removeAll(currentNodes);
-    actionNodesWithoutStartingNodes.addAll(actionNodes);
-    actionNodesWithoutStartingNodes.removeAll(currentNodes);
-
-    // create relationships
-    while (!unvisitedNodes.isEmpty()) {
-      /* take the next node from the currentNodes list
-       * to attach outgoing relationships to it */
-      Node currentNode;
-      if (!currentNodes.isEmpty()) {
-        currentNode = RandomNumbers.getRandomElement(random, currentNodes);
-        currentNodes.remove(currentNode);
-      } else {
-        currentNode = RandomNumbers.getRandomElement(random, visitedNodes);
-        Node toNode = RandomNumbers.getRandomElement(random, unvisitedNodes);
-        Precedes.createRelationship(currentNode, toNode);
-        relationshipCounter++;
-        unvisitedNodes.remove(toNode);
-        currentNodes.add(toNode);
-        continue;
-      }
-
-      // create relationships from currentNode
-      TreeSet<Node> connectedToNodes = createPrecedesRelationships(
-        random,
-        currentNode,
-        actionNodesWithoutStartingNodes,
-        minNumberOutgoingRels,
-        maxNumberOutgoingRels
-      );
-
-      // add the newly created relationships to the counter
-      relationshipCounter += connectedToNodes.size();
-
-      // check all nodes that now have new incoming relationships
-      for (Node node : connectedToNodes) {
-        /* if the node did not have any incoming relationships
-         * before, it has now */
-        if (unvisitedNodes.contains(node)) {
-          unvisitedNodes.remove(node);
-        }
+    // create Action nodes and PRECEDES relationships in one write pass
+    ActionGraphWriter.write(tx, graph, summary);
+    summary.addOtherInfo("Workers", workerCount);
 
-        /* if the node has not received outgoing rels yet
-         * and does not stand in line for getting any,
-         * add it to the currentNodes list*/
-        if (!visitedNodes.contains(node) && !currentNodes.contains(node)) {
-          currentNodes.add(node);
-        }
-      }
+    runHistory.record(summary);
+    return Stream.of(summary);
+  }
 
-      /* after adding outgoing relationships to currentNode
-       * put it into the visitedNodes list so that
-       * it is not dealt with again */
-      visitedNodes.add(currentNode);
+  /** This procedure generates one Action graph per seed
+   * by receiving a list of seed values and a configObject name from Neo4j.
+   * The graphs are generated concurrently, each in its own transaction,
+   * on at most concurrency threads. A Summary is returned for every graph
+   * as soon as its transaction has been committed, so the order of the
+   * rows does not need to be the order of the seeds.
+   */
+  @Procedure(
+    mode = Mode.WRITE,
+    name = ProcedureName.GENERATE_GRAPHS_BY_SEEDS_AND_CONFIG
+  )
+  @Description(
+    "Create one graph per seed by named config, concurrently in separate transactions"
+  )
+  public Stream<Summary> generateGraphsBySeedsAndConfig(
+    @Name("Seeds") List<Long> seeds,
+    @Name("ConfigName") String configName,
+    @Name(value = "Concurrency", defaultValue = "4") long concurrency
+  ) {
+    ConfigObject config = ConfigObject.getConfig(configName);
+    if (config == null) {
+      throw new IllegalArgumentException(NO_SUCH_CONFIG);
     }
 
-    /* add info about number of starting Action nodes
-     * and number of created PRECEDES relationships to summary */
-    summary.addOtherInfo("Starting Action Nodes", startingNodes.size());
-    summary.addRelationshipInfo(Precedes.TYPE_NAME, relationshipCounter);
+    GraphDatabaseService database = db;
+    List<Callable<Summary>> generations = new ArrayList<>();
+    for (long seed : seeds) {
+      generations.add(() -> {
+        try (Transaction ownTx = database.beginTx()) {
+          Summary summary = generateGraph(ownTx, seed, config);
+          ownTx.commit();
+          return summary;
+        }
+      });
+    }
+    return CompletionOrderStream.of(
+      generations,
+      (int) Math.min(concurrency, Integer.MAX_VALUE),
+      "n23-multi-seed-generation"
+    );
+  }
 
-    return startingNodes;
+  /** This procedure creates a Config Node in the database
+   * with all necessary properties and some default values.
+   */
+  @Procedure(mode = Mode.WRITE, name = ProcedureName.GENERATE_CONFIG_NODE)
+  @Description("Create a config node")
+  public Stream<ConfigObjectMap> generateConfigNode() {
+    ConfigObject conf = ConfigObject.SampleConfig;
+    Node configNode = tx.createNode(Config.LABEL);
+    conf.write2Node(configNode);
+    return Stream.of(new ConfigObjectMap(configNode));
   }
 
-  /** This private function creates a start and an
-   * end Action node with duration 0.
-   * All nodes without a predecessor receive an
-   * incoming PRECEDES relationship from the start node.
-   * All nodes without a successor receive an
-   * outgoing PRECEDES relationship to the end node.
+  /** This procedure returns the summary of a recent graph creation.
+   * Without a run id, the summary of the latest graph creation is returned.
+   * Only the last RUN_HISTORY_SIZE runs are kept.
    */
-  private void createAdditionalStartAndEndNodes(
-    TreeSet<Node> startingNodes,
-    TreeSet<Node> actionNodes
+  @Procedure(mode = Mode.WRITE, name = ProcedureName.SHOW_SUMMARY)
+  @Description(
+    "Show summary of a recent graph creation, by default the last one"
+  )
+  public Stream<Summary> showSummary(
+    @Name(value = "RunId", defaultValue = "-1") long runId
   ) {
-    String name;
-    int duration = 0;
-
-    // Create start node
-    name = Action.transformToNodeName(0);
-    Node startNode = Action.createNode(tx, name, duration);
-
-    // Create end node
-    name = Action.transformToNodeName(actionNodes.size() + 1);
-    Node endNode = Action.createNode(tx, name, duration);
-
-    // connect start to all starting nodes
-    for (Node startingNode : startingNodes) {
-      Precedes.createRelationship(startNode, startingNode);
+    if (runId == -1) {
+      Summary latest = runHistory.latest();
+      return latest == null ? Stream.empty() : Stream.of(latest);
+    }
+    Summary summary = runHistory.get(runId);
+    if (summary == null) {
+      throw new IllegalArgumentException(NO_SUCH_RUN);
     }
+    return Stream.of(summary);
+  }
 
-    // find all ending nodes and connect them to endNode
-    for (Node node : actionNodes) {
-      if (!Action.hasSuccessors(node)) {
-        Precedes.createRelationship(node, endNode);
-      }
+  /** This procedure creates the constraints and the indexes that let
+   * findGraph, deleteGraphs, the partitioned schedule and lookups by graph
+   * id and name use an index instead of a label scan. Existing constraints
+   * and indexes are kept, the names of the created ones are returned.
+   */
+  @Procedure(mode = Mode.SCHEMA, name = ProcedureName.CREATE_GRAPH_INDEXES)
+  @Description("Create the indexes for looking up generated graphs by graph id")
+  public Stream<SchemaEntry> createGraphIndexes() {
+    return Action.createIndexes(tx).stream().map(SchemaEntry::new);
+  }
+
+  /** This procedure returns the start and end node of the generated
+   * graph with graphId, see Summary.graphId.
+   */
+  @Procedure(name = ProcedureName.FIND_GRAPH)
+  @Description("Find the start and end node of a generated graph by graph id")
+  public Stream<GraphEnds> findGraph(@Name("GraphId") String graphId) {
+    Node start = Action.findStartNode(tx, graphId);
+    Node end = Action.findEndNode(tx, graphId);
+    if (start == null || end == null) {
+      throw new IllegalArgumentException(NO_SUCH_GRAPH);
     }
+    return Stream.of(new GraphEnds(graphId, start, end));
   }
 
-  /** This private function receives a node and the Set of all nodes and
-   * a maximum number of relationships to create to random nodes from the
-   * Set and returns the nodes that it has connected to.
+  /** This procedure deletes the generated graph with graphId or,
+   * if no graph id is given, all Action nodes. Config nodes are deleted
+   * as well if includeConfig is true. Relationships are deleted before
+   * the nodes, and the deletions are committed every batchSize nodes
+   * and relationships in separate transactions.
    */
-  private TreeSet<Node> createPrecedesRelationships(
-    Random random,
-    Node currentNode,
-    TreeSet<Node> nodes,
-    long minNumberRels,
-    long maxNumberRels
+  @Procedure(mode = Mode.WRITE, name = ProcedureName.DELETE_GRAPHS)
+  @Description(
+    "Delete one or all generated graphs, committing every batchSize entities"
+  )
+  public Stream<Summary> deleteGraphs(
+    @Name(value = "GraphId", defaultValue = "") String graphId,
+    @Name(value = "IncludeConfig", defaultValue = "false") boolean includeConfig,
+    @Name(value = "BatchSize", defaultValue = "10000") long batchSize
   ) {
-    /* get a random number between 1 and the maximum number of
-     * outoing relationships to attach to currentNode */
-    long numberOutgoingRels = RandomNumbers.randomNumber(
-      random,
-      minNumberRels,
-      maxNumberRels
+    return Stream.of(
+      ActionGraphDeleter.delete(
+        db,
+        graphId.isEmpty() ? null : graphId,
+        includeConfig,
+        batchSize
+      )
     );
+  }
 
-    // create return set
-    TreeSet<Node> newSuccessors = new TreeSet<>(new NodeComparer());
-
-    /* create a set of nodes without the predecessors
-     * and direct successors to find possible successors */
-    TreeSet<Node> possibleSuccessorNodes = new TreeSet<>(new NodeComparer());
-    possibleSuccessorNodes.addAll(nodes);
-
-    /* get all predecessors of the currentNode and
-     * remove them from possibleSuccessorNodes */
-    Action
-      .getAllPredecessors(currentNode)
-      .forEach(possibleSuccessorNodes::remove);
-
-    /* get direct successors of the currentNode and
-     * remove them from possibleSuccessorNodes */
-    Action.getSuccessorsOf(currentNode).forEach(possibleSuccessorNodes::remove);
-
-    // create relationships
-    for (int i = 0; i < numberOutgoingRels; i++) {
-      if (possibleSuccessorNodes.isEmpty()) {
-        break;
-      } else {
-        Node toNode = RandomNumbers.getRandomElement(
-          random,
-          possibleSuccessorNodes
-        );
-
-        Precedes.createRelationship(currentNode, toNode);
-        possibleSuccessorNodes.remove(toNode);
-        newSuccessors.add(toNode);
-      }
+  // region generation jobs
+
+  /** This procedure queues the generation of an Action graph
+   * by receiving a seed value and a configObject name from Neo4j
+   * and returns right away. The graph is generated in the background
+   * and written in batches like in generateGraphBySeedAndConfigBatched.
+   * The job can be followed with generationJobStatus.
+   */
+  @Procedure(mode = Mode.WRITE, name = ProcedureName.SUBMIT_GENERATION)
+  @Description(
+    "Generate a graph by seed and named config in the background and return the job"
+  )
+  public Stream<JobInfo> submitGeneration(
+    @Name("Seed") long seed,
+    @Name("ConfigName") String configName,
+    @Name(value = "BatchSize", defaultValue = "50000") long batchSize
+  ) {
+    ConfigObject config = ConfigObject.getConfig(configName);
+    if (config == null) {
+      throw new IllegalArgumentException(NO_SUCH_CONFIG);
     }
 
-    return newSuccessors;
+    /* the database service outlives the procedure call,
+     * its transaction must not be used by the job */
+    GraphDatabaseService database = db;
+    GenerationJob job = GenerationJobs.of(db).submit(
+      seed,
+      configName,
+      progress ->
+        generateGraphInBatches(database, seed, config, batchSize, progress)
+    );
+    return Stream.of(new JobInfo(job));
+  }
+
+  /** This procedure returns all queued, running and recently finished jobs */
+  @Procedure(name = ProcedureName.LIST_GENERATION_JOBS)
+  @Description("List the generation jobs")
+  public Stream<JobInfo> listGenerationJobs() {
+    return GenerationJobs.of(db).list().stream().map(JobInfo::new);
+  }
+
+  /** This procedure returns the status and progress of a job */
+  @Procedure(name = ProcedureName.GENERATION_JOB_STATUS)
+  @Description("Show status and progress of a generation job")
+  public Stream<JobInfo> generationJobStatus(@Name("JobId") long jobId) {
+    return Stream.of(new JobInfo(getJob(jobId)));
+  }
+
+  /** This procedure cancels a queued or running job. The batches
+   * that a running job has committed stay in the database.
+   */
+  @Procedure(name = ProcedureName.CANCEL_GENERATION_JOB)
+  @Description("Cancel a generation job")
+  public Stream<JobInfo> cancelGenerationJob(@Name("JobId") long jobId) {
+    GenerationJob job = getJob(jobId);
+    job.cancel();
+    return Stream.of(new JobInfo(job));
+  }
+
+  private GenerationJob getJob(long jobId) {
+    GenerationJob job = GenerationJobs.of(db).get(jobId);
+    if (job == null) {
+      throw new IllegalArgumentException(NO_SUCH_JOB);
+    }
+    return job;
   }
+
+  // endregion
 }
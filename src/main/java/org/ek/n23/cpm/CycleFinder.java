@@ -0,0 +1,251 @@
+package org.ek.n23.cpm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * This class finds the cycles of a ScheduleGraph.
+ *
+ * The strongly connected components are found with Tarjan's algorithm.
+ * Every component with more than one node, or with a node that precedes
+ * itself, contains at least one cycle. The recursion of the algorithm is
+ * replaced by an explicit stack, so the depth of the graph is not limited
+ * by the thread's stack. Every node and relationship is visited once.
+ *
+ * For every such component, one cycle through its first node is found by
+ * a breadth-first search that stays inside the component.
+ */
+public class CycleFinder {
+
+  private static final int UNVISITED = -1;
+
+  private CycleFinder() {}
+
+  /**
+   * This method finds the strongly connected components that contain cycles
+   * @param graph: the loaded graph
+   * @return the node indices of every component with a cycle
+   */
+  public static List<int[]> cyclicComponents(ScheduleGraph graph) {
+    return components(
+      graph.nodeCount(),
+      graph::successorOffset,
+      graph::successorTarget,
+      true
+    );
+  }
+
+  /**
+   * This method finds the strongly connected components of a graph in
+   * compressed sparse row format, see ScheduleGraph. A component is
+   * returned after all components that can be reached from it, so the
+   * reversed list is in topological order.
+   * @param nodeCount: number of nodes
+   * @param successorOffset: position of the first successor of a node,
+   * nodeCount gives the number of relationships
+   * @param successorTarget: successor at a position
+   * @param cyclicOnly: whether only components with a cycle are returned
+   * @return the node indices of the components
+   */
+  static List<int[]> components(
+    int nodeCount,
+    IntUnaryOperator successorOffset,
+    IntUnaryOperator successorTarget,
+    boolean cyclicOnly
+  ) {
+    List<int[]> components = new ArrayList<>();
+
+    // visiting order and lowest reachable visiting order of every node
+    int[] index = new int[nodeCount];
+    int[] lowLink = new int[nodeCount];
+    Arrays.fill(index, UNVISITED);
+    int visited = 0;
+
+    // nodes that have been visited but not assigned to a component yet
+    int[] stack = new int[nodeCount];
+    boolean[] onStack = new boolean[nodeCount];
+    int stackSize = 0;
+
+    // replaces the recursion: node and position of its next successor
+    int[] callNodes = new int[nodeCount];
+    int[] callPositions = new int[nodeCount];
+
+    for (int root = 0; root < nodeCount; root++) {
+      if (index[root] != UNVISITED) {
+        continue;
+      }
+      index[root] = lowLink[root] = visited++;
+      stack[stackSize++] = root;
+      onStack[root] = true;
+      callNodes[0] = root;
+      callPositions[0] = successorOffset.applyAsInt(root);
+      int depth = 1;
+
+      while (depth > 0) {
+        int node = callNodes[depth - 1];
+        int position = callPositions[depth - 1];
+
+        if (position < successorOffset.applyAsInt(node + 1)) {
+          // look at the next successor of node
+          callPositions[depth - 1]++;
+          int successor = successorTarget.applyAsInt(position);
+          if (index[successor] == UNVISITED) {
+            index[successor] = lowLink[successor] = visited++;
+            stack[stackSize++] = successor;
+            onStack[successor] = true;
+            callNodes[depth] = successor;
+            callPositions[depth] = successorOffset.applyAsInt(successor);
+            depth++;
+          } else if (onStack[successor]) {
+            lowLink[node] = Math.min(lowLink[node], index[successor]);
+          }
+          continue;
+        }
+
+        // all successors of node are done, return to its caller
+        depth--;
+        if (depth > 0) {
+          int caller = callNodes[depth - 1];
+          lowLink[caller] = Math.min(lowLink[caller], lowLink[node]);
+        }
+        if (lowLink[node] != index[node]) {
+          continue;
+        }
+
+        // node is the root of a component, which is on top of the stack
+        int start = stackSize;
+        do {
+          onStack[stack[--start]] = false;
+        } while (stack[start] != node);
+        if (
+          !cyclicOnly ||
+          stackSize - start > 1 ||
+          precedesItself(successorOffset, successorTarget, node)
+        ) {
+          components.add(Arrays.copyOfRange(stack, start, stackSize));
+        }
+        stackSize = start;
+      }
+    }
+    return components;
+  }
+
+  /**
+   * This method finds a cycle inside every component of cyclicComponents.
+   * The marks of the search are allocated once for all components, so the
+   * cost grows with the size of the components, not with their number.
+   * @param graph: the loaded graph
+   * @param components: node indices of the components
+   * @return the node indices of one cycle per component, see cycleIn
+   */
+  public static List<int[]> cyclesIn(
+    ScheduleGraph graph,
+    List<int[]> components
+  ) {
+    int[] previous = unvisited(graph.nodeCount());
+    List<int[]> cycles = new ArrayList<>(components.size());
+    for (int[] component : components) {
+      cycles.add(cycleIn(graph, component, previous));
+    }
+    return cycles;
+  }
+
+  /**
+   * This method finds a cycle inside a component of cyclicComponents
+   * @param graph: the loaded graph
+   * @param component: node indices of the component
+   * @return the node indices of the cycle, starting and ending with the
+   * first node of the component
+   */
+  public static int[] cycleIn(ScheduleGraph graph, int[] component) {
+    return cycleIn(graph, component, unvisited(graph.nodeCount()));
+  }
+
+  /* previous holds the predecessor on the search path of every reached
+   * node of the component. It has to be UNVISITED for all nodes before and
+   * is reset to UNVISITED for the nodes of the component afterwards. */
+  private static int[] cycleIn(
+    ScheduleGraph graph,
+    int[] component,
+    int[] previous
+  ) {
+    int first = component[0];
+    for (int node : component) {
+      previous[node] = UNVISITED - 1;
+    }
+
+    int[] cycle = null;
+    int[] queue = new int[component.length];
+    int head = 0;
+    int tail = 0;
+    queue[tail++] = first;
+    while (cycle == null && head < tail) {
+      int node = queue[head++];
+      for (
+        int k = graph.successorOffset(node);
+        k < graph.successorOffset(node + 1);
+        k++
+      ) {
+        int successor = graph.successorTarget(k);
+        if (successor == first) {
+          cycle = path(previous, first, node);
+          break;
+        }
+        // only unreached nodes of the component are followed
+        if (previous[successor] == UNVISITED - 1) {
+          previous[successor] = node;
+          queue[tail++] = successor;
+        }
+      }
+    }
+
+    for (int node : component) {
+      previous[node] = UNVISITED;
+    }
+    if (cycle == null) {
+      throw new IllegalArgumentException("The component contains no cycle");
+    }
+    return cycle;
+  }
+
+  private static int[] unvisited(int nodeCount) {
+    int[] marks = new int[nodeCount];
+    Arrays.fill(marks, UNVISITED);
+    return marks;
+  }
+
+  /* returns first, the path from first to last and first again */
+  private static int[] path(int[] previous, int first, int last) {
+    int length = 2;
+    for (int node = last; node != first; node = previous[node]) {
+      length++;
+    }
+    int[] path = new int[length];
+    path[0] = first;
+    path[length - 1] = first;
+    int position = length - 2;
+    for (int node = last; node != first; node = previous[node]) {
+      path[position--] = node;
+    }
+    return path;
+  }
+
+  private static boolean precedesItself(
+    IntUnaryOperator successorOffset,
+    IntUnaryOperator successorTarget,
+    int node
+  ) {
+    for (
+      int k = successorOffset.applyAsInt(node);
+      k < successorOffset.applyAsInt(node + 1);
+      k++
+    ) {
+      if (successorTarget.applyAsInt(k) == node) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,97 @@
+package org.ek.n23.cpm;
+
+import java.util.Arrays;
+
+/**
+ * This class maps the element ids of the nodes of a ScheduleGraph to
+ * their indices. It is a hash table with open addressing and linear
+ * probing in two arrays, so no entry object is created per node; the
+ * keys are the same strings the graph keeps anyway. A slot takes a
+ * reference and an int, and there are two to four slots per node.
+ */
+class ElementIdIndex {
+
+  static final int ABSENT = -1;
+
+  private static final int MIN_CAPACITY = 16;
+
+  private String[] elementIds;
+
+  // index of the node with the element id at the same slot, ABSENT for free slots
+  private int[] indices;
+
+  private int size;
+
+  ElementIdIndex(int expectedSize) {
+    int capacity = MIN_CAPACITY;
+    while (capacity < 2L * expectedSize) {
+      capacity *= 2;
+    }
+    this.elementIds = new String[capacity];
+    this.indices = new int[capacity];
+    Arrays.fill(indices, ABSENT);
+  }
+
+  int size() {
+    return size;
+  }
+
+  // returns the index of the node with elementId or ABSENT if it is not in the table
+  int get(String elementId) {
+    int mask = indices.length - 1;
+    for (int slot = slot(elementId, mask); ; slot = (slot + 1) & mask) {
+      if (indices[slot] == ABSENT || elementIds[slot].equals(elementId)) {
+        return indices[slot];
+      }
+    }
+  }
+
+  /* adds the node with elementId and index if the table does not contain
+   * elementId yet, returns the index that was stored before or ABSENT.
+   * The table is grown before it is more than half full. */
+  int putIfAbsent(String elementId, int index) {
+    if (2 * (size + 1) > indices.length) {
+      grow();
+    }
+    int mask = indices.length - 1;
+    int slot = slot(elementId, mask);
+    while (indices[slot] != ABSENT) {
+      if (elementIds[slot].equals(elementId)) {
+        return indices[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    elementIds[slot] = elementId;
+    indices[slot] = index;
+    size++;
+    return ABSENT;
+  }
+
+  /* doubles the capacity and puts all entries into their new slots */
+  private void grow() {
+    String[] oldElementIds = elementIds;
+    int[] oldIndices = indices;
+    elementIds = new String[oldElementIds.length * 2];
+    indices = new int[oldIndices.length * 2];
+    Arrays.fill(indices, ABSENT);
+    int mask = indices.length - 1;
+    for (int i = 0; i < oldIndices.length; i++) {
+      if (oldIndices[i] != ABSENT) {
+        int slot = slot(oldElementIds[i], mask);
+        while (indices[slot] != ABSENT) {
+          slot = (slot + 1) & mask;
+        }
+        elementIds[slot] = oldElementIds[i];
+        indices[slot] = oldIndices[i];
+      }
+    }
+  }
+
+  /* spreads the string hash over the table (Fibonacci hashing), element
+   * ids only differ in their last characters, so the low bits alone
+   * would cluster */
+  private static int slot(String elementId, int mask) {
+    int hash = elementId.hashCode() * 0x9E3779B9;
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+}
@@ -0,0 +1,435 @@
+package org.ek.n23.cpm;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import org.ek.n23.entity.Action;
+import org.ek.n23.entity.Precedes;
+import org.ek.n23.utility.ScheduleUpdate;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+/**
+ * This class updates a schedule that has already been written on the
+ * nodes after a single change of the graph, instead of calculating it
+ * from scratch.
+ *
+ * The earliest values are recalculated starting at the changed node and
+ * passed on to the successors as long as they change. The latest values
+ * are then recalculated starting at the changed node and passed on to the
+ * predecessors as long as they change. Only if the project duration
+ * changes, i.e. the earliest finish of a node without successors, the
+ * latest values are recalculated starting at all nodes without successors.
+ * Both passes go in topological order, so every node is recalculated at
+ * most once.
+ *
+ * Like in the ScheduleCalculator, nodes without successors finish at the
+ * project duration and nodes without predecessors start at 0.
+ */
+public class IncrementalSchedule {
+
+  protected static final String NO_SCHEDULE =
+    "The node has no schedule, calculate the schedule first";
+  protected static final String NEGATIVE_DURATION =
+    "The duration must not be negative";
+  protected static final String CYCLE_CREATED =
+    "The new relationship would create a cycle";
+  protected static final String CYCLE_FOUND =
+    "The graph contains a cycle, the schedule cannot be updated";
+
+  // nodes whose values have been recalculated
+  private final Set<Node> touched = new HashSet<>();
+
+  // nodes whose values have changed
+  private final Set<Node> changed = new HashSet<>();
+
+  // old earliest finish of the changed nodes without successors
+  private final Map<Node, Long> changedSinks = new HashMap<>();
+
+  // nodes without successors, only collected if needed
+  private List<Node> sinks;
+
+  private IncrementalSchedule() {}
+
+  /**
+   * This method sets the duration of node and updates the schedule
+   * @param node: node whose duration changes
+   * @param duration: the new duration
+   * @return the number of touched and changed nodes and the project duration
+   */
+  public static ScheduleUpdate updateDuration(Node node, long duration) {
+    if (duration < 0) {
+      throw new IllegalArgumentException(NEGATIVE_DURATION);
+    }
+    requireSchedule(node);
+
+    long projectDuration = projectDuration(node);
+    Action.setDuration(node, duration);
+
+    IncrementalSchedule update = new IncrementalSchedule();
+    update.propagateForward(List.of(node));
+    return update.propagateBackward(List.of(node), projectDuration, node);
+  }
+
+  /**
+   * This method adds a PRECEDES relationship from predecessor to successor
+   * and updates the schedule
+   * @param predecessor: start node of the new relationship
+   * @param successor: end node of the new relationship
+   * @return the number of touched and changed nodes and the project duration
+   */
+  public static ScheduleUpdate addDependency(
+    Node predecessor,
+    Node successor
+  ) {
+    requireSchedule(predecessor);
+    requireSchedule(successor);
+
+    if (reaches(successor, predecessor)) {
+      throw new IllegalArgumentException(CYCLE_CREATED);
+    }
+
+    long projectDuration = projectDuration(successor);
+    Precedes.createRelationship(predecessor, successor);
+
+    IncrementalSchedule update = new IncrementalSchedule();
+    update.propagateForward(List.of(successor));
+    return update.propagateBackward(
+      List.of(predecessor),
+      projectDuration,
+      successor
+    );
+  }
+
+  /**
+   * This method updates the schedule after the durations or relationships
+   * of nodes have been changed by someone else. Nodes without a schedule
+   * are ignored. All nodes must belong to the same graph. Only a created
+   * relationship can close a cycle, so every one of them is checked like
+   * in addDependency before anything is updated.
+   * @param nodes: nodes whose duration, predecessors or successors changed
+   * @param createdRelationships: PRECEDES relationships that have been
+   * created among the changes
+   * @return the number of touched and changed nodes and the project duration
+   */
+  public static ScheduleUpdate refresh(
+    Collection<Node> nodes,
+    Collection<Relationship> createdRelationships
+  ) {
+    for (Relationship rel : createdRelationships) {
+      if (reaches(rel.getEndNode(), rel.getStartNode())) {
+        throw new IllegalArgumentException(CYCLE_FOUND);
+      }
+    }
+
+    List<Node> seeds = new ArrayList<>();
+    for (Node node : nodes) {
+      if (Action.hasSchedule(node)) {
+        seeds.add(node);
+      }
+    }
+    if (seeds.isEmpty()) {
+      return new ScheduleUpdate(0, 0, 0);
+    }
+    long projectDuration = 0;
+    for (Node seed : seeds) {
+      /* a node may have lost its last successor, so the project duration
+       * is the maximum found, which is the one of an old end node */
+      projectDuration = Math.max(projectDuration, projectDuration(seed));
+    }
+
+    IncrementalSchedule update = new IncrementalSchedule();
+    update.propagateForward(seeds);
+    return update.propagateBackward(seeds, projectDuration, seeds.get(0));
+  }
+
+  private static void requireSchedule(Node node) {
+    if (!Action.hasSchedule(node)) {
+      throw new IllegalArgumentException(NO_SCHEDULE);
+    }
+  }
+
+  /* returns the project duration, i.e. the latest finish of the
+   * first node without successors that is found after node. Every node
+   * without successors finishes at the project duration at the latest, so
+   * any of them gives the same value as long as the schedule is current.
+   * A cycle that has been left in the graph is reported instead of being
+   * walked around forever. */
+  private static long projectDuration(Node node) {
+    Set<Node> visited = new HashSet<>();
+    Node current = node;
+    Relationship next = first(current, Direction.OUTGOING);
+    while (next != null) {
+      current = next.getEndNode();
+      if (!visited.add(current)) {
+        throw new IllegalArgumentException(CYCLE_FOUND);
+      }
+      next = first(current, Direction.OUTGOING);
+    }
+    return Action.getLatestFinish(current);
+  }
+
+  private static Relationship first(Node node, Direction direction) {
+    for (Relationship rel : node.getRelationships(
+      direction,
+      Precedes.PRECEDES_TYPE
+    )) {
+      return rel;
+    }
+    return null;
+  }
+
+  /** This private method checks whether target can be reached from node.
+   * All successors are followed, since the stored schedule may be out of
+   * date and can not be used to rule out a path.
+   */
+  private static boolean reaches(Node node, Node target) {
+    Set<Node> visited = new HashSet<>();
+    ArrayDeque<Node> nodesToCheck = new ArrayDeque<>();
+    nodesToCheck.add(node);
+    visited.add(node);
+    while (!nodesToCheck.isEmpty()) {
+      Node current = nodesToCheck.poll();
+      if (current.equals(target)) {
+        return true;
+      }
+      for (Relationship rel : current.getRelationships(
+        Direction.OUTGOING,
+        Precedes.PRECEDES_TYPE
+      )) {
+        if (visited.add(rel.getEndNode())) {
+          nodesToCheck.add(rel.getEndNode());
+        }
+      }
+    }
+    return false;
+  }
+
+  /** This private method recalculates the earliest start and finish of
+   * the seeds and passes changes on to their successors.
+   */
+  private void propagateForward(Collection<Node> seeds) {
+    propagate(seeds, Direction.OUTGOING, this::recalculateEarliest);
+  }
+
+  /** This private method recalculates the latest start and finish of the
+   * seeds and passes changes on to their predecessors. If the project
+   * duration has changed, all nodes without successors are added to
+   * the seeds.
+   */
+  private ScheduleUpdate propagateBackward(
+    Collection<Node> seeds,
+    long oldProjectDuration,
+    Node changedNode
+  ) {
+    long projectDuration = newProjectDuration(oldProjectDuration, changedNode);
+
+    Set<Node> backwardSeeds = new LinkedHashSet<>(seeds);
+    if (projectDuration != oldProjectDuration) {
+      backwardSeeds.addAll(sinksOfGraph(changedNode));
+    }
+    propagate(
+      backwardSeeds,
+      Direction.INCOMING,
+      node -> recalculateLatest(node, projectDuration)
+    );
+
+    return new ScheduleUpdate(touched.size(), changed.size(), projectDuration);
+  }
+
+  /** This private method passes changes from the seeds on in direction in
+   * topological order. A node is only taken once all nodes before it that
+   * can be reached from the seeds are done, so it is recalculated at most
+   * once, and only if it is a seed or a node before it has changed.
+   * Nodes on a cycle are never taken, so the propagation always ends.
+   * @param seeds: nodes to recalculate first
+   * @param direction: OUTGOING to pass changes on to the successors,
+   * INCOMING to pass them on to the predecessors
+   * @param recalculate: recalculates a node and returns whether it changed
+   */
+  private static void propagate(
+    Collection<Node> seeds,
+    Direction direction,
+    Predicate<Node> recalculate
+  ) {
+    Map<Node, Integer> waitingFor = reachableWithInDegrees(seeds, direction);
+    Set<Node> outdated = new HashSet<>(seeds);
+    ArrayDeque<Node> readyNodes = new ArrayDeque<>();
+    for (Map.Entry<Node, Integer> entry : waitingFor.entrySet()) {
+      if (entry.getValue() == 0) {
+        readyNodes.add(entry.getKey());
+      }
+    }
+    while (!readyNodes.isEmpty()) {
+      Node node = readyNodes.poll();
+      boolean nodeChanged = outdated.contains(node) && recalculate.test(node);
+      for (Relationship rel : node.getRelationships(
+        direction,
+        Precedes.PRECEDES_TYPE
+      )) {
+        Node next = rel.getOtherNode(node);
+        if (nodeChanged) {
+          outdated.add(next);
+        }
+        if (waitingFor.merge(next, -1, Integer::sum) == 0) {
+          readyNodes.add(next);
+        }
+      }
+    }
+  }
+
+  /* returns the seeds and all nodes that can be reached from them in
+   * direction, each with the number of its relationships from the other
+   * returned nodes. Only relationships are read, no properties. */
+  private static Map<Node, Integer> reachableWithInDegrees(
+    Collection<Node> seeds,
+    Direction direction
+  ) {
+    Map<Node, Integer> inDegrees = new LinkedHashMap<>();
+    for (Node seed : seeds) {
+      inDegrees.put(seed, 0);
+    }
+    ArrayDeque<Node> nodesToCheck = new ArrayDeque<>(inDegrees.keySet());
+    while (!nodesToCheck.isEmpty()) {
+      Node current = nodesToCheck.poll();
+      for (Relationship rel : current.getRelationships(
+        direction,
+        Precedes.PRECEDES_TYPE
+      )) {
+        Node next = rel.getOtherNode(current);
+        Integer inDegree = inDegrees.get(next);
+        // every node is checked once, also a seed that can be reached
+        if (inDegree == null) {
+          nodesToCheck.add(next);
+        }
+        inDegrees.put(next, inDegree == null ? 1 : inDegree + 1);
+      }
+    }
+    return inDegrees;
+  }
+
+  /* recalculates the earliest start and finish of node from its
+   * predecessors and returns whether they have changed */
+  private boolean recalculateEarliest(Node node) {
+    touched.add(node);
+    long earliestStart = 0;
+    for (Relationship rel : node.getRelationships(
+      Direction.INCOMING,
+      Precedes.PRECEDES_TYPE
+    )) {
+      earliestStart =
+        Math.max(earliestStart, Action.getEarliestFinish(rel.getStartNode()));
+    }
+    long earliestFinish = earliestStart + Action.getDuration(node);
+
+    long oldEarliestFinish = Action.getEarliestFinish(node);
+    if (
+      earliestStart == Action.getEarliestStart(node) &&
+      earliestFinish == oldEarliestFinish
+    ) {
+      return false;
+    }
+    Action.setEarliestStart(node, earliestStart);
+    Action.setEarliestFinish(node, earliestFinish);
+    changed.add(node);
+    if (first(node, Direction.OUTGOING) == null) {
+      changedSinks.putIfAbsent(node, oldEarliestFinish);
+    }
+    return true;
+  }
+
+  /* recalculates the latest start and finish of node from its successors
+   * and returns whether they have changed */
+  private boolean recalculateLatest(Node node, long projectDuration) {
+    touched.add(node);
+    long latestFinish = Long.MAX_VALUE;
+    for (Relationship rel : node.getRelationships(
+      Direction.OUTGOING,
+      Precedes.PRECEDES_TYPE
+    )) {
+      latestFinish =
+        Math.min(latestFinish, Action.getLatestStart(rel.getEndNode()));
+    }
+    if (latestFinish == Long.MAX_VALUE) {
+      latestFinish = projectDuration;
+    }
+    long latestStart = latestFinish - Action.getDuration(node);
+
+    if (
+      latestFinish == Action.getLatestFinish(node) &&
+      latestStart == Action.getLatestStart(node)
+    ) {
+      return false;
+    }
+    Action.setLatestFinish(node, latestFinish);
+    Action.setLatestStart(node, latestStart);
+    changed.add(node);
+    return true;
+  }
+
+  /** This private method returns the project duration after the forward
+   * propagation. It can only have changed if the earliest finish of a node
+   * without successors has changed. If such a node determined the old
+   * project duration and finishes earlier now, all nodes without successors
+   * have to be looked at.
+   */
+  private long newProjectDuration(long oldProjectDuration, Node changedNode) {
+    long projectDuration = oldProjectDuration;
+    boolean maximumLost = false;
+    for (Map.Entry<Node, Long> sink : changedSinks.entrySet()) {
+      long earliestFinish = Action.getEarliestFinish(sink.getKey());
+      projectDuration = Math.max(projectDuration, earliestFinish);
+      if (sink.getValue() == oldProjectDuration) {
+        maximumLost = true;
+      }
+    }
+    if (maximumLost && projectDuration == oldProjectDuration) {
+      projectDuration = 0;
+      for (Node sink : sinksOfGraph(changedNode)) {
+        projectDuration =
+          Math.max(projectDuration, Action.getEarliestFinish(sink));
+      }
+    }
+    return projectDuration;
+  }
+
+  /* returns all nodes without successors that are connected to node */
+  private List<Node> sinksOfGraph(Node node) {
+    if (sinks != null) {
+      return sinks;
+    }
+    List<Node> componentSinks = new ArrayList<>();
+    Set<Node> visited = new HashSet<>();
+    ArrayDeque<Node> nodesToCheck = new ArrayDeque<>();
+    nodesToCheck.add(node);
+    visited.add(node);
+    while (!nodesToCheck.isEmpty()) {
+      Node current = nodesToCheck.poll();
+      touched.add(current);
+      boolean hasSuccessors = false;
+      for (Relationship rel : current.getRelationships(
+        Precedes.PRECEDES_TYPE
+      )) {
+        Node other = rel.getOtherNode(current);
+        hasSuccessors |= rel.getStartNode().equals(current);
+        if (visited.add(other)) {
+          nodesToCheck.add(other);
+        }
+      }
+      if (!hasSuccessors) {
+        componentSinks.add(current);
+      }
+    }
+    sinks = componentSinks;
+    return sinks;
+  }
+}
@@ -0,0 +1,245 @@
+package org.ek.n23.cpm;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * This class enumerates the paths of a ScheduleGraph from a start node to
+ * an end node in the order of decreasing length, the length of a path
+ * being the sum of the durations of its nodes. So the first path is a
+ * critical path and the following ones are the near-critical paths.
+ *
+ * For every node, the longest remaining path to the end node is calculated
+ * once in reverse topological order, and the successors of every node are
+ * sorted by the length of the longest path through them. The enumeration
+ * is a best-first search over path prefixes whose priority is the length
+ * of the longest path that starts with them, which is exact, so the
+ * complete paths are found in the order of their length.
+ *
+ * A candidate in the queue is a prefix plus the position of a successor
+ * of its last node. Taking a candidate adds at most two new ones: the
+ * prefix extended by its best successor and the same prefix with the next
+ * successor in order. So every path is found after at most as many steps
+ * as it has nodes, and the queue only grows with the number of paths that
+ * are taken, not with the number of paths in the graph. The paths are only
+ * searched for when they are asked for.
+ */
+public class LongestPaths implements Iterator<int[]> {
+
+  // remaining length of the nodes from which the end node cannot be reached
+  private static final long UNREACHABLE = Long.MIN_VALUE;
+
+  private final ScheduleGraph graph;
+
+  private final int end;
+
+  // longest path to the end node after every node, without the node itself
+  private final long[] remaining;
+
+  /* the successors of every node that reach the end node, the longest
+   * path through them first, in compressed sparse row format */
+  private final int[] offsets;
+  private final int[] targets;
+
+  // the candidate with the highest priority first
+  private final PriorityQueue<Candidate> candidates = new PriorityQueue<>(
+    Comparator.comparingLong((Candidate candidate) -> candidate.priority)
+      .reversed()
+  );
+
+  // the path that is returned by next(), null if it has not been searched for
+  private int[] nextPath;
+
+  private LongestPaths(ScheduleGraph graph, int end) {
+    int nodeCount = graph.nodeCount();
+    this.graph = graph;
+    this.end = end;
+    this.remaining = new long[nodeCount];
+    this.offsets = new int[nodeCount + 1];
+    this.targets = new int[graph.relationshipCount()];
+  }
+
+  /**
+   * This method prepares the enumeration of the paths of graph
+   * @param graph: the loaded graph
+   * @param start: index of the node the paths start with
+   * @param end: index of the node the paths end with
+   * @return the paths as arrays of node indices, the longest first
+   */
+  public static LongestPaths between(ScheduleGraph graph, int start, int end) {
+    LongestPaths paths = new LongestPaths(graph, end);
+    paths.sortSuccessors();
+    if (start == end) {
+      paths.nextPath = new int[] { start };
+    } else if (paths.remaining[start] != UNREACHABLE) {
+      PathPrefix root = new PathPrefix(start, null, graph.duration(start));
+      paths.candidates.add(paths.candidate(root, paths.offsets[start]));
+    }
+    return paths;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (nextPath == null) {
+      nextPath = search();
+    }
+    return nextPath != null;
+  }
+
+  @Override
+  public int[] next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    int[] path = nextPath;
+    nextPath = null;
+    return path;
+  }
+
+  // the sum of the durations of the nodes of path
+  public long length(int[] path) {
+    long length = 0;
+    for (int node : path) {
+      length += graph.duration(node);
+    }
+    return length;
+  }
+
+  /** This private method calculates the remaining lengths in reverse
+   * topological order and sorts the successors that reach the end node
+   * by the length of the longest path through them.
+   */
+  private void sortSuccessors() {
+    Schedule schedule = new Schedule(graph);
+    ScheduleCalculator.forwardPass(graph, schedule);
+
+    Arrays.fill(remaining, UNREACHABLE);
+    remaining[end] = 0;
+    int[] order = schedule.topologicalOrder;
+    for (int position = order.length - 1; position >= 0; position--) {
+      int node = order[position];
+      if (node == end) {
+        continue;
+      }
+      for (
+        int k = graph.successorOffset(node);
+        k < graph.successorOffset(node + 1);
+        k++
+      ) {
+        int successor = graph.successorTarget(k);
+        if (remaining[successor] != UNREACHABLE) {
+          remaining[node] = Math.max(remaining[node], through(successor));
+        }
+      }
+    }
+
+    int count = 0;
+    for (int node = 0; node < graph.nodeCount(); node++) {
+      offsets[node] = count;
+      if (node == end) {
+        continue;
+      }
+      for (
+        int k = graph.successorOffset(node);
+        k < graph.successorOffset(node + 1);
+        k++
+      ) {
+        if (remaining[graph.successorTarget(k)] != UNREACHABLE) {
+          targets[count++] = graph.successorTarget(k);
+        }
+      }
+      // few successors per node, so a simple insertion sort is enough
+      for (int i = offsets[node] + 1; i < count; i++) {
+        int successor = targets[i];
+        int j = i;
+        while (
+          j > offsets[node] && through(targets[j - 1]) < through(successor)
+        ) {
+          targets[j] = targets[j - 1];
+          j--;
+        }
+        targets[j] = successor;
+      }
+    }
+    offsets[graph.nodeCount()] = count;
+  }
+
+  /* the length of the longest path from node to the end node */
+  private long through(int node) {
+    return graph.duration(node) + remaining[node];
+  }
+
+  /* takes candidates until one completes a path, null if there is none */
+  private int[] search() {
+    while (!candidates.isEmpty()) {
+      Candidate candidate = candidates.poll();
+      PathPrefix parent = candidate.parent;
+      if (candidate.position + 1 < offsets[parent.node + 1]) {
+        candidates.add(candidate(parent, candidate.position + 1));
+      }
+
+      int node = targets[candidate.position];
+      PathPrefix prefix = new PathPrefix(
+        node,
+        parent,
+        parent.length + graph.duration(node)
+      );
+      if (node == end) {
+        return prefix.toPath();
+      }
+      candidates.add(candidate(prefix, offsets[node]));
+    }
+    return null;
+  }
+
+  private Candidate candidate(PathPrefix parent, int position) {
+    return new Candidate(
+      parent,
+      position,
+      parent.length + through(targets[position])
+    );
+  }
+
+  // the nodes of a path from the start node, linked from the last one
+  private static class PathPrefix {
+
+    private final int node;
+    private final PathPrefix parent;
+    private final int size;
+    private final long length;
+
+    private PathPrefix(int node, PathPrefix parent, long length) {
+      this.node = node;
+      this.parent = parent;
+      this.size = parent == null ? 1 : parent.size + 1;
+      this.length = length;
+    }
+
+    private int[] toPath() {
+      int[] path = new int[size];
+      PathPrefix prefix = this;
+      for (int i = size - 1; i >= 0; i--) {
+        path[i] = prefix.node;
+        prefix = prefix.parent;
+      }
+      return path;
+    }
+  }
+
+  // a prefix extended by the successor at position, the longest first
+  private static class Candidate {
+
+    private final PathPrefix parent;
+    private final int position;
+    private final long priority;
+
+    private Candidate(PathPrefix parent, int position, long priority) {
+      this.parent = parent;
+      this.position = position;
+      this.priority = priority;
+    }
+  }
+}
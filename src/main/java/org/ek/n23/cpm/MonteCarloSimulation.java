@@ -0,0 +1,268 @@
+package org.ek.n23.cpm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.ek.n23.entity.Action;
+import org.ek.n23.utility.Tasks;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+
+/**
+ * This class simulates the project duration of a ScheduleGraph whose
+ * action durations are uncertain (PERT Monte Carlo simulation).
+ *
+ * Every action has an optimistic, a likely and a pessimistic duration, see
+ * Action.getDurationEstimate. In every iteration, the durations are drawn
+ * from the triangular distributions of these estimates, the forward pass
+ * gives the project duration and the backward pass the actions that are
+ * critical in this iteration. The criticality of an action is the share
+ * of the iterations in which it is critical.
+ *
+ * The iterations are divided into blocks of ITERATIONS_PER_BLOCK, each
+ * with its own random stream split off a stream seeded with seed, and the
+ * blocks are simulated concurrently. So the results only depend on the
+ * seed, not on the number of workers. The topological order is calculated
+ * once and every block allocates its arrays once, so no object is created
+ * per iteration.
+ */
+public class MonteCarloSimulation {
+
+  protected static final String INVALID_ESTIMATES =
+    "The duration estimates of '%s' are not optimistic <= likely <= pessimistic";
+
+  /* most iterations of one simulation, their project durations are kept
+   * to sort them for the percentiles, which takes 8 bytes per iteration */
+  public static final int MAX_ITERATIONS = 1_000_000;
+
+  // iterations that are simulated with one random stream
+  private static final int ITERATIONS_PER_BLOCK = 1000;
+
+  // differences below this are rounding errors
+  private static final double TOLERANCE = 1e-9;
+
+  private final ScheduleGraph graph;
+
+  // node indices in an order in which every node comes after its predecessors
+  private final int[] order;
+
+  private final double[] optimistic;
+  private final double[] likely;
+  private final double[] pessimistic;
+
+  // project duration of every iteration, sorted once all are simulated
+  private final double[] projectDurations;
+
+  // number of iterations in which a node is critical
+  private final long[] criticalCounts;
+
+  private MonteCarloSimulation(ScheduleGraph graph, int iterations) {
+    int nodeCount = graph.nodeCount();
+    this.graph = graph;
+    this.optimistic = new double[nodeCount];
+    this.likely = new double[nodeCount];
+    this.pessimistic = new double[nodeCount];
+    this.projectDurations = new double[iterations];
+    this.criticalCounts = new long[nodeCount];
+
+    Schedule schedule = new Schedule(graph);
+    ScheduleCalculator.forwardPass(graph, schedule);
+    this.order = schedule.topologicalOrder;
+  }
+
+  /**
+   * This method reads the duration estimates of the nodes of graph and
+   * runs the simulation
+   * @param tx: transaction the estimates are read in
+   * @param graph: the loaded graph
+   * @param iterations: number of simulated projects, at most MAX_ITERATIONS
+   * @param seed: seed of the random streams
+   * @param workers: number of threads that simulate blocks of iterations
+   * @return the simulation with its results
+   */
+  public static MonteCarloSimulation run(
+    Transaction tx,
+    ScheduleGraph graph,
+    int iterations,
+    long seed,
+    int workers
+  ) {
+    if (iterations < 1 || iterations > MAX_ITERATIONS) {
+      throw new IllegalArgumentException(
+        "iterations must be between 1 and " + MAX_ITERATIONS
+      );
+    }
+    if (workers < 1) {
+      throw new IllegalArgumentException("workers must be at least 1");
+    }
+    MonteCarloSimulation simulation = new MonteCarloSimulation(
+      graph,
+      iterations
+    );
+    simulation.readEstimates(tx);
+
+    /* the random streams are split off in the order of the blocks,
+     * so every block gets the same stream with any number of workers */
+    SplittableRandom random = new SplittableRandom(seed);
+    List<Callable<long[]>> blocks = new ArrayList<>();
+    for (int from = 0; from < iterations; from += ITERATIONS_PER_BLOCK) {
+      int blockFrom = from;
+      int blockTo = Math.min(iterations, from + ITERATIONS_PER_BLOCK);
+      SplittableRandom blockRandom = random.split();
+      blocks.add(() -> simulation.simulate(blockFrom, blockTo, blockRandom));
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(
+      Math.min(workers, blocks.size()),
+      runnable -> {
+        Thread thread = new Thread(runnable, "n23-schedule-simulation");
+        thread.setDaemon(true);
+        return thread;
+      }
+    );
+    try {
+      for (long[] counts : Tasks.runAll(executor, blocks)) {
+        for (int i = 0; i < counts.length; i++) {
+          simulation.criticalCounts[i] += counts[i];
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Arrays.sort(simulation.projectDurations);
+    return simulation;
+  }
+
+  // region getters
+
+  public ScheduleGraph graph() {
+    return graph;
+  }
+
+  public int iterations() {
+    return projectDurations.length;
+  }
+
+  // node index at position of the topological order
+  public int topologicalOrder(int position) {
+    return order[position];
+  }
+
+  // share of the iterations in which the node is critical
+  public double criticality(int index) {
+    return (double) criticalCounts[index] / projectDurations.length;
+  }
+
+  public double meanDuration() {
+    double sum = 0;
+    for (double projectDuration : projectDurations) {
+      sum += projectDuration;
+    }
+    return sum / projectDurations.length;
+  }
+
+  // the smallest project duration that percent of the iterations do not exceed
+  public double percentile(double percent) {
+    int rank = (int) Math.ceil(percent / 100 * projectDurations.length);
+    rank = Math.max(1, Math.min(rank, projectDurations.length));
+    return projectDurations[rank - 1];
+  }
+
+  // endregion
+
+  /* reads and checks the estimates of all nodes */
+  private void readEstimates(Transaction tx) {
+    for (int i = 0; i < graph.nodeCount(); i++) {
+      Node node = graph.node(tx, i);
+      optimistic[i] =
+        Action.getDurationEstimate(node, Action.OPTIMISTIC_DURATION_KEY);
+      likely[i] = Action.getDurationEstimate(node, Action.LIKELY_DURATION_KEY);
+      pessimistic[i] =
+        Action.getDurationEstimate(node, Action.PESSIMISTIC_DURATION_KEY);
+      if (optimistic[i] > likely[i] || likely[i] > pessimistic[i]) {
+        throw new IllegalArgumentException(
+          String.format(INVALID_ESTIMATES, Action.getName(node))
+        );
+      }
+    }
+  }
+
+  /** This private method simulates the iterations from (inclusive) to
+   * (exclusive) and stores their project durations.
+   * @param from: first iteration
+   * @param to: iteration after the last one
+   * @param random: random stream of the block
+   * @return the number of iterations in which every node is critical
+   */
+  private long[] simulate(int from, int to, SplittableRandom random) {
+    int nodeCount = graph.nodeCount();
+    double[] durations = new double[nodeCount];
+    double[] earliestFinish = new double[nodeCount];
+    double[] latestFinish = new double[nodeCount];
+    long[] counts = new long[nodeCount];
+
+    for (int iteration = from; iteration < to; iteration++) {
+      for (int i = 0; i < nodeCount; i++) {
+        durations[i] = sample(i, random.nextDouble());
+      }
+
+      // forward pass, every node reads the finish of its predecessors
+      double projectDuration = 0;
+      for (int node : order) {
+        double start = 0;
+        for (
+          int k = graph.predecessorOffset(node);
+          k < graph.predecessorOffset(node + 1);
+          k++
+        ) {
+          start = Math.max(start, earliestFinish[graph.predecessorTarget(k)]);
+        }
+        earliestFinish[node] = start + durations[node];
+        projectDuration = Math.max(projectDuration, earliestFinish[node]);
+      }
+      projectDurations[iteration] = projectDuration;
+
+      // backward pass, a node without total float is critical
+      for (int position = nodeCount - 1; position >= 0; position--) {
+        int node = order[position];
+        double finish = projectDuration;
+        for (
+          int k = graph.successorOffset(node);
+          k < graph.successorOffset(node + 1);
+          k++
+        ) {
+          int successor = graph.successorTarget(k);
+          double successorStart =
+            latestFinish[successor] - durations[successor];
+          finish = Math.min(finish, successorStart);
+        }
+        latestFinish[node] = finish;
+        if (finish - earliestFinish[node] < TOLERANCE) {
+          counts[node]++;
+        }
+      }
+    }
+    return counts;
+  }
+
+  /* draws the duration of node from the triangular distribution of its
+   * estimates by inverting the distribution function at u */
+  private double sample(int node, double u) {
+    double low = optimistic[node];
+    double mode = likely[node];
+    double high = pessimistic[node];
+    double range = high - low;
+    if (range == 0) {
+      return low;
+    }
+    if (u < (mode - low) / range) {
+      return low + Math.sqrt(u * range * (mode - low));
+    }
+    return high - Math.sqrt((1 - u) * range * (high - mode));
+  }
+}
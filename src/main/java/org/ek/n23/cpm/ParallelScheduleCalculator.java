@@ -0,0 +1,238 @@
+package org.ek.n23.cpm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * This class runs the critical path method on a ScheduleGraph on several cores.
+ *
+ * The forward pass works through the graph level by level: a level contains
+ * the nodes whose predecessors are all in earlier levels. The nodes of a
+ * level are split into chunks that are worked through concurrently. Every
+ * node raises the earliest start of its successors with an atomic maximum
+ * and counts down their number of pending predecessors atomically. The
+ * successors whose count reaches 0 form the next level, which is sorted so
+ * that the topological order does not depend on the order in which the
+ * chunks finish.
+ *
+ * The backward pass works through the same levels in reverse order. All
+ * successors of a node are in later levels, so their latest starts are
+ * final when the node is worked through and every node reads them itself.
+ *
+ * Maximum and minimum do not depend on the order of their arguments, so the
+ * results are exactly the ones of the ScheduleCalculator.
+ *
+ * Every call creates its own ForkJoinPool and shuts it down when the passes
+ * are done. The pool only starts a thread when a chunk is waiting for one,
+ * so a call costs at most one thread start per worker that is needed for
+ * the largest level, which is small compared to the passes on a graph
+ * with levels of several chunks. Small graphs should be calculated with
+ * one worker, which runs the ScheduleCalculator without any threads.
+ */
+public class ParallelScheduleCalculator {
+
+  // levels are not split into chunks smaller than this
+  private static final int MIN_CHUNK_SIZE = 256;
+
+  private ParallelScheduleCalculator() {}
+
+  /**
+   * This method calculates the schedule of graph
+   * @param graph: the loaded graph
+   * @param workers: number of chunks a level is split into at most, and
+   * number of threads that work through them, limited to the number of
+   * processors
+   * @return the earliest and latest start and finish times of all nodes
+   */
+  public static Schedule compute(ScheduleGraph graph, int workers) {
+    if (workers < 1) {
+      throw new IllegalArgumentException("workers must be at least 1");
+    }
+
+    Schedule schedule = new Schedule(graph);
+    ForkJoinPool pool = new ForkJoinPool(
+      Math.min(workers, Runtime.getRuntime().availableProcessors())
+    );
+    try {
+      List<int[]> levels = forwardPass(pool, workers, graph, schedule);
+      backwardPass(pool, workers, graph, schedule, levels);
+    } finally {
+      pool.shutdown();
+    }
+    return schedule;
+  }
+
+  /** This private function fills the topological order and the
+   * earliest start and finish times and returns the levels.
+   */
+  private static List<int[]> forwardPass(
+    ForkJoinPool pool,
+    int workers,
+    ScheduleGraph graph,
+    Schedule schedule
+  ) {
+    int nodeCount = graph.nodeCount();
+    AtomicLongArray earliestStart = new AtomicLongArray(nodeCount);
+
+    // number of predecessors of every node that have not been visited yet
+    AtomicIntegerArray pendingPredecessors = new AtomicIntegerArray(nodeCount);
+    IntStream.Builder firstLevel = IntStream.builder();
+    for (int i = 0; i < nodeCount; i++) {
+      int predecessors =
+        graph.predecessorOffset(i + 1) - graph.predecessorOffset(i);
+      pendingPredecessors.set(i, predecessors);
+      if (predecessors == 0) {
+        firstLevel.add(i);
+      }
+    }
+
+    List<int[]> levels = new ArrayList<>();
+    int visited = 0;
+    int[] level = firstLevel.build().toArray();
+    while (level.length > 0) {
+      levels.add(level);
+      System.arraycopy(
+        level,
+        0,
+        schedule.topologicalOrder,
+        visited,
+        level.length
+      );
+      visited += level.length;
+
+      int[] currentLevel = level;
+      level =
+        runInChunks(
+          pool,
+          workers,
+          currentLevel.length,
+          (from, to) -> {
+            IntStream.Builder ready = IntStream.builder();
+            for (int i = from; i < to; i++) {
+              int node = currentLevel[i];
+              long finish = earliestStart.get(node) + graph.duration(node);
+              schedule.earliestFinish[node] = finish;
+
+              for (
+                int k = graph.successorOffset(node);
+                k < graph.successorOffset(node + 1);
+                k++
+              ) {
+                int successor = graph.successorTarget(k);
+                earliestStart.accumulateAndGet(successor, finish, Math::max);
+                if (pendingPredecessors.decrementAndGet(successor) == 0) {
+                  ready.add(successor);
+                }
+              }
+            }
+            return ready.build().toArray();
+          }
+        );
+      Arrays.sort(level);
+    }
+
+    if (visited < nodeCount) {
+      throw new IllegalArgumentException(ScheduleCalculator.CYCLE_FOUND);
+    }
+
+    long projectDuration = 0;
+    for (int i = 0; i < nodeCount; i++) {
+      schedule.earliestStart[i] = earliestStart.get(i);
+      projectDuration = Math.max(projectDuration, schedule.earliestFinish[i]);
+    }
+    schedule.projectDuration = projectDuration;
+    return levels;
+  }
+
+  /** This private function fills the latest start and finish times
+   * by working through the levels in reverse order.
+   */
+  private static void backwardPass(
+    ForkJoinPool pool,
+    int workers,
+    ScheduleGraph graph,
+    Schedule schedule,
+    List<int[]> levels
+  ) {
+    for (int l = levels.size() - 1; l >= 0; l--) {
+      int[] level = levels.get(l);
+      runInChunks(
+        pool,
+        workers,
+        level.length,
+        (from, to) -> {
+          for (int i = from; i < to; i++) {
+            int node = level[i];
+
+            long finish = schedule.projectDuration;
+            for (
+              int k = graph.successorOffset(node);
+              k < graph.successorOffset(node + 1);
+              k++
+            ) {
+              long successorStart =
+                schedule.latestStart[graph.successorTarget(k)];
+              finish = Math.min(finish, successorStart);
+            }
+            schedule.latestFinish[node] = finish;
+            schedule.latestStart[node] = finish - graph.duration(node);
+          }
+          return new int[0];
+        }
+      );
+    }
+  }
+
+  /** This private function splits the positions 0 to size - 1 into at most
+   * workers chunks, runs them on pool and waits for all of them. Small
+   * levels are run on the calling thread. The results of the chunks are
+   * concatenated in the order of the chunks.
+   */
+  private static int[] runInChunks(
+    ForkJoinPool pool,
+    int workers,
+    int size,
+    Chunk chunk
+  ) {
+    int chunks = Math.min(
+      workers,
+      (size + MIN_CHUNK_SIZE - 1) / MIN_CHUNK_SIZE
+    );
+    if (chunks <= 1) {
+      return chunk.run(0, size);
+    }
+
+    List<ForkJoinTask<int[]>> tasks = new ArrayList<>(chunks);
+    for (int c = 0; c < chunks; c++) {
+      int from = (int) ((long) size * c / chunks);
+      int to = (int) ((long) size * (c + 1) / chunks);
+      tasks.add(pool.submit(() -> chunk.run(from, to)));
+    }
+
+    List<int[]> results = new ArrayList<>(chunks);
+    int length = 0;
+    for (ForkJoinTask<int[]> task : tasks) {
+      int[] result = task.join();
+      results.add(result);
+      length += result.length;
+    }
+    int[] concatenated = new int[length];
+    int position = 0;
+    for (int[] result : results) {
+      System.arraycopy(result, 0, concatenated, position, result.length);
+      position += result.length;
+    }
+    return concatenated;
+  }
+
+  // the work on the positions from (inclusive) to to (exclusive) of a level
+  private interface Chunk {
+    int[] run(int from, int to);
+  }
+}
@@ -0,0 +1,461 @@
+package org.ek.n23.cpm;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import org.ek.n23.entity.Action;
+import org.ek.n23.entity.Precedes;
+import org.ek.n23.utility.ScheduleSummary;
+import org.ek.n23.utility.Tasks;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Transaction;
+
+/**
+ * This class calculates the schedule of a program of projects that are
+ * linked by PRECEDES relationships without loading the whole program
+ * into memory at once.
+ *
+ * The Action nodes with the same graph id form a partition. Starting with
+ * the partition of the start node, the partitions are found by following
+ * the PRECEDES relationships between partitions in both directions, so
+ * projects that feed into the program are found as well. The nodes of a
+ * partition are looked up by graph id only once, which uses the
+ * Action_graphId index if it exists, see Action.createIndexes. The
+ * relationships between partitions and the first node and the size of
+ * every partition are the only things that are kept in memory. Partitions that depend on each
+ * other in both directions are merged into a group (the strongly
+ * connected components of the partitions, see CycleFinder), so the
+ * groups form a DAG.
+ *
+ * A group is loaded by walking its PRECEDES relationships from the first
+ * node of each of its partitions, and calculated with the passes of the
+ * ScheduleCalculator, the groups of a level of the DAG concurrently.
+ * Between the groups, only boundary values are passed on:
+ * - forward, in topological order: the earliest finish of the nodes
+ *   that precede nodes of other groups, which the succeeding nodes must
+ *   not start before
+ * - backward, in reverse order: the latest start of the nodes that
+ *   succeed nodes of other groups, which the preceding nodes must not
+ *   finish after
+ * The backward pass of a group repeats its forward pass and writes all
+ * four values in one transaction per group. So the memory needed is that
+ * of the largest groups that are calculated at the same time.
+ */
+public class PartitionedScheduleCalculator {
+
+  // names of the phases that are timed in the ScheduleSummary
+  private static final String PARTITION_PHASE = "Find Partitions";
+  private static final String FORWARD_PHASE = "Forward Passes";
+  private static final String BACKWARD_PHASE = "Backward Passes";
+
+  protected static final String NO_GRAPH_ID =
+    "Every Action node has to have a graphId to be scheduled in partitions";
+
+  private final GraphDatabaseService db;
+
+  // graph ids of the partitions in the order in which they are found
+  private final List<String> graphIds = new ArrayList<>();
+  private final Map<String, Integer> partitionByGraphId = new HashMap<>();
+
+  // element id of the first node and number of nodes of every partition
+  private final List<String> firstMembers = new ArrayList<>();
+  private final List<Long> memberCounts = new ArrayList<>();
+
+  // relationships between partitions
+  private final List<BoundaryRelationship> boundaries = new ArrayList<>();
+
+  // graph ids of the partitions of every group, in topological order
+  private final List<List<String>> groups = new ArrayList<>();
+
+  // boundary relationships that end and start in every group
+  private final List<List<BoundaryRelationship>> incoming = new ArrayList<>();
+  private final List<List<BoundaryRelationship>> outgoing = new ArrayList<>();
+
+  // groups of every level of the DAG of groups
+  private final List<List<Integer>> levels = new ArrayList<>();
+
+  // boundary values by element id of their nodes
+  private final Map<String, Long> exitFinishes = new ConcurrentHashMap<>();
+  private final Map<String, Long> entryStarts = new ConcurrentHashMap<>();
+
+  private final AtomicLong projectDuration = new AtomicLong();
+  private final AtomicLong actions = new AtomicLong();
+  private final AtomicLong relationships = new AtomicLong();
+  private final AtomicLong propertiesWritten = new AtomicLong();
+
+  private PartitionedScheduleCalculator(GraphDatabaseService db) {
+    this.db = db;
+  }
+
+  /**
+   * This method calculates and writes the schedule of all partitions that
+   * are connected to the partition of startNode
+   * @param tx: transaction of startNode, only used to find the partitions
+   * @param db: database the groups are calculated in, one transaction each
+   * @param startNode: a node of the first partition
+   * @param concurrency: maximum number of groups calculated at the same time
+   * @param summary: summary the results and timings are added to
+   */
+  public static void compute(
+    Transaction tx,
+    GraphDatabaseService db,
+    Node startNode,
+    int concurrency,
+    ScheduleSummary summary
+  ) {
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("concurrency must be at least 1");
+    }
+    PartitionedScheduleCalculator calculator = new PartitionedScheduleCalculator(
+      db
+    );
+
+    long phaseStart = System.nanoTime();
+    calculator.findPartitions(tx, startNode);
+    calculator.groupPartitions();
+    summary.addTiming(PARTITION_PHASE, phaseStart);
+
+    ExecutorService executor = Executors.newFixedThreadPool(
+      concurrency,
+      runnable -> {
+        Thread thread = new Thread(runnable, "n23-partitioned-schedule");
+        thread.setDaemon(true);
+        return thread;
+      }
+    );
+    try {
+      phaseStart = System.nanoTime();
+      for (List<Integer> level : calculator.levels) {
+        List<Callable<Void>> passes = new ArrayList<>();
+        for (int group : level) {
+          passes.add(() -> calculator.forward(group));
+        }
+        Tasks.runAll(executor, passes);
+      }
+      summary.addTiming(FORWARD_PHASE, phaseStart);
+
+      phaseStart = System.nanoTime();
+      for (int i = calculator.levels.size() - 1; i >= 0; i--) {
+        List<Callable<Void>> passes = new ArrayList<>();
+        for (int group : calculator.levels.get(i)) {
+          passes.add(() -> calculator.backward(group));
+        }
+        Tasks.runAll(executor, passes);
+      }
+      summary.addTiming(BACKWARD_PHASE, phaseStart);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    summary.actions = calculator.actions.get();
+    summary.relationships = calculator.relationships.get();
+    summary.projectDuration = calculator.projectDuration.get();
+    summary.propertiesWritten = calculator.propertiesWritten.get();
+    summary.commits = calculator.groups.size();
+  }
+
+  // region partitions
+
+  /** This private method finds the partitions that are connected to the
+   * partition of startNode and the relationships between them by looking
+   * at the relationships of every node of a partition. A relationship
+   * between partitions is added when its start node is looked at, the
+   * incoming ones only lead to further partitions. The first node and the
+   * number of nodes of every partition are kept to load it later.
+   */
+  private void findPartitions(Transaction tx, Node startNode) {
+    partitionOf(startNode);
+    for (int partition = 0; partition < graphIds.size(); partition++) {
+      String graphId = graphIds.get(partition);
+      try (
+        ResourceIterator<Node> members = tx.findNodes(
+          Action.LABEL,
+          Action.GRAPH_ID_KEY,
+          graphId
+        )
+      ) {
+        long memberCount = 0;
+        while (members.hasNext()) {
+          Node node = members.next();
+          if (memberCount++ == 0) {
+            firstMembers.add(node.getElementId());
+          }
+          for (Relationship rel : node.getRelationships(
+            Precedes.PRECEDES_TYPE
+          )) {
+            if (!rel.getStartNode().equals(node)) {
+              partitionOf(rel.getStartNode());
+              continue;
+            }
+            Node successor = rel.getEndNode();
+            int successorPartition = partitionOf(successor);
+            if (successorPartition != partition) {
+              boundaries.add(
+                new BoundaryRelationship(
+                  node.getElementId(),
+                  successor.getElementId(),
+                  partition,
+                  successorPartition
+                )
+              );
+            }
+          }
+        }
+        memberCounts.add(memberCount);
+      }
+    }
+  }
+
+  /* returns the partition of node, a new one if its graph id is new */
+  private int partitionOf(Node node) {
+    if (
+      !node.hasLabel(Action.LABEL) || !node.hasProperty(Action.GRAPH_ID_KEY)
+    ) {
+      throw new IllegalArgumentException(NO_GRAPH_ID);
+    }
+    return partitionByGraphId.computeIfAbsent(
+      Action.getGraphId(node),
+      graphId -> {
+        graphIds.add(graphId);
+        return graphIds.size() - 1;
+      }
+    );
+  }
+
+  /** This private method merges the partitions into groups, sorts the
+   * groups topologically and divides them into levels: every group is on
+   * the level after the last level of its preceding groups.
+   */
+  private void groupPartitions() {
+    // the relationships between partitions in compressed sparse row format
+    int partitionCount = graphIds.size();
+    int[] offsets = new int[partitionCount + 1];
+    int[] targets = new int[boundaries.size()];
+    for (BoundaryRelationship boundary : boundaries) {
+      offsets[boundary.startPartition + 1]++;
+    }
+    for (int i = 1; i <= partitionCount; i++) {
+      offsets[i] += offsets[i - 1];
+    }
+    int[] next = Arrays.copyOf(offsets, partitionCount);
+    for (BoundaryRelationship boundary : boundaries) {
+      targets[next[boundary.startPartition]++] = boundary.endPartition;
+    }
+
+    /* the components come after the ones they precede, so they are
+     * numbered backwards to get the groups in topological order */
+    List<int[]> components = CycleFinder.components(
+      partitionCount,
+      i -> offsets[i],
+      k -> targets[k],
+      false
+    );
+    int[] groupOfPartition = new int[partitionCount];
+    for (int c = components.size() - 1; c >= 0; c--) {
+      List<String> group = new ArrayList<>();
+      for (int partition : components.get(c)) {
+        groupOfPartition[partition] = groups.size();
+        group.add(graphIds.get(partition));
+      }
+      groups.add(group);
+      incoming.add(new ArrayList<>());
+      outgoing.add(new ArrayList<>());
+    }
+
+    // relationships inside a group are loaded with the group
+    for (BoundaryRelationship boundary : boundaries) {
+      int startGroup = groupOfPartition[boundary.startPartition];
+      int endGroup = groupOfPartition[boundary.endPartition];
+      if (startGroup != endGroup) {
+        outgoing.get(startGroup).add(boundary);
+        incoming.get(endGroup).add(boundary);
+      }
+    }
+
+    int[] levelOfGroup = new int[groups.size()];
+    for (int group = 0; group < groups.size(); group++) {
+      for (BoundaryRelationship boundary : incoming.get(group)) {
+        int startGroup = groupOfPartition[boundary.startPartition];
+        levelOfGroup[group] =
+          Math.max(levelOfGroup[group], levelOfGroup[startGroup] + 1);
+      }
+      if (levelOfGroup[group] == levels.size()) {
+        levels.add(new ArrayList<>());
+      }
+      levels.get(levelOfGroup[group]).add(group);
+    }
+  }
+
+  // endregion
+
+  // region passes
+
+  /* calculates the earliest finish of the nodes that precede other groups */
+  private Void forward(int group) {
+    try (Transaction tx = db.beginTx()) {
+      ScheduleGraph graph = load(tx, group);
+      Schedule schedule = forwardPass(tx, graph, group);
+      for (BoundaryRelationship boundary : outgoing.get(group)) {
+        int index = indexOf(tx, graph, boundary.startElementId);
+        exitFinishes.put(
+          boundary.startElementId,
+          schedule.earliestFinish(index)
+        );
+      }
+      projectDuration.accumulateAndGet(schedule.projectDuration(), Math::max);
+      actions.addAndGet(graph.nodeCount());
+      relationships.addAndGet(
+        graph.relationshipCount() + (long) incoming.get(group).size()
+      );
+    }
+    return null;
+  }
+
+  /* calculates the schedule of group, writes it and passes on the
+   * latest start of the nodes that succeed other groups */
+  private Void backward(int group) {
+    try (Transaction tx = db.beginTx()) {
+      ScheduleGraph graph = load(tx, group);
+      Schedule schedule = forwardPass(tx, graph, group);
+
+      schedule.projectDuration = projectDuration.get();
+      Arrays.fill(schedule.latestFinish, schedule.projectDuration);
+      for (BoundaryRelationship boundary : outgoing.get(group)) {
+        int index = indexOf(tx, graph, boundary.startElementId);
+        schedule.latestFinish[index] =
+          Math.min(
+            schedule.latestFinish[index],
+            entryStarts.get(boundary.endElementId)
+          );
+      }
+      ScheduleCalculator.backwardPass(graph, schedule);
+
+      for (BoundaryRelationship boundary : incoming.get(group)) {
+        int index = indexOf(tx, graph, boundary.endElementId);
+        entryStarts.put(boundary.endElementId, schedule.latestStart(index));
+      }
+      propertiesWritten.addAndGet(schedule.writeProperties(tx, false));
+      tx.commit();
+    }
+    return null;
+  }
+
+  /* runs the forward pass of group, the nodes that succeed other groups
+   * do not start before these have finished */
+  private Schedule forwardPass(
+    Transaction tx,
+    ScheduleGraph graph,
+    int group
+  ) {
+    Schedule schedule = new Schedule(graph);
+    for (BoundaryRelationship boundary : incoming.get(group)) {
+      int index = indexOf(tx, graph, boundary.endElementId);
+      schedule.earliestStart[index] =
+        Math.max(
+          schedule.earliestStart[index],
+          exitFinishes.get(boundary.startElementId)
+        );
+    }
+    ScheduleCalculator.forwardPass(graph, schedule);
+    return schedule;
+  }
+
+  /** This private method loads the nodes of all partitions of group. They
+   * are found by following the PRECEDES relationships inside the group
+   * from the first node of every partition. Only if that does not reach
+   * all nodes, i.e. a partition is not connected, they are looked up by
+   * graph id.
+   */
+  private ScheduleGraph load(Transaction tx, int group) {
+    Set<String> groupGraphIds = new HashSet<>(groups.get(group));
+    Set<Node> visited = new HashSet<>();
+    ArrayDeque<Node> nodesToCheck = new ArrayDeque<>();
+    long memberCount = 0;
+    for (String graphId : groupGraphIds) {
+      int partition = partitionByGraphId.get(graphId);
+      memberCount += memberCounts.get(partition);
+      Node first = tx.getNodeByElementId(firstMembers.get(partition));
+      if (visited.add(first)) {
+        nodesToCheck.add(first);
+      }
+    }
+
+    List<Node> members = new ArrayList<>();
+    while (!nodesToCheck.isEmpty()) {
+      Node node = nodesToCheck.poll();
+      members.add(node);
+      for (Relationship rel : node.getRelationships(Precedes.PRECEDES_TYPE)) {
+        Node other = rel.getOtherNode(node);
+        if (
+          groupGraphIds.contains(Action.getGraphId(other)) &&
+          visited.add(other)
+        ) {
+          nodesToCheck.add(other);
+        }
+      }
+    }
+    if (members.size() >= memberCount) {
+      return ScheduleGraph.load(members);
+    }
+
+    members.clear();
+    for (String graphId : groups.get(group)) {
+      try (
+        ResourceIterator<Node> nodes = tx.findNodes(
+          Action.LABEL,
+          Action.GRAPH_ID_KEY,
+          graphId
+        )
+      ) {
+        nodes.forEachRemaining(members::add);
+      }
+    }
+    return ScheduleGraph.load(members);
+  }
+
+  /* the index of the node with elementId in graph */
+  private static int indexOf(
+    Transaction tx,
+    ScheduleGraph graph,
+    String elementId
+  ) {
+    return graph.indexOf(tx.getNodeByElementId(elementId));
+  }
+
+  // endregion
+
+  // a PRECEDES relationship between two partitions
+  private static class BoundaryRelationship {
+
+    private final String startElementId;
+    private final String endElementId;
+    private final int startPartition;
+    private final int endPartition;
+
+    private BoundaryRelationship(
+      String startElementId,
+      String endElementId,
+      int startPartition,
+      int endPartition
+    ) {
+      this.startElementId = startElementId;
+      this.endElementId = endElementId;
+      this.startPartition = startPartition;
+      this.endPartition = endPartition;
+    }
+  }
+}
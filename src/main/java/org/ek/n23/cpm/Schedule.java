@@ -0,0 +1,160 @@
+package org.ek.n23.cpm;
+
+import org.ek.n23.entity.Action;
+import org.ek.n23.utility.ScheduleSummary;
+import org.ek.n23.utility.TransactionBatches;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+
+/**
+ * This class holds the earliest and latest start and finish times of
+ * all nodes of a ScheduleGraph, indexed like the nodes of the graph.
+ */
+public class Schedule {
+
+  private final ScheduleGraph graph;
+
+  final long[] earliestStart;
+  final long[] earliestFinish;
+  final long[] latestStart;
+  final long[] latestFinish;
+
+  // node indices in an order in which every node comes after its predecessors
+  final int[] topologicalOrder;
+
+  long projectDuration;
+
+  Schedule(ScheduleGraph graph) {
+    int nodeCount = graph.nodeCount();
+    this.graph = graph;
+    this.earliestStart = new long[nodeCount];
+    this.earliestFinish = new long[nodeCount];
+    this.latestStart = new long[nodeCount];
+    this.latestFinish = new long[nodeCount];
+    this.topologicalOrder = new int[nodeCount];
+  }
+
+  // region getters
+
+  public ScheduleGraph graph() {
+    return graph;
+  }
+
+  public long earliestStart(int index) {
+    return earliestStart[index];
+  }
+
+  public long earliestFinish(int index) {
+    return earliestFinish[index];
+  }
+
+  public long latestStart(int index) {
+    return latestStart[index];
+  }
+
+  public long latestFinish(int index) {
+    return latestFinish[index];
+  }
+
+  // the time the node can be delayed without delaying the project
+  public long totalFloat(int index) {
+    return latestStart[index] - earliestStart[index];
+  }
+
+  /* the time the node can be delayed without delaying the earliest start
+   * of any of its successors, nodes without successors are compared
+   * with the project duration */
+  public long freeFloat(int index) {
+    long successorsStart = projectDuration;
+    for (
+      int k = graph.successorOffset(index);
+      k < graph.successorOffset(index + 1);
+      k++
+    ) {
+      successorsStart =
+        Math.min(successorsStart, earliestStart[graph.successorTarget(k)]);
+    }
+    return successorsStart - earliestFinish[index];
+  }
+
+  // a node is critical if it cannot be delayed without delaying the project
+  public boolean isCritical(int index) {
+    return totalFloat(index) == 0;
+  }
+
+  // returns the index of the node at position in the topological order
+  public int topologicalOrder(int position) {
+    return topologicalOrder[position];
+  }
+
+  // the earliest finish of the whole graph, i.e. the latest earliest finish
+  public long projectDuration() {
+    return projectDuration;
+  }
+
+  // endregion
+
+  /**
+   * This method writes earliestStart, earliestFinish, latestStart and
+   * latestFinish on all nodes of the graph in one pass. Values that are
+   * already stored on a node are not written again.
+   * @param tx: transaction the nodes are looked up and written in
+   * @param includeFloats: whether totalFloat, freeFloat and critical
+   * are written in the same pass
+   * @return the number of properties written
+   */
+  public int writeProperties(Transaction tx, boolean includeFloats) {
+    int written = 0;
+    for (int i = 0; i < graph.nodeCount(); i++) {
+      written += writeProperties(i, graph.node(tx, i), includeFloats);
+    }
+    return written;
+  }
+
+  /**
+   * This method writes the same properties as writeProperties(false), but
+   * in separate transactions that are committed every batchSize nodes.
+   * So the state of a single transaction never grows beyond batchSize
+   * nodes. The nodes are looked up again in every transaction.
+   * @param db: database service to open the transactions with
+   * @param batchSize: number of nodes per transaction
+   * @param summary: summary that the written properties and the commits
+   * are added to
+   */
+  public void writePropertiesInBatches(
+    GraphDatabaseService db,
+    long batchSize,
+    ScheduleSummary summary
+  ) {
+    try (TransactionBatches batches = new TransactionBatches(db, batchSize)) {
+      for (int i = 0; i < graph.nodeCount(); i++) {
+        Node node = graph.node(batches.tx(), i);
+        summary.propertiesWritten += writeProperties(i, node, false);
+        batches.entityWritten();
+      }
+      batches.finish();
+      summary.commits = batches.commits();
+    }
+  }
+
+  /* writes the properties of the node with index on node
+   * and returns the number of properties written */
+  private int writeProperties(int index, Node node, boolean includeFloats) {
+    int written = 0;
+    written += count(Action.setEarliestStart(node, earliestStart[index]));
+    written += count(Action.setEarliestFinish(node, earliestFinish[index]));
+    written += count(Action.setLatestStart(node, latestStart[index]));
+    written += count(Action.setLatestFinish(node, latestFinish[index]));
+    if (includeFloats) {
+      written += count(Action.setTotalFloat(node, totalFloat(index)));
+      written += count(Action.setFreeFloat(node, freeFloat(index)));
+      written += count(Action.setCritical(node, isCritical(index)));
+    }
+    return written;
+  }
+
+  private static int count(boolean written) {
+    return written ? 1 : 0;
+  }
+}
@@ -0,0 +1,125 @@
+package org.ek.n23.cpm;
+
+import java.util.Arrays;
+
+/**
+ * This class runs the critical path method on a ScheduleGraph.
+ *
+ * The forward pass visits the nodes in topological order (Kahn's algorithm):
+ * a node is visited as soon as all of its predecessors have been visited,
+ * so its earliest start is the maximum earliest finish of its predecessors
+ * and nodes without predecessors start at 0. The backward pass visits the
+ * nodes in the reverse order: the latest finish of a node is the minimum
+ * latest start of its successors, and nodes without successors finish at
+ * the project duration, i.e. the maximum earliest finish of all nodes.
+ *
+ * Every node and relationship is visited once per pass and only the arrays
+ * of the ScheduleGraph are read.
+ */
+public class ScheduleCalculator {
+
+  protected static final String CYCLE_FOUND =
+    "The PRECEDES relationships contain a cycle";
+
+  private ScheduleCalculator() {}
+
+  /**
+   * This method calculates the schedule of graph
+   * @param graph: the loaded graph
+   * @return the earliest and latest start and finish times of all nodes
+   */
+  public static Schedule compute(ScheduleGraph graph) {
+    Schedule schedule = new Schedule(graph);
+    forwardPass(graph, schedule);
+    Arrays.fill(schedule.latestFinish, schedule.projectDuration);
+    backwardPass(graph, schedule);
+    return schedule;
+  }
+
+  /**
+   * This method calculates the schedule of graph, on several cores if
+   * workers is greater than 1
+   * @param graph: the loaded graph
+   * @param workers: number of threads, 1 runs the sequential passes
+   * @return the earliest and latest start and finish times of all nodes
+   */
+  public static Schedule compute(ScheduleGraph graph, int workers) {
+    if (workers == 1) {
+      return compute(graph);
+    }
+    return ParallelScheduleCalculator.compute(graph, workers);
+  }
+
+  /** This function fills the topological order and the earliest start
+   * and finish times. A node never starts before the earliest start it
+   * already has, which is 0 unless it has been set before. The project
+   * duration is the maximum earliest finish.
+   */
+  static void forwardPass(ScheduleGraph graph, Schedule schedule) {
+    int nodeCount = graph.nodeCount();
+    int[] order = schedule.topologicalOrder;
+
+    // number of predecessors of every node that have not been visited yet
+    int[] pendingPredecessors = new int[nodeCount];
+    int tail = 0;
+    for (int i = 0; i < nodeCount; i++) {
+      pendingPredecessors[i] =
+        graph.predecessorOffset(i + 1) - graph.predecessorOffset(i);
+      if (pendingPredecessors[i] == 0) {
+        order[tail++] = i;
+      }
+    }
+
+    /* the order array is the queue: nodes in front of head have been
+     * visited, nodes between head and tail are ready */
+    long projectDuration = 0;
+    for (int head = 0; head < tail; head++) {
+      int node = order[head];
+      long finish = schedule.earliestStart[node] + graph.duration(node);
+      schedule.earliestFinish[node] = finish;
+      projectDuration = Math.max(projectDuration, finish);
+
+      for (
+        int k = graph.successorOffset(node);
+        k < graph.successorOffset(node + 1);
+        k++
+      ) {
+        int successor = graph.successorTarget(k);
+        if (finish > schedule.earliestStart[successor]) {
+          schedule.earliestStart[successor] = finish;
+        }
+        if (--pendingPredecessors[successor] == 0) {
+          order[tail++] = successor;
+        }
+      }
+    }
+
+    if (tail < nodeCount) {
+      throw new IllegalArgumentException(CYCLE_FOUND);
+    }
+    schedule.projectDuration = projectDuration;
+  }
+
+  /** This function fills the latest start and finish times by visiting
+   * the nodes in reverse topological order. A node never finishes after
+   * the latest finish it already has, which has to be set before.
+   */
+  static void backwardPass(ScheduleGraph graph, Schedule schedule) {
+    int[] order = schedule.topologicalOrder;
+    for (int position = order.length - 1; position >= 0; position--) {
+      int node = order[position];
+
+      long finish = schedule.latestFinish[node];
+      for (
+        int k = graph.successorOffset(node);
+        k < graph.successorOffset(node + 1);
+        k++
+      ) {
+        long successorStart = schedule.latestStart[graph.successorTarget(k)];
+        finish = Math.min(finish, successorStart);
+      }
+      schedule.latestFinish[node] = finish;
+      schedule.latestStart[node] = finish - graph.duration(node);
+    }
+  }
+}
@@ -0,0 +1,352 @@
+package org.ek.n23.cpm;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.ek.n23.entity.Action;
+import org.ek.n23.entity.Precedes;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+
+/**
+ * This class is a compact in-memory snapshot of a PRECEDES graph
+ * for the critical path calculations.
+ *
+ * The nodes are numbered in the order in which they are found. The
+ * successors of node i are successorTarget(k) for successorOffset(i) <= k
+ * < successorOffset(i + 1), the predecessors are stored the same way
+ * (compressed sparse row format). Durations are read once while loading,
+ * so the calculations never touch the store.
+ *
+ * Only the element id of every node is kept, in an array and in a hash
+ * table from element id to index, see ElementIdIndex. The Node objects
+ * are looked up again by element id in the transaction that needs them,
+ * e.g. to write the schedule in batches of separate transactions.
+ */
+public class ScheduleGraph {
+
+  private final String[] elementIds;
+
+  private final long[] durations;
+
+  private final int[] successorOffsets;
+  private final int[] successorTargets;
+
+  private final int[] predecessorOffsets;
+  private final int[] predecessorTargets;
+
+  private final ElementIdIndex indexByElementId;
+
+  private ScheduleGraph(
+    String[] elementIds,
+    long[] durations,
+    int[] edgeStarts,
+    int[] edgeEnds,
+    int edgeCount,
+    ElementIdIndex indexByElementId
+  ) {
+    this.elementIds = elementIds;
+    this.durations = durations;
+    this.indexByElementId = indexByElementId;
+
+    this.successorOffsets = new int[elementIds.length + 1];
+    this.successorTargets = new int[edgeCount];
+    fillRows(
+      edgeStarts,
+      edgeEnds,
+      edgeCount,
+      successorOffsets,
+      successorTargets
+    );
+
+    this.predecessorOffsets = new int[elementIds.length + 1];
+    this.predecessorTargets = new int[edgeCount];
+    fillRows(
+      edgeEnds,
+      edgeStarts,
+      edgeCount,
+      predecessorOffsets,
+      predecessorTargets
+    );
+  }
+
+  /**
+   * This method loads all nodes that can be reached from root by following
+   * PRECEDES relationships in direction, and all PRECEDES relationships
+   * between them.
+   * @param root: node to start loading from, e.g. the start node
+   * @param direction: OUTGOING to load the successors of root,
+   * INCOMING to load its predecessors
+   * @return the loaded graph
+   */
+  public static ScheduleGraph load(Node root, Direction direction) {
+    ElementIdIndex indexByElementId = new ElementIdIndex(16);
+    String[] elementIds = new String[16];
+    long[] durations = new long[16];
+    int nodeCount = 0;
+
+    int[] edgeStarts = new int[16];
+    int[] edgeEnds = new int[16];
+    int edgeCount = 0;
+
+    /* breadth first search, the loaded nodes are numbered in the order
+     * of the queue, which only holds the nodes that are not done yet */
+    ArrayDeque<Node> nodesToLoad = new ArrayDeque<>();
+    nodesToLoad.add(root);
+    elementIds[nodeCount] = root.getElementId();
+    durations[nodeCount] = Action.getDuration(root);
+    indexByElementId.putIfAbsent(elementIds[nodeCount], nodeCount++);
+    for (int current = 0; !nodesToLoad.isEmpty(); current++) {
+      Node node = nodesToLoad.poll();
+      for (Relationship rel : node.getRelationships(
+        direction,
+        Precedes.PRECEDES_TYPE
+      )) {
+        Node other = rel.getOtherNode(node);
+        String otherId = other.getElementId();
+        int otherIndex = indexByElementId.putIfAbsent(otherId, nodeCount);
+        if (otherIndex == ElementIdIndex.ABSENT) {
+          if (nodeCount == elementIds.length) {
+            elementIds = Arrays.copyOf(elementIds, nodeCount * 2);
+            durations = Arrays.copyOf(durations, nodeCount * 2);
+          }
+          otherIndex = nodeCount;
+          elementIds[nodeCount] = otherId;
+          durations[nodeCount++] = Action.getDuration(other);
+          nodesToLoad.add(other);
+        }
+
+        // store every relationship in its PRECEDES direction
+        if (edgeCount == edgeStarts.length) {
+          edgeStarts = Arrays.copyOf(edgeStarts, edgeCount * 2);
+          edgeEnds = Arrays.copyOf(edgeEnds, edgeCount * 2);
+        }
+        boolean outgoing = direction == Direction.OUTGOING;
+        edgeStarts[edgeCount] = outgoing ? current : otherIndex;
+        edgeEnds[edgeCount] = outgoing ? otherIndex : current;
+        edgeCount++;
+      }
+    }
+
+    return new ScheduleGraph(
+      Arrays.copyOf(elementIds, nodeCount),
+      Arrays.copyOf(durations, nodeCount),
+      edgeStarts,
+      edgeEnds,
+      edgeCount,
+      indexByElementId
+    );
+  }
+
+  /**
+   * This method returns all nodes that are connected to node by PRECEDES
+   * relationships in either direction (its weakly connected component),
+   * e.g. to load a project that has more than one node without
+   * predecessors with load(members).
+   * @param node: any node of the component
+   * @return the nodes of the component, node first
+   */
+  public static List<Node> componentOf(Node node) {
+    List<Node> component = new ArrayList<>();
+    Set<Node> visited = new HashSet<>();
+    visited.add(node);
+    component.add(node);
+    for (int current = 0; current < component.size(); current++) {
+      for (Relationship rel : component
+        .get(current)
+        .getRelationships(Precedes.PRECEDES_TYPE)) {
+        Node other = rel.getOtherNode(component.get(current));
+        if (visited.add(other)) {
+          component.add(other);
+        }
+      }
+    }
+    return component;
+  }
+
+  /**
+   * This method loads the given nodes and the PRECEDES relationships
+   * between them. Relationships to other nodes are left out.
+   * @param members: the nodes to load, e.g. the nodes of one partition
+   * @return the loaded graph
+   */
+  public static ScheduleGraph load(List<Node> members) {
+    ElementIdIndex indexByElementId = new ElementIdIndex(members.size());
+    String[] elementIds = new String[members.size()];
+    long[] durations = new long[elementIds.length];
+    for (int i = 0; i < elementIds.length; i++) {
+      elementIds[i] = members.get(i).getElementId();
+      durations[i] = Action.getDuration(members.get(i));
+      indexByElementId.putIfAbsent(elementIds[i], i);
+    }
+
+    int[] edgeStarts = new int[16];
+    int[] edgeEnds = new int[16];
+    int edgeCount = 0;
+    for (int current = 0; current < elementIds.length; current++) {
+      for (Relationship rel : members
+        .get(current)
+        .getRelationships(Direction.OUTGOING, Precedes.PRECEDES_TYPE)) {
+        int otherIndex = indexByElementId.get(
+          rel.getEndNode().getElementId()
+        );
+        if (otherIndex == ElementIdIndex.ABSENT) {
+          continue;
+        }
+        if (edgeCount == edgeStarts.length) {
+          edgeStarts = Arrays.copyOf(edgeStarts, edgeCount * 2);
+          edgeEnds = Arrays.copyOf(edgeEnds, edgeCount * 2);
+        }
+        edgeStarts[edgeCount] = current;
+        edgeEnds[edgeCount] = otherIndex;
+        edgeCount++;
+      }
+    }
+
+    return new ScheduleGraph(
+      elementIds,
+      durations,
+      edgeStarts,
+      edgeEnds,
+      edgeCount,
+      indexByElementId
+    );
+  }
+
+  /**
+   * This method returns a copy of this graph with other durations and
+   * PRECEDES relationships, e.g. to evaluate changes without writing them.
+   * The nodes keep their indices.
+   * @param newDurations: duration of every node
+   * @param added: relationships to add, as pairs of node indices
+   * @param removed: relationships to remove, as pairs of node indices
+   * @return the changed graph
+   */
+  public ScheduleGraph modified(
+    long[] newDurations,
+    List<int[]> added,
+    List<int[]> removed
+  ) {
+    Set<Long> removedPairs = new HashSet<>();
+    for (int[] pair : removed) {
+      removedPairs.add(pairKey(pair[0], pair[1]));
+    }
+
+    int[] edgeStarts = new int[relationshipCount() + added.size()];
+    int[] edgeEnds = new int[edgeStarts.length];
+    int edgeCount = 0;
+    for (int node = 0; node < elementIds.length; node++) {
+      for (
+        int k = successorOffsets[node];
+        k < successorOffsets[node + 1];
+        k++
+      ) {
+        if (!removedPairs.contains(pairKey(node, successorTargets[k]))) {
+          edgeStarts[edgeCount] = node;
+          edgeEnds[edgeCount++] = successorTargets[k];
+        }
+      }
+    }
+    for (int[] pair : added) {
+      edgeStarts[edgeCount] = pair[0];
+      edgeEnds[edgeCount++] = pair[1];
+    }
+
+    return new ScheduleGraph(
+      elementIds,
+      newDurations,
+      edgeStarts,
+      edgeEnds,
+      edgeCount,
+      indexByElementId
+    );
+  }
+
+  // whether there is a PRECEDES relationship from node start to node end
+  public boolean precedes(int start, int end) {
+    for (
+      int k = successorOffsets[start];
+      k < successorOffsets[start + 1];
+      k++
+    ) {
+      if (successorTargets[k] == end) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private long pairKey(int start, int end) {
+    return (long) start * elementIds.length + end;
+  }
+
+  // region getters
+
+  public int nodeCount() {
+    return elementIds.length;
+  }
+
+  public int relationshipCount() {
+    return successorTargets.length;
+  }
+
+  // looks up the node with index in tx by its element id
+  public Node node(Transaction tx, int index) {
+    return tx.getNodeByElementId(elementIds[index]);
+  }
+
+  public long duration(int index) {
+    return durations[index];
+  }
+
+  // returns the index of node or -1 if it has not been loaded
+  public int indexOf(Node node) {
+    return indexByElementId.get(node.getElementId());
+  }
+
+  // the successors of node i are at the positions successorOffset(i) to successorOffset(i + 1) - 1
+  public int successorOffset(int index) {
+    return successorOffsets[index];
+  }
+
+  public int successorTarget(int position) {
+    return successorTargets[position];
+  }
+
+  // the predecessors of node i are at the positions predecessorOffset(i) to predecessorOffset(i + 1) - 1
+  public int predecessorOffset(int index) {
+    return predecessorOffsets[index];
+  }
+
+  public int predecessorTarget(int position) {
+    return predecessorTargets[position];
+  }
+
+  // endregion
+
+  /* sorts the edges by their "from" index into offsets and targets
+   * with a counting sort, keeping the order of the edges per node */
+  private static void fillRows(
+    int[] from,
+    int[] to,
+    int edgeCount,
+    int[] offsets,
+    int[] targets
+  ) {
+    for (int i = 0; i < edgeCount; i++) {
+      offsets[from[i] + 1]++;
+    }
+    for (int i = 1; i < offsets.length; i++) {
+      offsets[i] += offsets[i - 1];
+    }
+    int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+    for (int i = 0; i < edgeCount; i++) {
+      targets[next[from[i]]++] = to[i];
+    }
+  }
+}
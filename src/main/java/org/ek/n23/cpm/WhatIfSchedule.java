@@ -0,0 +1,171 @@
+package org.ek.n23.cpm;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.ek.n23.entity.Action;
+import org.neo4j.graphdb.Transaction;
+
+/**
+ * This class evaluates changes of a project without writing them.
+ *
+ * The durations and PRECEDES relationships of a loaded ScheduleGraph are
+ * changed in a copy, see ScheduleGraph.modified, and the schedules of the
+ * graph before and after the changes are calculated in memory. The actions
+ * are given by their names, which have to be unique among the loaded nodes.
+ * Nothing is read from or written to the database apart from the nodes
+ * that have been loaded already, so any number of evaluations can run at
+ * the same time.
+ */
+public class WhatIfSchedule {
+
+  protected static final String UNKNOWN_ACTION =
+    "There is no action named '%s' after the start node";
+  protected static final String AMBIGUOUS_ACTION =
+    "There is more than one action named '%s' after the start node";
+  protected static final String NOT_A_NUMBER =
+    "The duration of '%s' has to be a number";
+  protected static final String NOT_A_PAIR =
+    "A dependency has to be a list of two action names";
+  protected static final String NO_SUCH_DEPENDENCY =
+    "There is no PRECEDES relationship from '%s' to '%s'";
+
+  private final Schedule before;
+
+  private final Schedule after;
+
+  private WhatIfSchedule(Schedule before, Schedule after) {
+    this.before = before;
+    this.after = after;
+  }
+
+  /**
+   * This method calculates the schedule of graph before and after changes
+   * @param tx: transaction the names of the actions are read in
+   * @param graph: the loaded graph
+   * @param durations: new durations by action name
+   * @param added: dependencies to add, as pairs of predecessor and successor
+   * @param removed: dependencies to remove, in the same form
+   * @return both schedules
+   */
+  public static WhatIfSchedule evaluate(
+    Transaction tx,
+    ScheduleGraph graph,
+    Map<String, Object> durations,
+    List<List<String>> added,
+    List<List<String>> removed
+  ) {
+    Map<String, Integer> indexByName = indexByName(tx, graph);
+
+    long[] newDurations = new long[graph.nodeCount()];
+    for (int i = 0; i < newDurations.length; i++) {
+      newDurations[i] = graph.duration(i);
+    }
+    for (Map.Entry<String, Object> duration : durations.entrySet()) {
+      if (!(duration.getValue() instanceof Number)) {
+        throw new IllegalArgumentException(
+          String.format(NOT_A_NUMBER, duration.getKey())
+        );
+      }
+      long value = ((Number) duration.getValue()).longValue();
+      if (value < 0) {
+        throw new IllegalArgumentException(
+          IncrementalSchedule.NEGATIVE_DURATION
+        );
+      }
+      newDurations[index(indexByName, duration.getKey())] = value;
+    }
+
+    List<int[]> addedPairs = pairs(indexByName, added);
+    List<int[]> removedPairs = pairs(indexByName, removed);
+    for (int p = 0; p < removedPairs.size(); p++) {
+      int[] pair = removedPairs.get(p);
+      if (!graph.precedes(pair[0], pair[1])) {
+        throw new IllegalArgumentException(
+          String.format(
+            NO_SUCH_DEPENDENCY,
+            removed.get(p).get(0),
+            removed.get(p).get(1)
+          )
+        );
+      }
+    }
+
+    ScheduleGraph changed = graph.modified(
+      newDurations,
+      addedPairs,
+      removedPairs
+    );
+    return new WhatIfSchedule(
+      ScheduleCalculator.compute(graph),
+      ScheduleCalculator.compute(changed)
+    );
+  }
+
+  // region getters
+
+  public Schedule before() {
+    return before;
+  }
+
+  public Schedule after() {
+    return after;
+  }
+
+  // whether any of the four values of the node differs after the changes
+  public boolean hasChanged(int index) {
+    return (
+      before.earliestStart(index) != after.earliestStart(index) ||
+      before.earliestFinish(index) != after.earliestFinish(index) ||
+      before.latestStart(index) != after.latestStart(index) ||
+      before.latestFinish(index) != after.latestFinish(index)
+    );
+  }
+
+  // endregion
+
+  /* the node index of every name, -1 for names that occur more than once */
+  private static Map<String, Integer> indexByName(
+    Transaction tx,
+    ScheduleGraph graph
+  ) {
+    Map<String, Integer> indexByName = new HashMap<>();
+    for (int i = 0; i < graph.nodeCount(); i++) {
+      indexByName.merge(Action.getName(graph.node(tx, i)), i, (a, b) -> -1);
+    }
+    return indexByName;
+  }
+
+  private static int index(Map<String, Integer> indexByName, String name) {
+    Integer index = indexByName.get(name);
+    if (index == null) {
+      throw new IllegalArgumentException(String.format(UNKNOWN_ACTION, name));
+    }
+    if (index < 0) {
+      throw new IllegalArgumentException(
+        String.format(AMBIGUOUS_ACTION, name)
+      );
+    }
+    return index;
+  }
+
+  private static List<int[]> pairs(
+    Map<String, Integer> indexByName,
+    List<List<String>> dependencies
+  ) {
+    List<int[]> pairs = new ArrayList<>();
+    for (List<String> dependency : dependencies) {
+      if (dependency.size() != 2) {
+        throw new IllegalArgumentException(NOT_A_PAIR);
+      }
+      pairs.add(
+        new int[] {
+          index(indexByName, dependency.get(0)),
+          index(indexByName, dependency.get(1)),
+        }
+      );
+    }
+    return pairs;
+  }
+}
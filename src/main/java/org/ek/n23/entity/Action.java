@@ -1,6 +1,8 @@
 package org.ek.n23.entity;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import org.ek.n23.utility.NodeComparer;
@@ -10,6 +12,9 @@ import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.NotFoundException;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.schema.ConstraintDefinition;
+import org.neo4j.graphdb.schema.IndexDefinition;
+import org.neo4j.graphdb.schema.Schema;
 
 /**
  * This class is a representation of the
@@ -21,13 +26,28 @@ public class Action {
   public static final String LABEL_NAME = "Action";
   public static final Label LABEL = Label.label(LABEL_NAME);
 
+  // Additional labels of the start and end node of a generated graph
+  public static final String START_LABEL_NAME = "StartAction";
+  public static final Label START_LABEL = Label.label(START_LABEL_NAME);
+  public static final String END_LABEL_NAME = "EndAction";
+  public static final Label END_LABEL = Label.label(END_LABEL_NAME);
+
   // Property keys of the Action node
   public static final String NAME_KEY = "name";
+  public static final String GRAPH_ID_KEY = "graphId";
   public static final String DURATION_KEY = "duration";
   public static final String EARLIEST_START_KEY = "earliestStart";
   public static final String EARLIEST_FINISH_KEY = "earliestFinish";
   public static final String LATEST_START_KEY = "latestStart";
   public static final String LATEST_FINISH_KEY = "latestFinish";
+  public static final String TOTAL_FLOAT_KEY = "totalFloat";
+  public static final String FREE_FLOAT_KEY = "freeFloat";
+  public static final String CRITICAL_KEY = "critical";
+
+  // Property keys of the duration estimates for simulations, all optional
+  public static final String OPTIMISTIC_DURATION_KEY = "optimisticDuration";
+  public static final String LIKELY_DURATION_KEY = "likelyDuration";
+  public static final String PESSIMISTIC_DURATION_KEY = "pessimisticDuration";
 
   // takes a number and returns LABEL_NAME + number as a String
   public static String transformToNodeName(int number) {
@@ -53,12 +73,120 @@ public class Action {
     return newNode;
   }
 
+  /**
+   * This method creates a new Action node that belongs to a generated graph
+   * @param tx: transaction object
+   * @param graphId: id of the graph that the node belongs to
+   * @param name: name property of new Action node
+   * @param duration: duration property of new Action node
+   * @return the newly created Action node object
+   */
+  public static Node createNode(
+    Transaction tx,
+    String graphId,
+    String name,
+    long duration
+  ) {
+    Node newNode = createNode(tx, name, duration);
+    newNode.setProperty(GRAPH_ID_KEY, graphId);
+    return newNode;
+  }
+
+  /**
+   * This method returns the start node of a generated graph. With the
+   * indexes of createIndexes, the node is found without a label scan.
+   * @param tx: transaction object
+   * @param graphId: id of the graph
+   * @return the start node or null if there is no graph with graphId
+   */
+  public static Node findStartNode(Transaction tx, String graphId) {
+    return tx.findNode(START_LABEL, GRAPH_ID_KEY, graphId);
+  }
+
+  /**
+   * This method returns the end node of a generated graph. With the
+   * indexes of createIndexes, the node is found without a label scan.
+   * @param tx: transaction object
+   * @param graphId: id of the graph
+   * @return the end node or null if there is no graph with graphId
+   */
+  public static Node findEndNode(Transaction tx, String graphId) {
+    return tx.findNode(END_LABEL, GRAPH_ID_KEY, graphId);
+  }
+
+  /**
+   * This method creates the constraints and indexes for generated graphs
+   * that do not exist yet: unique graph ids for start and end nodes, an
+   * index on the graph id of the Action nodes, which the lookups of all
+   * nodes of a graph use, and one on graph id and name.
+   * It needs a transaction that is allowed to change the schema.
+   * @param tx: transaction object
+   * @return the names of the created constraints and indexes
+   */
+  public static List<String> createIndexes(Transaction tx) {
+    List<String> created = new ArrayList<>();
+    Schema schema = tx.schema();
+
+    for (Label label : List.of(START_LABEL, END_LABEL)) {
+      String name = label.name() + "_" + GRAPH_ID_KEY;
+      if (!hasSchemaEntry(schema, name)) {
+        schema
+          .constraintFor(label)
+          .assertPropertyIsUnique(GRAPH_ID_KEY)
+          .withName(name)
+          .create();
+        created.add(name);
+      }
+    }
+
+    String graphIdIndexName = LABEL_NAME + "_" + GRAPH_ID_KEY;
+    if (!hasSchemaEntry(schema, graphIdIndexName)) {
+      schema
+        .indexFor(LABEL)
+        .on(GRAPH_ID_KEY)
+        .withName(graphIdIndexName)
+        .create();
+      created.add(graphIdIndexName);
+    }
+
+    String indexName = LABEL_NAME + "_" + GRAPH_ID_KEY + "_" + NAME_KEY;
+    if (!hasSchemaEntry(schema, indexName)) {
+      schema
+        .indexFor(LABEL)
+        .on(GRAPH_ID_KEY)
+        .on(NAME_KEY)
+        .withName(indexName)
+        .create();
+      created.add(indexName);
+    }
+    return created;
+  }
+
+  // checks whether there is an index or a constraint with name
+  private static boolean hasSchemaEntry(Schema schema, String name) {
+    for (IndexDefinition index : schema.getIndexes()) {
+      if (index.getName().equals(name)) {
+        return true;
+      }
+    }
+    for (ConstraintDefinition constraint : schema.getConstraints()) {
+      if (constraint.getName().equals(name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   // region getters
 
   public static String getName(Node actionNode) {
     return (String) actionNode.getProperty(NAME_KEY, "");
   }
 
+  public static String getGraphId(Node actionNode) {
+    return (String) actionNode.getProperty(GRAPH_ID_KEY, "");
+  }
+
   public static long getDuration(Node actionNode) {
     return (long) actionNode.getProperty(DURATION_KEY, Long.MIN_VALUE);
   }
@@ -81,24 +209,75 @@ public class Action {
     return (long) actionNode.getProperty(LATEST_FINISH_KEY);
   }
 
+  // returns the duration estimate stored under key, or the duration if there is none
+  public static double getDurationEstimate(Node actionNode, String key) {
+    Object estimate = actionNode.getProperty(key, null);
+    if (estimate instanceof Number) {
+      return ((Number) estimate).doubleValue();
+    }
+    return getDuration(actionNode);
+  }
+
   // endregion
 
+  // checks whether the four schedule properties have been written on actionNode
+  public static boolean hasSchedule(Node actionNode) {
+    return (
+      actionNode.hasProperty(EARLIEST_START_KEY) &&
+      actionNode.hasProperty(EARLIEST_FINISH_KEY) &&
+      actionNode.hasProperty(LATEST_START_KEY) &&
+      actionNode.hasProperty(LATEST_FINISH_KEY)
+    );
+  }
+
   // region setters
 
-  public static void setEarliestStart(Node actionNode, long value) {
-    actionNode.setProperty(EARLIEST_START_KEY, value);
+  public static void setDuration(Node actionNode, long value) {
+    actionNode.setProperty(DURATION_KEY, value);
+  }
+
+  /* The setters of the schedule properties only write values that differ
+   * from the stored ones and return whether they have written the value.
+   * So recalculating a schedule that has not changed writes nothing. */
+
+  public static boolean setEarliestStart(Node actionNode, long value) {
+    return setIfChanged(actionNode, EARLIEST_START_KEY, value);
   }
 
-  public static void setEarliestFinish(Node actionNode, long value) {
-    actionNode.setProperty(EARLIEST_FINISH_KEY, value);
+  public static boolean setEarliestFinish(Node actionNode, long value) {
+    return setIfChanged(actionNode, EARLIEST_FINISH_KEY, value);
   }
 
-  public static void setLatestStart(Node actionNode, long value) {
-    actionNode.setProperty(LATEST_START_KEY, value);
+  public static boolean setLatestStart(Node actionNode, long value) {
+    return setIfChanged(actionNode, LATEST_START_KEY, value);
   }
 
-  public static void setLatestFinish(Node actionNode, long value) {
-    actionNode.setProperty(LATEST_FINISH_KEY, value);
+  public static boolean setLatestFinish(Node actionNode, long value) {
+    return setIfChanged(actionNode, LATEST_FINISH_KEY, value);
+  }
+
+  public static boolean setTotalFloat(Node actionNode, long value) {
+    return setIfChanged(actionNode, TOTAL_FLOAT_KEY, value);
+  }
+
+  public static boolean setFreeFloat(Node actionNode, long value) {
+    return setIfChanged(actionNode, FREE_FLOAT_KEY, value);
+  }
+
+  public static boolean setCritical(Node actionNode, boolean value) {
+    return setIfChanged(actionNode, CRITICAL_KEY, value);
+  }
+
+  private static boolean setIfChanged(
+    Node actionNode,
+    String key,
+    Object value
+  ) {
+    if (value.equals(actionNode.getProperty(key, null))) {
+      return false;
+    }
+    actionNode.setProperty(key, value);
+    return true;
   }
 
   // endregion
@@ -0,0 +1,37 @@
+package org.ek.n23.extension;
+
+import org.ek.n23.job.GenerationJobs;
+import org.neo4j.kernel.extension.ExtensionFactory;
+import org.neo4j.kernel.extension.ExtensionType;
+import org.neo4j.kernel.extension.context.ExtensionContext;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.kernel.lifecycle.Lifecycle;
+
+/**
+ * This class lets Neo4j start the GenerationJobs of every database.
+ * It is registered in
+ * META-INF/services/org.neo4j.kernel.extension.ExtensionFactory,
+ * so Neo4j finds it when the plugin jar is on the class path.
+ */
+public class GenerationJobsExtensionFactory
+  extends ExtensionFactory<GenerationJobsExtensionFactory.Dependencies> {
+
+  public static final String EXTENSION_NAME = "generationJobs";
+
+  // the services of Neo4j that the GenerationJobs need
+  public interface Dependencies {
+    GraphDatabaseAPI graphDatabaseAPI();
+  }
+
+  public GenerationJobsExtensionFactory() {
+    super(ExtensionType.DATABASE, EXTENSION_NAME);
+  }
+
+  @Override
+  public Lifecycle newInstance(
+    ExtensionContext context,
+    Dependencies dependencies
+  ) {
+    return new GenerationJobs(dependencies.graphDatabaseAPI());
+  }
+}
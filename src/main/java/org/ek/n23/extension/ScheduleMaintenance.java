@@ -0,0 +1,316 @@
+package org.ek.n23.extension;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.ek.n23.cpm.IncrementalSchedule;
+import org.ek.n23.entity.Action;
+import org.ek.n23.entity.Precedes;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.event.PropertyEntry;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventListener;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+
+/**
+ * This class keeps the schedules on the Action nodes of a database up to
+ * date without anybody calling a procedure.
+ *
+ * Before a transaction commits, it collects the nodes that have a schedule
+ * and whose duration has been set or which have got or lost a PRECEDES
+ * relationship, and the created PRECEDES relationships, which are the only
+ * changes that can close a cycle. After the commit, they are added to the
+ * pending changes and an update is planned DELAY_MILLIS later, unless one
+ * is planned already. So a burst of small transactions leads to a single
+ * update. The update runs the IncrementalSchedule on the pending changes,
+ * in one transaction per graph id.
+ *
+ * Nodes without a schedule are ignored, so a schedule has to be
+ * calculated once, e.g. with computeSchedule. The update only writes the
+ * schedule properties, so its own transactions do not plan another update.
+ * Transactions that are marked with ignoreChanges are skipped as a whole,
+ * e.g. updateDuration, which updates the schedule itself, and the batches
+ * of deleteGraphs, whose nodes are about to be deleted anyway.
+ */
+public class ScheduleMaintenance
+  extends LifecycleAdapter
+  implements TransactionEventListener<ScheduleMaintenance.Changes> {
+
+  // time that changes are collected before the schedules are updated
+  public static final long DELAY_MILLIS = 100;
+
+  // transaction metadata key of the transactions whose changes are skipped
+  public static final String IGNORE_CHANGES_KEY = "ignoreScheduleChanges";
+
+  private static final String SYSTEM_DATABASE_NAME = "system";
+
+  private final GraphDatabaseService db;
+
+  private final DatabaseManagementService managementService;
+
+  private final Log log;
+
+  // element ids of the nodes that have changed since the last update
+  private final Set<String> pendingNodes = ConcurrentHashMap.newKeySet();
+
+  // element ids of the PRECEDES relationships created since the last update
+  private final Set<String> pendingRelationships =
+    ConcurrentHashMap.newKeySet();
+
+  private final AtomicBoolean updatePlanned = new AtomicBoolean();
+
+  private volatile ScheduledExecutorService executor;
+
+  public ScheduleMaintenance(
+    GraphDatabaseService db,
+    DatabaseManagementService managementService,
+    Log log
+  ) {
+    this.db = db;
+    this.managementService = managementService;
+    this.log = log;
+  }
+
+  // region lifecycle
+
+  @Override
+  public void start() {
+    if (SYSTEM_DATABASE_NAME.equals(db.databaseName())) {
+      return;
+    }
+    executor =
+      Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "schedule-maintenance");
+        thread.setDaemon(true);
+        return thread;
+      });
+    managementService.registerTransactionEventListener(db.databaseName(), this);
+  }
+
+  @Override
+  public void stop() {
+    if (executor == null) {
+      return;
+    }
+    managementService.unregisterTransactionEventListener(
+      db.databaseName(),
+      this
+    );
+    executor.shutdownNow();
+    executor = null;
+  }
+
+  // endregion
+
+  // region transaction events
+
+  @Override
+  public Changes beforeCommit(
+    TransactionData data,
+    Transaction transaction,
+    GraphDatabaseService databaseService
+  ) {
+    Changes changes = new Changes();
+    if (data.metaData().containsKey(IGNORE_CHANGES_KEY)) {
+      return changes;
+    }
+    for (PropertyEntry<Node> entry : data.assignedNodeProperties()) {
+      if (Action.DURATION_KEY.equals(entry.key())) {
+        addIfScheduled(data, entry.entity(), changes.nodes);
+      }
+    }
+    for (Relationship rel : data.createdRelationships()) {
+      if (addEndsIfPrecedes(data, rel, changes.nodes)) {
+        changes.createdRelationships.add(rel.getElementId());
+      }
+    }
+    for (Relationship rel : data.deletedRelationships()) {
+      addEndsIfPrecedes(data, rel, changes.nodes);
+    }
+    return changes;
+  }
+
+  @Override
+  public void afterCommit(
+    TransactionData data,
+    Changes changes,
+    GraphDatabaseService databaseService
+  ) {
+    if (changes == null || changes.nodes.isEmpty()) {
+      return;
+    }
+    ScheduledExecutorService currentExecutor = executor;
+    if (currentExecutor == null) {
+      return;
+    }
+    /* the relationships first: the update takes the nodes before the
+     * relationships, so it never gets the nodes without them */
+    pendingRelationships.addAll(changes.createdRelationships);
+    pendingNodes.addAll(changes.nodes);
+    if (updatePlanned.compareAndSet(false, true)) {
+      currentExecutor.schedule(
+        this::updateSchedules,
+        DELAY_MILLIS,
+        TimeUnit.MILLISECONDS
+      );
+    }
+  }
+
+  @Override
+  public void afterRollback(
+    TransactionData data,
+    Changes changes,
+    GraphDatabaseService databaseService
+  ) {
+    // nothing has changed
+  }
+
+  // returns whether rel is a PRECEDES relationship with a scheduled end
+  private static boolean addEndsIfPrecedes(
+    TransactionData data,
+    Relationship rel,
+    Set<String> changedNodes
+  ) {
+    if (!rel.isType(Precedes.PRECEDES_TYPE)) {
+      return false;
+    }
+    boolean startAdded = addIfScheduled(data, rel.getStartNode(), changedNodes);
+    boolean endAdded = addIfScheduled(data, rel.getEndNode(), changedNodes);
+    return startAdded || endAdded;
+  }
+
+  private static boolean addIfScheduled(
+    TransactionData data,
+    Node node,
+    Set<String> changedNodes
+  ) {
+    if (data.isDeleted(node) || !Action.hasSchedule(node)) {
+      return false;
+    }
+    changedNodes.add(node.getElementId());
+    return true;
+  }
+
+  // endregion
+
+  /**
+   * This method marks tx so that the listener skips its changes. The
+   * metadata that the client has set on tx is kept.
+   * @param tx: transaction that keeps the schedule up to date itself or
+   * that only deletes graphs
+   */
+  public static void ignoreChanges(Transaction tx) {
+    KernelTransaction kernelTransaction =
+      ((InternalTransaction) tx).kernelTransaction();
+    Map<String, Object> metaData = new HashMap<>(
+      kernelTransaction.getMetaData()
+    );
+    metaData.put(IGNORE_CHANGES_KEY, true);
+    kernelTransaction.setMetaData(metaData);
+  }
+
+  /** This private method updates the schedules of the pending nodes.
+   * Nodes and relationships that have been deleted in the meantime are
+   * skipped. An update that fails is logged, the schedule of its graph has
+   * to be calculated again then. This also happens if a created
+   * relationship has closed a cycle, the graph is updated again after a
+   * change that removes the cycle.
+   */
+  private void updateSchedules() {
+    // changes committed from now on plan a new update
+    updatePlanned.set(false);
+    List<String> nodeIds = drain(pendingNodes);
+    List<String> relationshipIds = drain(pendingRelationships);
+
+    Map<String, List<String>> nodeIdsByGraph = new HashMap<>();
+    Map<String, List<String>> relationshipIdsByGraph = new HashMap<>();
+    try (Transaction tx = db.beginTx()) {
+      for (String elementId : nodeIds) {
+        try {
+          Node node = tx.getNodeByElementId(elementId);
+          nodeIdsByGraph
+            .computeIfAbsent(Action.getGraphId(node), k -> new ArrayList<>())
+            .add(elementId);
+        } catch (NotFoundException e) {
+          // the node has been deleted, so there is nothing to update
+        }
+      }
+      for (String elementId : relationshipIds) {
+        try {
+          Node start = tx.getRelationshipByElementId(elementId).getStartNode();
+          relationshipIdsByGraph
+            .computeIfAbsent(Action.getGraphId(start), k -> new ArrayList<>())
+            .add(elementId);
+        } catch (NotFoundException e) {
+          // the relationship has been deleted, so it cannot close a cycle
+        }
+      }
+    }
+
+    Set<String> graphIds = new HashSet<>(nodeIdsByGraph.keySet());
+    graphIds.addAll(relationshipIdsByGraph.keySet());
+    for (String graphId : graphIds) {
+      try (Transaction tx = db.beginTx()) {
+        List<Node> nodes = new ArrayList<>();
+        for (String elementId : nodeIdsByGraph.getOrDefault(
+          graphId,
+          List.of()
+        )) {
+          nodes.add(tx.getNodeByElementId(elementId));
+        }
+        List<Relationship> createdRelationships = new ArrayList<>();
+        for (String elementId : relationshipIdsByGraph.getOrDefault(
+          graphId,
+          List.of()
+        )) {
+          createdRelationships.add(tx.getRelationshipByElementId(elementId));
+        }
+        IncrementalSchedule.refresh(nodes, createdRelationships);
+        tx.commit();
+      } catch (RuntimeException e) {
+        log.warn(
+          "Could not update the schedule of graph '" + graphId + "'",
+          e
+        );
+      }
+    }
+  }
+
+  // removes all element ids from pending and returns them
+  private static List<String> drain(Set<String> pending) {
+    List<String> elementIds = new ArrayList<>();
+    Iterator<String> it = pending.iterator();
+    while (it.hasNext()) {
+      elementIds.add(it.next());
+      it.remove();
+    }
+    return elementIds;
+  }
+
+  // the element ids of the changes of one transaction
+  static class Changes {
+
+    // nodes with a schedule whose duration or relationships changed
+    private final Set<String> nodes = new HashSet<>();
+
+    // created PRECEDES relationships between such nodes
+    private final Set<String> createdRelationships = new HashSet<>();
+  }
+}
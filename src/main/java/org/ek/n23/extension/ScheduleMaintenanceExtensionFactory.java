@@ -0,0 +1,46 @@
+package org.ek.n23.extension;
+
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.kernel.extension.ExtensionFactory;
+import org.neo4j.kernel.extension.ExtensionType;
+import org.neo4j.kernel.extension.context.ExtensionContext;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.kernel.lifecycle.Lifecycle;
+import org.neo4j.logging.internal.LogService;
+
+/**
+ * This class lets Neo4j start a ScheduleMaintenance for every database.
+ * It is registered in
+ * META-INF/services/org.neo4j.kernel.extension.ExtensionFactory,
+ * so Neo4j finds it when the plugin jar is on the class path.
+ */
+public class ScheduleMaintenanceExtensionFactory
+  extends ExtensionFactory<ScheduleMaintenanceExtensionFactory.Dependencies> {
+
+  public static final String EXTENSION_NAME = "scheduleMaintenance";
+
+  // the services of Neo4j that the ScheduleMaintenance needs
+  public interface Dependencies {
+    GraphDatabaseAPI graphDatabaseAPI();
+
+    DatabaseManagementService databaseManagementService();
+
+    LogService logService();
+  }
+
+  public ScheduleMaintenanceExtensionFactory() {
+    super(ExtensionType.DATABASE, EXTENSION_NAME);
+  }
+
+  @Override
+  public Lifecycle newInstance(
+    ExtensionContext context,
+    Dependencies dependencies
+  ) {
+    return new ScheduleMaintenance(
+      dependencies.graphDatabaseAPI(),
+      dependencies.databaseManagementService(),
+      dependencies.logService().getUserLog(ScheduleMaintenance.class)
+    );
+  }
+}
@@ -0,0 +1,130 @@
+package org.ek.n23.generator;
+
+import java.util.Arrays;
+import org.ek.n23.entity.Action;
+
+/**
+ * This class is a purely in-memory representation of a generated
+ * Action graph. It holds the whole topology in primitive arrays so that
+ * the generator never has to touch the database while deciding which
+ * nodes to connect.
+ *
+ * Index i of the arrays belongs to the Action node with the name
+ * Action(i+1). The additional start node Action0 and end node
+ * Action(actionCount+1) are not part of the arrays, they are derived
+ * from the starting nodes and the nodes without successors when the
+ * graph is written to the database.
+ */
+public class ActionGraph {
+
+  private static final int INITIAL_ADJACENCY_CAPACITY = 4;
+
+  private final long[] durations;
+
+  private final int[][] successors;
+  private final int[] successorCounts;
+
+  private final int[][] predecessors;
+  private final int[] predecessorCounts;
+
+  private int[] startingNodes = new int[0];
+
+  private int relationshipCount;
+
+  public ActionGraph(long[] durations) {
+    this.durations = durations;
+    this.successors = new int[durations.length][];
+    this.successorCounts = new int[durations.length];
+    this.predecessors = new int[durations.length][];
+    this.predecessorCounts = new int[durations.length];
+  }
+
+  // region getters
+
+  public int actionCount() {
+    return durations.length;
+  }
+
+  public long duration(int index) {
+    return durations[index];
+  }
+
+  public int successorCount(int index) {
+    return successorCounts[index];
+  }
+
+  public int successor(int index, int position) {
+    return successors[index][position];
+  }
+
+  public int predecessorCount(int index) {
+    return predecessorCounts[index];
+  }
+
+  public int predecessor(int index, int position) {
+    return predecessors[index][position];
+  }
+
+  // checks whether "to" is a direct successor of "from"
+  public boolean hasSuccessor(int from, int to) {
+    for (int i = 0; i < successorCounts[from]; i++) {
+      if (successors[from][i] == to) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public int[] startingNodes() {
+    return startingNodes;
+  }
+
+  // number of PRECEDES relationships between the Action nodes (without start and end node)
+  public int relationshipCount() {
+    return relationshipCount;
+  }
+
+  // takes an index and returns the name of the respective Action node
+  public static String nameOf(int index) {
+    return Action.transformToNodeName(index + 1);
+  }
+
+  // endregion
+
+  // region setters
+
+  public void setStartingNodes(int[] startingNodes) {
+    this.startingNodes = startingNodes;
+  }
+
+  /**
+   * This method adds a PRECEDES edge between two Action nodes
+   * @param from: index of the start node of the edge
+   * @param to: index of the end node of the edge
+   */
+  public void addEdge(int from, int to) {
+    append(successors, successorCounts, from, to);
+    append(predecessors, predecessorCounts, to, from);
+    relationshipCount++;
+  }
+
+  // endregion
+
+  /* appends value to the adjacency list at index and grows the list if needed */
+  private static void append(
+    int[][] adjacency,
+    int[] counts,
+    int index,
+    int value
+  ) {
+    int[] list = adjacency[index];
+    if (list == null) {
+      list = new int[INITIAL_ADJACENCY_CAPACITY];
+      adjacency[index] = list;
+    } else if (counts[index] == list.length) {
+      list = Arrays.copyOf(list, list.length * 2);
+      adjacency[index] = list;
+    }
+    list[counts[index]++] = value;
+  }
+}
@@ -0,0 +1,252 @@
+package org.ek.n23.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import org.ek.n23.entity.Action;
+import org.ek.n23.entity.Config;
+import org.ek.n23.entity.Precedes;
+import org.ek.n23.extension.ScheduleMaintenance;
+import org.ek.n23.utility.Summary;
+import org.ek.n23.utility.TransactionBatches;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.ResourceIterable;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Transaction;
+
+/**
+ * This class deletes generated graphs in batches of separately committed
+ * transactions, so the transaction state never grows beyond the batch size.
+ *
+ * The nodes to delete are found by a single query in a read transaction
+ * of its own, which is read page by page: the element ids of at most
+ * batch size nodes are collected, the relationships of these nodes are
+ * deleted, node by node, and finally the nodes themselves. Then the next
+ * page is read from the same query, so only the element ids of one page
+ * are held in memory. The relationships of a node are read in chunks
+ * that fit into the current batch, so nodes with a lot of relationships,
+ * like the start and end node, are deleted over several batches without
+ * reading their relationships more than once.
+ *
+ * With the Action_graphId index of Action.createIndexes, the nodes of a
+ * graph are looked up in the index and the time needed grows linearly
+ * with the size of the graph. Without it, all Action nodes of the
+ * database are scanned once.
+ */
+public class ActionGraphDeleter {
+
+  // names of the phases that are timed in the summary
+  public static final String COLLECT_NODES_PHASE = "Collect Nodes";
+  public static final String DELETE_RELATIONSHIPS_PHASE =
+    "Delete Relationships";
+  public static final String DELETE_NODES_PHASE = "Delete Nodes";
+
+  public static final String OTHER_RELATIONSHIPS = "Other";
+
+  private ActionGraphDeleter() {}
+
+  /**
+   * This method deletes the Action nodes of one or all generated graphs
+   * including all their relationships and optionally all Config nodes.
+   * If deleting fails, the batches committed before stay deleted.
+   * @param db: database to delete the graphs from
+   * @param graphId: id of the graph to delete or null for all Action nodes
+   * @param includeConfig: whether all Config nodes are deleted as well
+   * @param batchSize: number of nodes and relationships per transaction
+   * @return a summary with the number of deleted nodes and relationships,
+   * the number of batches, the throughput and the timings of the phases
+   */
+  public static Summary delete(
+    GraphDatabaseService db,
+    String graphId,
+    boolean includeConfig,
+    long batchSize
+  ) {
+    Summary summary = new Summary();
+    summary.graphId = graphId;
+    long start = System.nanoTime();
+
+    Deletion deletion = new Deletion();
+    try (
+      TransactionBatches batches = new TransactionBatches(
+        db,
+        batchSize,
+        ScheduleMaintenance::ignoreChanges
+      )
+    ) {
+      // a page holds at most as many nodes as a batch
+      int pageSize = (int) batchSize;
+
+      long actionCount = deleteNodes(
+        db,
+        batches,
+        tx ->
+          graphId == null
+            ? tx.findNodes(Action.LABEL)
+            : tx.findNodes(Action.LABEL, Action.GRAPH_ID_KEY, graphId),
+        pageSize,
+        deletion
+      );
+      long configCount = includeConfig
+        ? deleteNodes(
+          db,
+          batches,
+          tx -> tx.findNodes(Config.LABEL),
+          pageSize,
+          deletion
+        )
+        : 0;
+      batches.finish();
+
+      // add info about the deleted graph to summary
+      summary.addDuration(COLLECT_NODES_PHASE, deletion.collectNanos);
+      summary.addDuration(
+        DELETE_RELATIONSHIPS_PHASE,
+        deletion.relationshipNanos
+      );
+      summary.addDuration(DELETE_NODES_PHASE, deletion.nodeNanos);
+      summary.addNodeInfo(Action.LABEL_NAME, saturated(actionCount));
+      summary.addNodeInfo(Config.LABEL.name(), saturated(configCount));
+      summary.addRelationshipInfo(
+        Precedes.TYPE_NAME,
+        saturated(deletion.precedesCount)
+      );
+      summary.addRelationshipInfo(
+        OTHER_RELATIONSHIPS,
+        saturated(deletion.otherCount)
+      );
+      summary.addOtherInfo(ActionGraphWriter.BATCHES_INFO, batches.commits());
+
+      long entities =
+        actionCount +
+        configCount +
+        deletion.precedesCount +
+        deletion.otherCount;
+      long nanos = Math.max(System.nanoTime() - start, 1);
+      summary.addOtherInfo(
+        "Entities Per Second",
+        saturated(entities * 1_000_000_000L / nanos)
+      );
+    }
+    return summary;
+  }
+
+  /** This private function deletes the nodes that query finds, page by
+   * page. The query is run once in a read transaction that stays open
+   * until all nodes are deleted. The relationships of the nodes of a page
+   * are deleted first, then the nodes themselves, in the batches.
+   * @param db: database the read transaction is opened in
+   * @param batches: the batches that the deletions are counted in
+   * @param query: finds the nodes to delete in a transaction
+   * @param pageSize: maximum number of nodes per page
+   * @param deletion: the counts and timings that are added to
+   * @return the number of deleted nodes
+   */
+  private static long deleteNodes(
+    GraphDatabaseService db,
+    TransactionBatches batches,
+    Function<Transaction, ResourceIterator<Node>> query,
+    int pageSize,
+    Deletion deletion
+  ) {
+    long deleted = 0;
+    try (
+      Transaction readTx = db.beginTx();
+      ResourceIterator<Node> nodes = query.apply(readTx)
+    ) {
+      while (true) {
+        long phaseStart = System.nanoTime();
+        List<String> page = collectElementIds(nodes, pageSize);
+        deletion.collectNanos += System.nanoTime() - phaseStart;
+        if (page.isEmpty()) {
+          return deleted;
+        }
+
+        // delete all relationships of the nodes first
+        phaseStart = System.nanoTime();
+        for (String elementId : page) {
+          deleteRelationships(batches, elementId, deletion);
+        }
+        deletion.relationshipNanos += System.nanoTime() - phaseStart;
+
+        // then delete the nodes that do not have any relationships anymore
+        phaseStart = System.nanoTime();
+        for (String elementId : page) {
+          batches.tx().getNodeByElementId(elementId).delete();
+          batches.entityWritten();
+        }
+        deletion.nodeNanos += System.nanoTime() - phaseStart;
+        deleted += page.size();
+      }
+    }
+  }
+
+  /* collects the element ids of the next limit nodes of the iterator */
+  private static List<String> collectElementIds(
+    ResourceIterator<Node> nodes,
+    int limit
+  ) {
+    List<String> elementIds = new ArrayList<>(Math.min(limit, 1024));
+    while (elementIds.size() < limit && nodes.hasNext()) {
+      elementIds.add(nodes.next().getElementId());
+    }
+    return elementIds;
+  }
+
+  // returns count or the largest int if count does not fit into an int
+  private static int saturated(long count) {
+    return (int) Math.min(count, Integer.MAX_VALUE);
+  }
+
+  /** This private function deletes all relationships of a node.
+   * The relationships are read in chunks of the size that is left in the
+   * current batch, deleted, and the batch is committed when it is full.
+   * The number of deleted PRECEDES and other relationships is added to
+   * deletion.
+   */
+  private static void deleteRelationships(
+    TransactionBatches batches,
+    String elementId,
+    Deletion deletion
+  ) {
+    boolean allRead = false;
+    while (!allRead) {
+      int chunkSize = batches.remainingInBatch();
+      List<Relationship> chunk = new ArrayList<>(Math.min(chunkSize, 1024));
+      Node node = batches.tx().getNodeByElementId(elementId);
+      try (
+        ResourceIterable<Relationship> relationships = node.getRelationships()
+      ) {
+        ResourceIterator<Relationship> it = relationships.iterator();
+        while (chunk.size() < chunkSize && it.hasNext()) {
+          chunk.add(it.next());
+        }
+        allRead = !it.hasNext();
+        it.close();
+      }
+
+      for (Relationship relationship : chunk) {
+        if (relationship.isType(Precedes.PRECEDES_TYPE)) {
+          deletion.precedesCount++;
+        } else {
+          deletion.otherCount++;
+        }
+        relationship.delete();
+        batches.entityWritten();
+      }
+    }
+  }
+
+  // the number of deleted relationships and the time spent in every phase
+  private static class Deletion {
+
+    private long precedesCount;
+    private long otherCount;
+
+    private long collectNanos;
+    private long relationshipNanos;
+    private long nodeNanos;
+  }
+}
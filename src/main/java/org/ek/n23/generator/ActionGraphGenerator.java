@@ -0,0 +1,280 @@
+package org.ek.n23.generator;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.random.RandomGenerator;
+import org.ek.n23.ConfigObject;
+import org.ek.n23.utility.IndexedRandomSet;
+import org.ek.n23.utility.RandomNumbers;
+
+/**
+ * This class generates the topology of an Action graph in memory.
+ * It follows the same rules as the original database based generator:
+ * a random number of Action nodes with random durations is created,
+ * a random number of them is chosen as starting nodes and the nodes
+ * are then connected by PRECEDES edges without creating any cycles.
+ *
+ * Nodes are only identified by their index. Sets of nodes are kept in
+ * IndexedRandomSets, so that picking a random element takes constant time
+ * and is deterministic for a given seed. Cycles are avoided with the help of
+ * a ReachabilityIndex that is updated with every edge that is added.
+ */
+public class ActionGraphGenerator {
+
+  private static final int NO_NODE = -1;
+
+  /* number of random picks before all possible successors are collected.
+   * Collecting them walks all ancestors, so the number of picks grows
+   * with the size of the graph. */
+  private static final int MIN_SAMPLING_ATTEMPTS = 32;
+  private static final int NODES_PER_SAMPLING_ATTEMPT = 100;
+
+  private ActionGraphGenerator() {}
+
+  /**
+   * This method generates the topology of an Action graph
+   * @param random: random number generator that determines the graph
+   * @param config: ConfigObject with the ranges for the graph
+   * @return the generated ActionGraph
+   */
+  public static ActionGraph generate(
+    RandomGenerator random,
+    ConfigObject config
+  ) {
+    long numberNodes = RandomNumbers.randomNumber(
+      random,
+      config.actionCount().min(),
+      config.actionCount().max()
+    );
+    return generate(random, config, (int) numberNodes);
+  }
+
+  /**
+   * This method generates the topology of an Action graph with
+   * a given number of Action nodes. All other ranges are taken from config.
+   * @param random: random number generator that determines the graph
+   * @param config: ConfigObject with the ranges for the graph
+   * @param actionCount: number of Action nodes (without start and end node)
+   * @return the generated ActionGraph
+   */
+  public static ActionGraph generate(
+    RandomGenerator random,
+    ConfigObject config,
+    int actionCount
+  ) {
+    ActionGraph graph = createActionNodes(random, config, actionCount);
+    connectActionNodes(random, config, graph);
+    return graph;
+  }
+
+  /** This private function draws the durations of the Action nodes */
+  private static ActionGraph createActionNodes(
+    RandomGenerator random,
+    ConfigObject config,
+    int actionCount
+  ) {
+    long[] durations = new long[actionCount];
+    for (int i = 0; i < durations.length; i++) {
+      durations[i] =
+        RandomNumbers.randomNumber(
+          random,
+          config.actionDuration().min(),
+          config.actionDuration().max()
+        );
+    }
+
+    return new ActionGraph(durations);
+  }
+
+  /** This private function creates edges between the Action nodes
+   * and sets the starting nodes of the graph
+   */
+  private static void connectActionNodes(
+    RandomGenerator random,
+    ConfigObject config,
+    ActionGraph graph
+  ) {
+    int actionCount = graph.actionCount();
+    long minNumberOutgoingRels = config.outgoingRelationsCount().min();
+    long maxNumberOutgoingRels = config.outgoingRelationsCount().max();
+
+    IndexedRandomSet currentNodes = new IndexedRandomSet(actionCount);
+    IndexedRandomSet visitedNodes = new IndexedRandomSet(actionCount);
+    IndexedRandomSet unvisitedNodes = IndexedRandomSet.full(actionCount);
+    IndexedRandomSet actionNodesWithoutStartingNodes = IndexedRandomSet.full(
+      actionCount
+    );
+    ReachabilityIndex reachabilityIndex = new ReachabilityIndex(graph);
+
+    // Find starting nodes
+    long numberStartingNodes = RandomNumbers.randomNumber(
+      random,
+      config.startingNodesCount().min(),
+      config.startingNodesCount().max()
+    );
+    BitSet startingNodes = new BitSet(actionCount);
+    for (int i = 1; i <= numberStartingNodes; i++) {
+      startingNodes.set(random.nextInt(actionCount));
+    }
+    graph.setStartingNodes(startingNodes.stream().toArray());
+
+    // all starting nodes are visited by default
+    for (int startingNode : graph.startingNodes()) {
+      currentNodes.add(startingNode);
+      visitedNodes.add(startingNode);
+      unvisitedNodes.remove(startingNode);
+      actionNodesWithoutStartingNodes.remove(startingNode);
+    }
+
+    // create relationships
+    while (!unvisitedNodes.isEmpty()) {
+      /* take the next node from the currentNodes set
+       * to attach outgoing relationships to it */
+      int currentNode;
+      if (!currentNodes.isEmpty()) {
+        currentNode = currentNodes.randomElement(random);
+        currentNodes.remove(currentNode);
+      } else {
+        currentNode = visitedNodes.randomElement(random);
+        int toNode = unvisitedNodes.randomElement(random);
+        reachabilityIndex.addEdge(currentNode, toNode);
+        unvisitedNodes.remove(toNode);
+        currentNodes.add(toNode);
+        continue;
+      }
+
+      // create relationships from currentNode
+      int[] connectedToNodes = createPrecedesEdges(
+        random,
+        graph,
+        reachabilityIndex,
+        currentNode,
+        actionNodesWithoutStartingNodes,
+        minNumberOutgoingRels,
+        maxNumberOutgoingRels
+      );
+
+      // check all nodes that now have new incoming relationships
+      for (int node : connectedToNodes) {
+        // the node has an incoming relationship now
+        unvisitedNodes.remove(node);
+
+        /* if the node has not received outgoing rels yet
+         * and does not stand in line for getting any,
+         * add it to the currentNodes set */
+        if (!visitedNodes.contains(node)) {
+          currentNodes.add(node);
+        }
+      }
+
+      /* after adding outgoing relationships to currentNode
+       * put it into the visitedNodes set so that
+       * it is not dealt with again */
+      visitedNodes.add(currentNode);
+    }
+  }
+
+  /** This private function receives a node and the set of all possible
+   * successor nodes and connects the node to a random number of them.
+   * It returns the nodes that it has connected to.
+   */
+  private static int[] createPrecedesEdges(
+    RandomGenerator random,
+    ActionGraph graph,
+    ReachabilityIndex reachabilityIndex,
+    int currentNode,
+    IndexedRandomSet nodes,
+    long minNumberRels,
+    long maxNumberRels
+  ) {
+    /* get a random number between min and max number of
+     * outgoing relationships to attach to currentNode */
+    long numberOutgoingRels = RandomNumbers.randomNumber(
+      random,
+      minNumberRels,
+      maxNumberRels
+    );
+
+    int[] newSuccessors = new int[(int) numberOutgoingRels];
+    int newSuccessorsCount = 0;
+
+    // create edges as long as there are possible successors left
+    while (newSuccessorsCount < newSuccessors.length) {
+      int toNode = randomPossibleSuccessor(
+        random,
+        graph,
+        reachabilityIndex,
+        currentNode,
+        nodes
+      );
+      if (toNode == NO_NODE) {
+        break;
+      }
+      reachabilityIndex.addEdge(currentNode, toNode);
+      newSuccessors[newSuccessorsCount++] = toNode;
+    }
+
+    return Arrays.copyOf(newSuccessors, newSuccessorsCount);
+  }
+
+  /** This private function returns a random node of nodes that is
+   * neither a predecessor nor a direct successor of currentNode.
+   * It first samples nodes at random and rejects the ones that are not
+   * possible. Only if that fails a couple of times, all predecessors
+   * are collected and one of the remaining nodes is picked.
+   * Returns NO_NODE if there is no possible successor left.
+   */
+  private static int randomPossibleSuccessor(
+    RandomGenerator random,
+    ActionGraph graph,
+    ReachabilityIndex reachabilityIndex,
+    int currentNode,
+    IndexedRandomSet nodes
+  ) {
+    if (nodes.isEmpty()) {
+      return NO_NODE;
+    }
+
+    int maxAttempts =
+      MIN_SAMPLING_ATTEMPTS + graph.actionCount() / NODES_PER_SAMPLING_ATTEMPT;
+    for (int attempt = 0; attempt < maxAttempts; attempt++) {
+      int candidate = nodes.randomElement(random);
+      if (
+        !graph.hasSuccessor(currentNode, candidate) &&
+        !reachabilityIndex.wouldCreateCycle(currentNode, candidate)
+      ) {
+        return candidate;
+      }
+    }
+
+    /* count the nodes that are neither predecessors nor direct
+     * successors and pick one of them in the order of the set */
+    reachabilityIndex.markAncestors(currentNode);
+    int possibleCount = 0;
+    for (int i = 0; i < nodes.size(); i++) {
+      int candidate = nodes.get(i);
+      if (
+        !reachabilityIndex.isMarkedAncestor(candidate) &&
+        !graph.hasSuccessor(currentNode, candidate)
+      ) {
+        possibleCount++;
+      }
+    }
+    if (possibleCount == 0) {
+      return NO_NODE;
+    }
+
+    int position = random.nextInt(possibleCount);
+    for (int i = 0; i < nodes.size(); i++) {
+      int candidate = nodes.get(i);
+      if (
+        !reachabilityIndex.isMarkedAncestor(candidate) &&
+        !graph.hasSuccessor(currentNode, candidate) &&
+        position-- == 0
+      ) {
+        return candidate;
+      }
+    }
+    return NO_NODE;
+  }
+}
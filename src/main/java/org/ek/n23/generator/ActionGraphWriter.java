@@ -0,0 +1,325 @@
+package org.ek.n23.generator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.ek.n23.entity.Action;
+import org.ek.n23.entity.Precedes;
+import org.ek.n23.utility.Summary;
+import org.ek.n23.utility.TransactionBatches;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+
+/**
+ * This class writes an in-memory ActionGraph into the database.
+ * All Action nodes are created first, then all PRECEDES relationships,
+ * so the database is only touched in one sequential write pass.
+ */
+public class ActionGraphWriter {
+
+  private ActionGraphWriter() {}
+
+  // names of the phases that are timed in the summary
+  public static final String CREATE_NODES_PHASE = "Create Action Nodes";
+  public static final String CONNECT_NODES_PHASE = "Connect Action Nodes";
+  public static final String CONNECT_START_AND_END_PHASE =
+    "Connect Start And End Node";
+  public static final String WRITE_IN_BATCHES_PHASE =
+    "Write Action Nodes And Relationships";
+
+  // names of the batch infos in the summary
+  public static final String BATCHES_INFO = "Batches";
+  public static final String LARGEST_BATCH_INFO = "Largest Batch";
+  public static final String LAST_BATCH_INFO = "Last Batch";
+
+  /**
+   * This method creates the Action nodes and PRECEDES relationships
+   * of graph including an additional start and end node with duration 0.
+   * All starting nodes receive an incoming PRECEDES relationship from
+   * the start node, all nodes without a successor receive an outgoing
+   * PRECEDES relationship to the end node.
+   * All nodes carry the graph id of summary, the start and end node
+   * additionally carry the labels StartAction and EndAction.
+   * @param tx: transaction object
+   * @param graph: the generated graph
+   * @param summary: summary that the info about the created graph is added to
+   */
+  public static void write(Transaction tx, ActionGraph graph, Summary summary) {
+    int actionCount = graph.actionCount();
+    String graphId = summary.graphId;
+
+    // create start node, all Action nodes and end node in order of their names
+    long phaseStart = System.nanoTime();
+    Node startNode = Action.createNode(
+      tx,
+      graphId,
+      Action.transformToNodeName(0),
+      0
+    );
+    startNode.addLabel(Action.START_LABEL);
+    Node[] actionNodes = new Node[actionCount];
+    for (int i = 0; i < actionCount; i++) {
+      actionNodes[i] =
+        Action.createNode(
+          tx,
+          graphId,
+          ActionGraph.nameOf(i),
+          graph.duration(i)
+        );
+    }
+    Node endNode = Action.createNode(
+      tx,
+      graphId,
+      Action.transformToNodeName(actionCount + 1),
+      0
+    );
+    endNode.addLabel(Action.END_LABEL);
+    summary.addTiming(CREATE_NODES_PHASE, phaseStart);
+
+    // create the relationships between the Action nodes
+    phaseStart = System.nanoTime();
+    for (int i = 0; i < actionCount; i++) {
+      for (int j = 0; j < graph.successorCount(i); j++) {
+        Precedes.createRelationship(
+          actionNodes[i],
+          actionNodes[graph.successor(i, j)]
+        );
+      }
+    }
+    summary.addTiming(CONNECT_NODES_PHASE, phaseStart);
+
+    /* connect start to all starting nodes and
+     * all nodes without successors to the end node */
+    phaseStart = System.nanoTime();
+    for (int startingNode : graph.startingNodes()) {
+      Precedes.createRelationship(startNode, actionNodes[startingNode]);
+    }
+    for (int i = 0; i < actionCount; i++) {
+      if (graph.successorCount(i) == 0) {
+        Precedes.createRelationship(actionNodes[i], endNode);
+      }
+    }
+    summary.addTiming(CONNECT_START_AND_END_PHASE, phaseStart);
+
+    // add info about the created graph to summary
+    addGraphInfo(graph, summary);
+  }
+
+  /**
+   * This method writes the same graph as write() but commits the
+   * created nodes and relationships in batches of batchSize entities
+   * using separate transactions, so the transaction state stays small
+   * whatever the size of the graph is. Only the element ids of the nodes
+   * whose relationships are not all written yet are held in memory.
+   * The number of batches and the sizes of the largest and the last batch
+   * are added to summary.
+   * If writing fails, the batches committed before stay in the database.
+   * @param db: database to write the graph to
+   * @param graph: the generated graph
+   * @param batchSize: number of nodes and relationships per transaction
+   * @param summary: summary that the info about the created graph is added to
+   */
+  public static void writeInBatches(
+    GraphDatabaseService db,
+    ActionGraph graph,
+    long batchSize,
+    Summary summary
+  ) {
+    writeInBatches(db, graph, batchSize, summary, new WriteProgress());
+  }
+
+  /**
+   * This method works like writeInBatches above and additionally reports
+   * every written node and relationship to progress. If progress is
+   * cancelled, a CancellationException is thrown and the current batch
+   * is rolled back, the batches committed before stay in the database.
+   * @param db: database to write the graph to
+   * @param graph: the generated graph
+   * @param batchSize: number of nodes and relationships per transaction
+   * @param summary: summary that the info about the created graph is added to
+   * @param progress: progress that the written entities are counted in
+   */
+  public static void writeInBatches(
+    GraphDatabaseService db,
+    ActionGraph graph,
+    long batchSize,
+    Summary summary,
+    WriteProgress progress
+  ) {
+    int actionCount = graph.actionCount();
+    String graphId = summary.graphId;
+
+    /* the nodes are referenced by their element ids since the node
+     * objects become invalid when their transaction is committed.
+     * Position 0 is the start node, i + 1 the Action node with index i
+     * and actionCount + 1 the end node. Only the element ids of the nodes
+     * that still have relationships to nodes that are not written yet
+     * are kept, keyed by their position. */
+    Map<Integer, String> elementIds = new HashMap<>();
+
+    // positions of the kept nodes by the position of their last neighbour
+    Map<Integer, List<Integer>> expiring = new HashMap<>();
+
+    // the starting nodes in the order in which the Action nodes are written
+    int[] startingNodes = graph.startingNodes().clone();
+    Arrays.sort(startingNodes);
+    int nextStartingNode = 0;
+
+    try (TransactionBatches batches = new TransactionBatches(db, batchSize)) {
+      /* nodes and relationships are written together, every Action node
+       * is connected to its neighbours that have been written before it.
+       * The start and end node are neighbours of nodes anywhere in the
+       * graph, so they are written first. */
+      long phaseStart = System.nanoTime();
+      String startElementId = createNode(
+        batches,
+        progress,
+        graphId,
+        0,
+        0,
+        Action.START_LABEL
+      );
+      String endElementId = createNode(
+        batches,
+        progress,
+        graphId,
+        actionCount + 1,
+        0,
+        Action.END_LABEL
+      );
+
+      for (int i = 0; i < actionCount; i++) {
+        int position = i + 1;
+        String elementId = createNode(
+          batches,
+          progress,
+          graphId,
+          position,
+          graph.duration(i)
+        );
+
+        // the position of the last neighbour that is written after node i
+        int lastNeighbour = position;
+        for (int j = 0; j < graph.predecessorCount(i); j++) {
+          int predecessor = graph.predecessor(i, j);
+          if (predecessor < i) {
+            createRelationship(
+              batches,
+              progress,
+              elementIds.get(predecessor + 1),
+              elementId
+            );
+          } else {
+            lastNeighbour = Math.max(lastNeighbour, predecessor + 1);
+          }
+        }
+        for (int j = 0; j < graph.successorCount(i); j++) {
+          int successor = graph.successor(i, j);
+          if (successor < i) {
+            createRelationship(
+              batches,
+              progress,
+              elementId,
+              elementIds.get(successor + 1)
+            );
+          } else {
+            lastNeighbour = Math.max(lastNeighbour, successor + 1);
+          }
+        }
+
+        /* connect start to the node if it is a starting node and
+         * the node to the end node if it has no successors */
+        if (
+          nextStartingNode < startingNodes.length &&
+          startingNodes[nextStartingNode] == i
+        ) {
+          createRelationship(batches, progress, startElementId, elementId);
+          nextStartingNode++;
+        }
+        if (graph.successorCount(i) == 0) {
+          createRelationship(batches, progress, elementId, endElementId);
+        }
+
+        // keep the element id until the last neighbour has been written
+        if (lastNeighbour > position) {
+          elementIds.put(position, elementId);
+          expiring
+            .computeIfAbsent(lastNeighbour, k -> new ArrayList<>())
+            .add(position);
+        }
+        List<Integer> completed = expiring.remove(position);
+        if (completed != null) {
+          completed.forEach(elementIds::remove);
+        }
+      }
+      batches.finish();
+      summary.addTiming(WRITE_IN_BATCHES_PHASE, phaseStart);
+
+      // add info about the created graph and the batches to summary
+      addGraphInfo(graph, summary);
+      summary.addOtherInfo(BATCHES_INFO, batches.commits());
+      summary.addOtherInfo(LARGEST_BATCH_INFO, batches.largestBatch());
+      summary.addOtherInfo(LAST_BATCH_INFO, batches.lastBatch());
+    }
+  }
+
+  /* adds the number of Action nodes, starting nodes and
+   * PRECEDES relationships of graph to summary */
+  private static void addGraphInfo(ActionGraph graph, Summary summary) {
+    summary.addNodeInfo(
+      Action.LABEL_NAME + " (without start and end node)",
+      graph.actionCount()
+    );
+    summary.addOtherInfo(
+      "Starting Action Nodes",
+      graph.startingNodes().length
+    );
+    summary.addRelationshipInfo(Precedes.TYPE_NAME, graph.relationshipCount());
+  }
+
+  /* creates the Action node at position with the given additional labels
+   * and returns its element id */
+  private static String createNode(
+    TransactionBatches batches,
+    WriteProgress progress,
+    String graphId,
+    int position,
+    long duration,
+    Label... labels
+  ) {
+    Node node = Action.createNode(
+      batches.tx(),
+      graphId,
+      Action.transformToNodeName(position),
+      duration
+    );
+    for (Label label : labels) {
+      node.addLabel(label);
+    }
+    // the node object becomes invalid if the batch is committed
+    String elementId = node.getElementId();
+    batches.entityWritten();
+    progress.nodeWritten();
+    return elementId;
+  }
+
+  /* creates a PRECEDES relationship between two nodes given by their element ids */
+  private static void createRelationship(
+    TransactionBatches batches,
+    WriteProgress progress,
+    String startElementId,
+    String endElementId
+  ) {
+    Transaction tx = batches.tx();
+    Precedes.createRelationship(
+      tx.getNodeByElementId(startElementId),
+      tx.getNodeByElementId(endElementId)
+    );
+    batches.entityWritten();
+    progress.relationshipWritten();
+  }
+}
@@ -0,0 +1,341 @@
+package org.ek.n23.generator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import org.ek.n23.ConfigObject;
+import org.ek.n23.entity.Action;
+import org.ek.n23.entity.Precedes;
+import org.ek.n23.utility.CsvFileWriter;
+import org.ek.n23.utility.RandomNumbers;
+import org.ek.n23.utility.Summary;
+
+/**
+ * This class generates an Action graph without a database and streams it
+ * into two CSV files that can be loaded with neo4j-admin database import:
+ *
+ * neo4j-admin database import full --nodes=actions.csv
+ *   --relationships=precedes.csv neo4j
+ *
+ * The number of Action nodes and their durations are drawn from a
+ * Random(seed) in the same order as in Procedures.generateGraph, so the
+ * Action nodes of both are the same for the same seed and config.
+ * Like in the procedures, all nodes carry a new graph id and the start
+ * and end node the additional labels StartAction and EndAction.
+ *
+ * The PRECEDES relationships are generated in a single pass over the
+ * nodes, using a separate SplittableRandom(seed). Hence, the topology is
+ * different from the one of the procedures. Every node is only connected
+ * to successors among the next WINDOW_SIZE nodes, so only a ring buffer of
+ * that size has to be kept in memory and the memory used does not depend
+ * on the number of nodes. As all relationships lead to a node with a
+ * higher index, the graph is acyclic. The same rules as in the procedures
+ * apply otherwise: the number of outgoing relationships and starting nodes
+ * is taken from the config, every node but the starting nodes has an
+ * incoming relationship and starting nodes do not have any.
+ */
+public class CsvGraphExporter {
+
+  public static final String ACTIONS_FILE_NAME = "actions.csv";
+
+  public static final String PRECEDES_FILE_NAME = "precedes.csv";
+
+  // number of following nodes that a node can be connected to
+  public static final int WINDOW_SIZE = 1000;
+
+  private static final String USAGE =
+    "Usage: CsvGraphExporter <seed> <configName> <outputDirectory>";
+
+  private CsvGraphExporter() {}
+
+  /**
+   * Entry point for the command line, see USAGE.
+   * @param args: seed, name of a ConfigObject and output directory
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 3) {
+      throw new IllegalArgumentException(USAGE);
+    }
+    ConfigObject config = ConfigObject.getConfig(args[1]);
+    if (config == null) {
+      throw new IllegalArgumentException(
+        "There is no config object with that name"
+      );
+    }
+
+    Summary summary = export(
+      Long.parseLong(args[0]),
+      config,
+      Path.of(args[2])
+    );
+
+    System.out.println("nodes: " + summary.nodes);
+    System.out.println("relationships: " + summary.relationships);
+    System.out.println("other: " + summary.other);
+  }
+
+  /**
+   * This method generates an Action graph and writes it to the files
+   * ACTIONS_FILE_NAME and PRECEDES_FILE_NAME in directory. Existing files
+   * are overwritten. The start node has the name Action0, the end node
+   * the highest number.
+   * @param seed: seed that determines the graph
+   * @param config: ConfigObject with the ranges for the graph
+   * @param directory: directory the files are written to
+   * @return a summary of the written nodes and relationships. Counts
+   * above Integer.MAX_VALUE are capped.
+   */
+  public static Summary export(long seed, ConfigObject config, Path directory)
+    throws IOException {
+    Files.createDirectories(directory);
+    Summary summary = new Summary();
+    summary.seed = seed;
+    summary.graphId = UUID.randomUUID().toString();
+
+    int actionCount = writeActions(
+      new Random(seed),
+      config,
+      summary.graphId,
+      directory.resolve(ACTIONS_FILE_NAME)
+    );
+    summary.addNodeInfo(
+      Action.LABEL_NAME + " (without start and end node)",
+      actionCount
+    );
+
+    writePrecedes(
+      new SplittableRandom(seed),
+      config,
+      actionCount,
+      directory.resolve(PRECEDES_FILE_NAME),
+      summary
+    );
+    return summary;
+  }
+
+  /** This private function writes the start node, the Action nodes and
+   * the end node and returns the number of Action nodes.
+   */
+  private static int writeActions(
+    Random random,
+    ConfigObject config,
+    String graphId,
+    Path file
+  ) throws IOException {
+    int actionCount = (int) RandomNumbers.randomNumber(
+      random,
+      config.actionCount().min(),
+      config.actionCount().max()
+    );
+
+    try (CsvFileWriter writer = new CsvFileWriter(file)) {
+      writer.writeRow(
+        Action.NAME_KEY + ":ID",
+        Action.GRAPH_ID_KEY,
+        Action.DURATION_KEY + ":long",
+        ":LABEL"
+      );
+      String startLabels = Action.LABEL_NAME + ";" + Action.START_LABEL_NAME;
+      writeAction(writer, 0, graphId, 0, startLabels);
+      for (int i = 1; i <= actionCount; i++) {
+        long duration = RandomNumbers.randomNumber(
+          random,
+          config.actionDuration().min(),
+          config.actionDuration().max()
+        );
+        writeAction(writer, i, graphId, duration, Action.LABEL_NAME);
+      }
+      String endLabels = Action.LABEL_NAME + ";" + Action.END_LABEL_NAME;
+      writeAction(writer, actionCount + 1, graphId, 0, endLabels);
+    }
+    return actionCount;
+  }
+
+  private static void writeAction(
+    CsvFileWriter writer,
+    int number,
+    String graphId,
+    long duration,
+    String labels
+  ) throws IOException {
+    writer.writeField(Action.transformToNodeName(number));
+    writer.writeField(graphId);
+    writer.writeField(duration);
+    writer.writeField(labels);
+    writer.endRow();
+  }
+
+  /** This private function writes the PRECEDES relationships.
+   * The nodes are handled in the order of their index. Node i is the
+   * last node that can connect to node i + 1, so if node i + 1 has not
+   * received an incoming relationship yet and is not a starting node,
+   * it becomes one of the successors of node i.
+   * The indices used here are the ones of ActionGraph, i.e. 0 is Action1.
+   */
+  private static void writePrecedes(
+    SplittableRandom random,
+    ConfigObject config,
+    int actionCount,
+    Path file,
+    Summary summary
+  ) throws IOException {
+    int[] startingNodes = drawStartingNodes(random, config, actionCount);
+
+    /* hasPredecessor[j % length] tells whether node j has an incoming
+     * relationship. The slot of node i is cleared after node i has been
+     * handled and is then reused for node i + length. */
+    boolean[] hasPredecessor = new boolean[WINDOW_SIZE + 1];
+
+    int maxNumberOutgoingRels = config
+      .outgoingRelationsCount()
+      .max()
+      .intValue();
+    int[] successors = new int[Math.max(maxNumberOutgoingRels, 1)];
+    long relationshipCount = 0;
+    String endNodeName = Action.transformToNodeName(actionCount + 1);
+
+    try (CsvFileWriter writer = new CsvFileWriter(file)) {
+      writer.writeRow(":START_ID", ":END_ID", ":TYPE");
+
+      // connect start to all starting nodes
+      String startNodeName = Action.transformToNodeName(0);
+      for (int startingNode : startingNodes) {
+        writePrecedes(writer, startNodeName, ActionGraph.nameOf(startingNode));
+      }
+
+      for (int i = 0; i < actionCount; i++) {
+        int successorCount = drawSuccessors(
+          random,
+          config,
+          i,
+          actionCount,
+          startingNodes,
+          hasPredecessor,
+          successors
+        );
+
+        String name = ActionGraph.nameOf(i);
+        for (int j = 0; j < successorCount; j++) {
+          hasPredecessor[successors[j] % hasPredecessor.length] = true;
+          writePrecedes(writer, name, ActionGraph.nameOf(successors[j]));
+        }
+        relationshipCount += successorCount;
+
+        // connect nodes without successors to the end node
+        if (successorCount == 0) {
+          writePrecedes(writer, name, endNodeName);
+        }
+
+        hasPredecessor[i % hasPredecessor.length] = false;
+      }
+    }
+
+    summary.addRelationshipInfo(
+      Precedes.TYPE_NAME,
+      (int) Math.min(relationshipCount, Integer.MAX_VALUE)
+    );
+    summary.addOtherInfo("Starting Action Nodes", startingNodes.length);
+  }
+
+  /** This private function draws the sorted starting nodes.
+   * Node 0 cannot receive an incoming relationship and is always one.
+   */
+  private static int[] drawStartingNodes(
+    SplittableRandom random,
+    ConfigObject config,
+    int actionCount
+  ) {
+    if (actionCount == 0) {
+      return new int[0];
+    }
+    long numberStartingNodes = RandomNumbers.randomNumber(
+      random,
+      config.startingNodesCount().min(),
+      config.startingNodesCount().max()
+    );
+    int[] startingNodes = new int[(int) Math.max(numberStartingNodes, 1)];
+    for (int i = 1; i < startingNodes.length; i++) {
+      startingNodes[i] = random.nextInt(actionCount);
+    }
+    return Arrays.stream(startingNodes).distinct().sorted().toArray();
+  }
+
+  /** This private function draws the successors of node into successors
+   * and returns their number. Successors are distinct nodes among the
+   * next WINDOW_SIZE nodes that are not starting nodes.
+   */
+  private static int drawSuccessors(
+    SplittableRandom random,
+    ConfigObject config,
+    int node,
+    int actionCount,
+    int[] startingNodes,
+    boolean[] hasPredecessor,
+    int[] successors
+  ) {
+    int numberOutgoingRels = (int) RandomNumbers.randomNumber(
+      random,
+      config.outgoingRelationsCount().min(),
+      config.outgoingRelationsCount().max()
+    );
+    int lastCandidate = (int) Math.min(
+      (long) node + WINDOW_SIZE,
+      actionCount - 1L
+    );
+    int count = 0;
+
+    // node + 1 has no other chance to get an incoming relationship
+    int next = node + 1;
+    if (
+      next <= lastCandidate &&
+      !hasPredecessor[next % hasPredecessor.length] &&
+      Arrays.binarySearch(startingNodes, next) < 0
+    ) {
+      successors[count++] = next;
+    }
+
+    /* pick random candidates and reject starting nodes and
+     * duplicates. The number of attempts is limited since the
+     * window may not contain enough possible successors. */
+    int windowSize = lastCandidate - node;
+    int maxAttempts = windowSize > 0 ? 4 * successors.length : 0;
+    for (
+      int attempt = 0;
+      count < numberOutgoingRels && attempt < maxAttempts;
+      attempt++
+    ) {
+      int candidate = node + 1 + random.nextInt(windowSize);
+      if (
+        Arrays.binarySearch(startingNodes, candidate) < 0 &&
+        !contains(successors, count, candidate)
+      ) {
+        successors[count++] = candidate;
+      }
+    }
+    return count;
+  }
+
+  private static boolean contains(int[] values, int count, int value) {
+    for (int i = 0; i < count; i++) {
+      if (values[i] == value) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void writePrecedes(
+    CsvFileWriter writer,
+    String startName,
+    String endName
+  ) throws IOException {
+    writer.writeField(startName);
+    writer.writeField(endName);
+    writer.writeField(Precedes.TYPE_NAME);
+    writer.endRow();
+  }
+}
@@ -0,0 +1,196 @@
+package org.ek.n23.generator;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import org.ek.n23.ConfigObject;
+import org.ek.n23.utility.RandomNumbers;
+
+/**
+ * This class generates the topology of an Action graph on several cores.
+ *
+ * The Action nodes are split into consecutive partitions, one per worker.
+ * Every partition is generated as an independent sub-DAG by the
+ * ActionGraphGenerator with its own SplittableRandom. The SplittableRandoms
+ * are split off a root generator in the order of the partitions before
+ * any work is started, so the result does not depend on the order in which
+ * the workers finish. The same seed and number of workers always produce
+ * the same graph.
+ *
+ * The starting nodes of the first partition are the starting nodes of the
+ * whole graph. The starting nodes of every further partition receive an
+ * incoming PRECEDES edge from a random node of an earlier partition instead.
+ * These edges only lead from lower to higher partitions, so stitching the
+ * acyclic sub-DAGs together cannot create a cycle.
+ */
+public class ParallelActionGraphGenerator {
+
+  private static final int NO_NODE = -1;
+
+  // number of random picks of a stitching predecessor before all candidates are counted
+  private static final int SAMPLING_ATTEMPTS = 32;
+
+  private ParallelActionGraphGenerator() {}
+
+  /**
+   * This method generates the topology of an Action graph
+   * @param seed: seed that determines the graph together with workers
+   * @param config: ConfigObject with the ranges for the graph
+   * @param workers: number of partitions, the number of threads is
+   * limited by the number of partitions and by the number of processors
+   * @return the generated ActionGraph
+   */
+  public static ActionGraph generate(
+    long seed,
+    ConfigObject config,
+    int workers
+  ) {
+    if (workers < 1) {
+      throw new IllegalArgumentException("workers must be at least 1");
+    }
+
+    SplittableRandom random = new SplittableRandom(seed);
+
+    // draw the number of Action nodes and split them into partitions
+    int actionCount = (int) RandomNumbers.randomNumber(
+      random,
+      config.actionCount().min(),
+      config.actionCount().max()
+    );
+    int partitions = Math.max(1, Math.min(workers, actionCount));
+    int[] offsets = new int[partitions + 1];
+    for (int p = 0; p < partitions; p++) {
+      int size =
+        actionCount / partitions + (p < actionCount % partitions ? 1 : 0);
+      offsets[p + 1] = offsets[p] + size;
+    }
+
+    /* split off one generator per partition in a fixed order
+     * before the partitions are handed to the workers */
+    SplittableRandom[] partitionRandoms = new SplittableRandom[partitions];
+    for (int p = 0; p < partitions; p++) {
+      partitionRandoms[p] = random.split();
+    }
+
+    /* generate the sub-DAGs in parallel. The graph only depends on the
+     * partitions, so limiting the threads does not change it */
+    ActionGraph[] subGraphs = new ActionGraph[partitions];
+    ForkJoinPool pool = new ForkJoinPool(
+      Math.min(partitions, Runtime.getRuntime().availableProcessors())
+    );
+    try {
+      @SuppressWarnings("unchecked")
+      ForkJoinTask<ActionGraph>[] tasks = new ForkJoinTask[partitions];
+      for (int p = 0; p < partitions; p++) {
+        SplittableRandom partitionRandom = partitionRandoms[p];
+        int size = offsets[p + 1] - offsets[p];
+        tasks[p] =
+          pool.submit(() ->
+            ActionGraphGenerator.generate(partitionRandom, config, size)
+          );
+      }
+      for (int p = 0; p < partitions; p++) {
+        subGraphs[p] = tasks[p].join();
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    ActionGraph graph = merge(subGraphs, offsets, actionCount);
+    stitch(random, config, graph, subGraphs, offsets);
+    return graph;
+  }
+
+  /** This private function copies the durations and edges of all
+   * sub-DAGs into one graph, shifting the indices of every partition
+   * by its offset. The starting nodes of the first partition become
+   * the starting nodes of the graph.
+   */
+  private static ActionGraph merge(
+    ActionGraph[] subGraphs,
+    int[] offsets,
+    int actionCount
+  ) {
+    long[] durations = new long[actionCount];
+    for (int p = 0; p < subGraphs.length; p++) {
+      for (int i = 0; i < subGraphs[p].actionCount(); i++) {
+        durations[offsets[p] + i] = subGraphs[p].duration(i);
+      }
+    }
+
+    ActionGraph graph = new ActionGraph(durations);
+    for (int p = 0; p < subGraphs.length; p++) {
+      ActionGraph subGraph = subGraphs[p];
+      int offset = offsets[p];
+      for (int i = 0; i < subGraph.actionCount(); i++) {
+        for (int j = 0; j < subGraph.successorCount(i); j++) {
+          graph.addEdge(offset + i, offset + subGraph.successor(i, j));
+        }
+      }
+    }
+    graph.setStartingNodes(subGraphs[0].startingNodes().clone());
+    return graph;
+  }
+
+  /** This private function connects the starting nodes of every partition
+   * but the first to a random node of the partitions before it.
+   */
+  private static void stitch(
+    SplittableRandom random,
+    ConfigObject config,
+    ActionGraph graph,
+    ActionGraph[] subGraphs,
+    int[] offsets
+  ) {
+    long maxNumberOutgoingRels = config.outgoingRelationsCount().max();
+    for (int p = 1; p < subGraphs.length; p++) {
+      for (int startingNode : subGraphs[p].startingNodes()) {
+        int fromNode = randomStitchingPredecessor(
+          random,
+          graph,
+          offsets[p],
+          maxNumberOutgoingRels
+        );
+        graph.addEdge(fromNode, offsets[p] + startingNode);
+      }
+    }
+  }
+
+  /** This private function returns a random node with an index below
+   * bound that can take another outgoing edge without exceeding
+   * maxNumberRels. Only if there is no such node, any node below bound
+   * is returned.
+   */
+  private static int randomStitchingPredecessor(
+    SplittableRandom random,
+    ActionGraph graph,
+    int bound,
+    long maxNumberRels
+  ) {
+    for (int attempt = 0; attempt < SAMPLING_ATTEMPTS; attempt++) {
+      int candidate = random.nextInt(bound);
+      if (graph.successorCount(candidate) < maxNumberRels) {
+        return candidate;
+      }
+    }
+
+    // count the nodes with room for another edge and pick one of them
+    int possibleCount = 0;
+    for (int i = 0; i < bound; i++) {
+      if (graph.successorCount(i) < maxNumberRels) {
+        possibleCount++;
+      }
+    }
+    if (possibleCount == 0) {
+      return random.nextInt(bound);
+    }
+
+    int position = random.nextInt(possibleCount);
+    for (int i = 0; i < bound; i++) {
+      if (graph.successorCount(i) < maxNumberRels && position-- == 0) {
+        return i;
+      }
+    }
+    return NO_NODE;
+  }
+}
@@ -0,0 +1,143 @@
+package org.ek.n23.generator;
+
+import java.util.Arrays;
+
+/**
+ * This class answers the question whether a new edge would close a cycle
+ * while an ActionGraph is being generated.
+ *
+ * Every node carries a topological level and for every edge the level of
+ * the end node is higher than the level of the start node. The levels are
+ * updated incrementally whenever an edge is added. A node can only reach
+ * nodes with a higher level, so most cycle checks are answered by comparing
+ * two levels. Only if the end node of the new edge has a lower level than
+ * its start node, the descendants of the end node are searched, and the
+ * search never leaves the nodes below the level of the start node.
+ *
+ * In contrast to keeping the complete set of ancestors for every node,
+ * the memory needed grows linearly with the number of nodes.
+ */
+public class ReachabilityIndex {
+
+  private final ActionGraph graph;
+
+  private final int[] levels;
+
+  // stack and markers for the searches, reused for every search
+  private int[] nodesToCheck;
+  private final int[] visitedInSearch;
+  private int search;
+
+  public ReachabilityIndex(ActionGraph graph) {
+    this.graph = graph;
+    this.levels = new int[graph.actionCount()];
+    this.nodesToCheck = new int[Math.max(graph.actionCount(), 1)];
+    this.visitedInSearch = new int[graph.actionCount()];
+  }
+
+  /**
+   * This method checks whether an edge from "from" to "to" would create a cycle,
+   * i.e. whether "to" is "from" itself or "from" can be reached from "to".
+   * @param from: index of the start node of the edge
+   * @param to: index of the end node of the edge
+   * @return true if the edge would close a cycle and false otherwise.
+   */
+  public boolean wouldCreateCycle(int from, int to) {
+    if (from == to) {
+      return true;
+    }
+
+    // all nodes that can be reached from "to" have a higher level than "to"
+    int maxLevel = levels[from];
+    if (levels[to] >= maxLevel) {
+      return false;
+    }
+
+    /* search the descendants of "to" for "from". Nodes with a level
+     * that is not lower than the level of "from" cannot lead to it. */
+    search++;
+    int tail = 0;
+    nodesToCheck[tail++] = to;
+    visitedInSearch[to] = search;
+    while (tail > 0) {
+      int node = nodesToCheck[--tail];
+      for (int i = 0; i < graph.successorCount(node); i++) {
+        int successor = graph.successor(node, i);
+        if (successor == from) {
+          return true;
+        }
+        if (
+          visitedInSearch[successor] != search && levels[successor] < maxLevel
+        ) {
+          visitedInSearch[successor] = search;
+          nodesToCheck[tail++] = successor;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * This method marks the node itself and all nodes from which it can
+   * be reached, see isMarkedAncestor. It walks all ancestors of the node
+   * and should only be used if a lot of cycle checks are needed for the
+   * same node. The marks are valid until the next search or walk.
+   * @param node: index of the node
+   */
+  public void markAncestors(int node) {
+    search++;
+    int tail = 0;
+    nodesToCheck[tail++] = node;
+    visitedInSearch[node] = search;
+    while (tail > 0) {
+      int currentNode = nodesToCheck[--tail];
+      for (int i = 0; i < graph.predecessorCount(currentNode); i++) {
+        int predecessor = graph.predecessor(currentNode, i);
+        if (visitedInSearch[predecessor] != search) {
+          visitedInSearch[predecessor] = search;
+          nodesToCheck[tail++] = predecessor;
+        }
+      }
+    }
+  }
+
+  // checks whether node has been marked by the last call of markAncestors
+  public boolean isMarkedAncestor(int node) {
+    return visitedInSearch[node] == search;
+  }
+
+  /**
+   * This method adds an edge to the graph and raises the levels
+   * of the end node and its descendants where necessary.
+   * The edge must not create a cycle.
+   * @param from: index of the start node of the edge
+   * @param to: index of the end node of the edge
+   */
+  public void addEdge(int from, int to) {
+    graph.addEdge(from, to);
+
+    if (levels[to] > levels[from]) {
+      return;
+    }
+
+    /* push the levels down the descendants of "to" until every
+     * edge leads to a higher level again. A node may be raised more
+     * than once, so the stack grows if needed. */
+    levels[to] = levels[from] + 1;
+    int tail = 0;
+    nodesToCheck[tail++] = to;
+    while (tail > 0) {
+      int node = nodesToCheck[--tail];
+      for (int i = 0; i < graph.successorCount(node); i++) {
+        int successor = graph.successor(node, i);
+        if (levels[successor] <= levels[node]) {
+          levels[successor] = levels[node] + 1;
+          if (tail == nodesToCheck.length) {
+            nodesToCheck = Arrays.copyOf(nodesToCheck, tail * 2);
+          }
+          nodesToCheck[tail++] = successor;
+        }
+      }
+    }
+  }
+}
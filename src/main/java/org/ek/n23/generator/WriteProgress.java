@@ -0,0 +1,58 @@
+package org.ek.n23.generator;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class tracks how many nodes and relationships have been written
+ * by the ActionGraphWriter so far and lets another thread cancel the write.
+ * The counters are written by the writing thread only and can be read
+ * from any thread while the write is running.
+ */
+public class WriteProgress {
+
+  private final AtomicLong nodesWritten = new AtomicLong();
+
+  private final AtomicLong relationshipsWritten = new AtomicLong();
+
+  private volatile boolean cancelled;
+
+  // region getters
+
+  public long nodesWritten() {
+    return nodesWritten.get();
+  }
+
+  public long relationshipsWritten() {
+    return relationshipsWritten.get();
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  // endregion
+
+  // requests the write to stop before the next node or relationship
+  public void cancel() {
+    cancelled = true;
+  }
+
+  // counts a written node and stops the write if it has been cancelled
+  void nodeWritten() {
+    nodesWritten.incrementAndGet();
+    throwIfCancelled();
+  }
+
+  // counts a written relationship and stops the write if it has been cancelled
+  void relationshipWritten() {
+    relationshipsWritten.incrementAndGet();
+    throwIfCancelled();
+  }
+
+  private void throwIfCancelled() {
+    if (cancelled) {
+      throw new CancellationException("The write has been cancelled");
+    }
+  }
+}
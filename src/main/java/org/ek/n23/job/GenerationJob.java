@@ -0,0 +1,159 @@
+package org.ek.n23.job;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import org.ek.n23.generator.WriteProgress;
+import org.ek.n23.utility.Summary;
+
+/**
+ * This class is a graph generation that runs in the background.
+ * The generation itself is given as a function that writes the graph,
+ * reports its progress to the WriteProgress it receives and returns the
+ * Summary of the run. The state of the job can be read from any thread.
+ */
+public class GenerationJob implements Runnable {
+
+  public enum Status {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED,
+    CANCELLED;
+
+    public boolean isFinished() {
+      return this != QUEUED && this != RUNNING;
+    }
+  }
+
+  private final long id;
+
+  private final long seed;
+
+  private final String configName;
+
+  private final Function<WriteProgress, Summary> generation;
+
+  private final WriteProgress progress = new WriteProgress();
+
+  private volatile Status status = Status.QUEUED;
+
+  private volatile long startNanos;
+
+  private volatile long finishNanos;
+
+  private volatile Summary summary;
+
+  private volatile String error;
+
+  private Future<?> future;
+
+  GenerationJob(
+    long id,
+    long seed,
+    String configName,
+    Function<WriteProgress, Summary> generation
+  ) {
+    this.id = id;
+    this.seed = seed;
+    this.configName = configName;
+    this.generation = generation;
+  }
+
+  // region getters
+
+  public long id() {
+    return id;
+  }
+
+  public long seed() {
+    return seed;
+  }
+
+  public String configName() {
+    return configName;
+  }
+
+  public Status status() {
+    return status;
+  }
+
+  public WriteProgress progress() {
+    return progress;
+  }
+
+  // returns the summary of the generation or null if it has not succeeded
+  public Summary summary() {
+    return summary;
+  }
+
+  // returns the error message or null if the generation has not failed
+  public String error() {
+    return error;
+  }
+
+  // returns the milliseconds the job has been running so far or has run in total
+  public long elapsedMillis() {
+    if (status == Status.QUEUED || startNanos == 0) {
+      return 0;
+    }
+    long end = status.isFinished() ? finishNanos : System.nanoTime();
+    return (end - startNanos) / 1_000_000;
+  }
+
+  // endregion
+
+  @Override
+  public void run() {
+    synchronized (this) {
+      if (status != Status.QUEUED) {
+        return;
+      }
+      startNanos = System.nanoTime();
+      status = Status.RUNNING;
+    }
+
+    // an Error is passed on, but the job must not stay RUNNING
+    Status finalStatus = Status.FAILED;
+    try {
+      summary = generation.apply(progress);
+      finalStatus = Status.SUCCEEDED;
+    } catch (CancellationException e) {
+      finalStatus = Status.CANCELLED;
+    } catch (RuntimeException e) {
+      error = e.getMessage() == null ? e.toString() : e.getMessage();
+    } catch (Error e) {
+      error = e.toString();
+      throw e;
+    } finally {
+      finishNanos = System.nanoTime();
+      status = finalStatus;
+    }
+  }
+
+  /**
+   * This method cancels the job. A queued job does not start anymore,
+   * a running job stops before writing the next node or relationship.
+   * The batches committed before stay in the database.
+   * @return false if the job had already finished and true otherwise.
+   */
+  public synchronized boolean cancel() {
+    if (status.isFinished()) {
+      return false;
+    }
+    progress.cancel();
+    if (status == Status.QUEUED) {
+      if (future != null) {
+        future.cancel(false);
+      }
+      startNanos = System.nanoTime();
+      finishNanos = startNanos;
+      status = Status.CANCELLED;
+    }
+    return true;
+  }
+
+  synchronized void setFuture(Future<?> future) {
+    this.future = future;
+  }
+}
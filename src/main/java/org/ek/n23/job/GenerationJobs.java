@@ -0,0 +1,170 @@
+package org.ek.n23.job;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.ek.n23.generator.WriteProgress;
+import org.ek.n23.utility.Summary;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+
+/**
+ * This class runs GenerationJobs of one database in the background and
+ * keeps track of them. At most MAX_RUNNING_JOBS jobs run at the same time,
+ * further jobs wait in a queue. The most recent JOB_HISTORY_SIZE finished
+ * jobs are kept, older finished jobs are dropped. Queued and running jobs
+ * are always kept.
+ *
+ * Neo4j starts and stops an instance together with its database, see
+ * GenerationJobsExtensionFactory. The threads only exist while the
+ * database is started. When it is stopped, all unfinished jobs are
+ * cancelled and the threads are shut down.
+ */
+public class GenerationJobs extends LifecycleAdapter {
+
+  protected static final String NOT_STARTED =
+    "The generation jobs of database '%s' have not been started";
+
+  private static final int MAX_RUNNING_JOBS = 2;
+
+  private static final int JOB_HISTORY_SIZE = 100;
+
+  // the started instances by the name of their database
+  private static final Map<String, GenerationJobs> started =
+    new ConcurrentHashMap<>();
+
+  private final GraphDatabaseService db;
+
+  private final AtomicLong lastJobId = new AtomicLong();
+
+  // all kept jobs in the order of their ids
+  private final Map<Long, GenerationJob> jobs = new LinkedHashMap<>();
+
+  private ExecutorService executor;
+
+  public GenerationJobs(GraphDatabaseService db) {
+    this.db = db;
+  }
+
+  /**
+   * This method returns the generation jobs of a database
+   * @param db: the database the jobs write to
+   * @return the started instance of the database
+   */
+  public static GenerationJobs of(GraphDatabaseService db) {
+    GenerationJobs generationJobs = started.get(db.databaseName());
+    if (generationJobs == null) {
+      throw new IllegalStateException(
+        String.format(NOT_STARTED, db.databaseName())
+      );
+    }
+    return generationJobs;
+  }
+
+  // region lifecycle
+
+  @Override
+  public void start() {
+    synchronized (jobs) {
+      /* the threads are daemon threads, so that running jobs do
+       * not keep the JVM from shutting down */
+      executor =
+        Executors.newFixedThreadPool(
+          MAX_RUNNING_JOBS,
+          runnable -> {
+            Thread thread = new Thread(runnable, "n23-generation-job");
+            thread.setDaemon(true);
+            return thread;
+          }
+        );
+    }
+    started.put(db.databaseName(), this);
+  }
+
+  @Override
+  public void stop() {
+    started.remove(db.databaseName(), this);
+    synchronized (jobs) {
+      if (executor == null) {
+        return;
+      }
+      // running jobs stop before writing the next node or relationship
+      for (GenerationJob job : jobs.values()) {
+        job.cancel();
+      }
+      executor.shutdownNow();
+      executor = null;
+    }
+  }
+
+  // endregion
+
+  /**
+   * This method queues a new generation job.
+   * @param seed: seed of the generated graph
+   * @param configName: name of the ConfigObject of the generated graph
+   * @param generation: function that generates the graph, see GenerationJob
+   * @return the queued job
+   */
+  public GenerationJob submit(
+    long seed,
+    String configName,
+    Function<WriteProgress, Summary> generation
+  ) {
+    GenerationJob job = new GenerationJob(
+      lastJobId.incrementAndGet(),
+      seed,
+      configName,
+      generation
+    );
+    synchronized (jobs) {
+      if (executor == null) {
+        throw new IllegalStateException(
+          String.format(NOT_STARTED, db.databaseName())
+        );
+      }
+      jobs.put(job.id(), job);
+      dropOldJobs();
+      job.setFuture(executor.submit(job));
+    }
+    return job;
+  }
+
+  // returns the job with jobId or null if it is not kept anymore
+  public GenerationJob get(long jobId) {
+    synchronized (jobs) {
+      return jobs.get(jobId);
+    }
+  }
+
+  // returns all kept jobs in the order of their ids
+  public List<GenerationJob> list() {
+    synchronized (jobs) {
+      return new ArrayList<>(jobs.values());
+    }
+  }
+
+  /* removes the oldest finished jobs until at most
+   * JOB_HISTORY_SIZE finished jobs are left */
+  private void dropOldJobs() {
+    long finishedJobs = jobs
+      .values()
+      .stream()
+      .filter(job -> job.status().isFinished())
+      .count();
+    Iterator<GenerationJob> it = jobs.values().iterator();
+    while (finishedJobs > JOB_HISTORY_SIZE && it.hasNext()) {
+      if (it.next().status().isFinished()) {
+        it.remove();
+        finishedJobs--;
+      }
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package org.ek.n23.utility;
+
+import java.util.Map;
+import org.neo4j.graphdb.Node;
+
+/**
+ * This Object is an Output object for the simulateSchedule procedure.
+ * It contains one action, the share of the simulated projects in which it
+ * is critical and, the same for every action, the number of simulated
+ * projects, their mean duration and the percentiles of their durations,
+ * e.g. "p90" is the duration that 90 percent of them do not exceed.
+ *
+ * You obtain the output by using the following Cypher query:
+ * MATCH (s:Action {name:'Start'})
+ * CALL org.ek.n23.simulateSchedule(s, 10000)
+ * YIELD name, criticality, percentiles
+ * RETURN name, criticality, percentiles ORDER BY criticality DESC
+ */
+@SuppressWarnings("java:S1104") // complains about there being public non static non final fields and no accessors. But Neo4j needs those in its wrapper objects
+public class ActionCriticality {
+
+  public static final String NODE_NAME = "node";
+  public static final String NAME_NAME = "name";
+  public static final String CRITICALITY_NAME = "criticality";
+  public static final String ITERATIONS_NAME = "iterations";
+  public static final String MEAN_DURATION_NAME = "meanDuration";
+  public static final String PERCENTILES_MAP = "percentiles";
+
+  /* The name of these public fields must always be the same as the static Strings above
+   * These strings are needed in the cypher to get to the content of the returned values */
+  public Node node;
+  public String name;
+  public double criticality;
+  public long iterations;
+  public double meanDuration;
+  public Map<String, Double> percentiles;
+
+  public ActionCriticality(
+    Node node,
+    String name,
+    double criticality,
+    long iterations,
+    double meanDuration,
+    Map<String, Double> percentiles
+  ) {
+    this.node = node;
+    this.name = name;
+    this.criticality = criticality;
+    this.iterations = iterations;
+    this.meanDuration = meanDuration;
+    this.percentiles = percentiles;
+  }
+}
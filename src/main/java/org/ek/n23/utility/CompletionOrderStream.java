@@ -0,0 +1,80 @@
+package org.ek.n23.utility;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * This class runs a list of tasks on a bounded number of threads and
+ * returns their results as a Stream in the order in which the tasks finish.
+ * The tasks are started right away, the stream blocks until the next
+ * task has finished. If a task fails, its exception is thrown when its
+ * result is taken from the stream. Closing the stream interrupts the
+ * tasks that are still running and drops the ones that have not started.
+ *
+ * A procedure can return the stream directly, Neo4j sends every result
+ * to the client as soon as it is available and closes the stream at the end.
+ */
+public class CompletionOrderStream {
+
+  private CompletionOrderStream() {}
+
+  /**
+   * This method starts the tasks and returns the stream of their results
+   * @param tasks: tasks to run
+   * @param threads: maximum number of tasks running at the same time
+   * @param threadName: name of the threads that run the tasks
+   * @return the results of the tasks in the order in which they finish
+   */
+  public static <T> Stream<T> of(
+    List<Callable<T>> tasks,
+    int threads,
+    String threadName
+  ) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("threads must be at least 1");
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(
+      Math.max(1, Math.min(threads, tasks.size())),
+      runnable -> {
+        Thread thread = new Thread(runnable, threadName);
+        thread.setDaemon(true);
+        return thread;
+      }
+    );
+    CompletionService<T> completionService = new ExecutorCompletionService<>(
+      executor
+    );
+    for (Callable<T> task : tasks) {
+      completionService.submit(task);
+    }
+    // no more tasks are submitted, the threads end after the last one
+    executor.shutdown();
+
+    return Stream
+      .generate(() -> takeNext(completionService))
+      .limit(tasks.size())
+      .onClose(executor::shutdownNow);
+  }
+
+  /* waits for the next task to finish and returns its result */
+  private static <T> T takeNext(CompletionService<T> completionService) {
+    try {
+      return completionService.take().get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for tasks", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+}
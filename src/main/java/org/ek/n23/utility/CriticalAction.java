@@ -0,0 +1,52 @@
+package org.ek.n23.utility;
+
+import org.neo4j.graphdb.Node;
+
+/**
+ * This Object is an Output object for the criticalPath procedure.
+ * It contains one action of the critical chain, its position in the chain,
+ * its earliest start and finish and the duration of the project, i.e. the
+ * earliest finish of the end node. The actions are returned in the order
+ * of the chain from the start to the end node.
+ *
+ * You obtain the output by using the following Cypher query:
+ * MATCH (s:Action {name:'Start'}), (e:Action {name:'End'})
+ * CALL org.ek.n23.criticalPath(s, e)
+ * YIELD position, name, earliestStart, earliestFinish, projectDuration
+ * RETURN position, name, earliestStart, earliestFinish, projectDuration
+ */
+@SuppressWarnings("java:S1104") // complains about there being public non static non final fields and no accessors. But Neo4j needs those in its wrapper objects
+public class CriticalAction {
+
+  public static final String POSITION_NAME = "position";
+  public static final String NODE_NAME = "node";
+  public static final String NAME_NAME = "name";
+  public static final String EARLIEST_START_NAME = "earliestStart";
+  public static final String EARLIEST_FINISH_NAME = "earliestFinish";
+  public static final String PROJECT_DURATION_NAME = "projectDuration";
+
+  /* The name of these public fields must always be the same as the static Strings above
+   * These strings are needed in the cypher to get to the content of the returned values */
+  public long position;
+  public Node node;
+  public String name;
+  public long earliestStart;
+  public long earliestFinish;
+  public long projectDuration;
+
+  public CriticalAction(
+    long position,
+    Node node,
+    String name,
+    long earliestStart,
+    long earliestFinish,
+    long projectDuration
+  ) {
+    this.position = position;
+    this.node = node;
+    this.name = name;
+    this.earliestStart = earliestStart;
+    this.earliestFinish = earliestFinish;
+    this.projectDuration = projectDuration;
+  }
+}
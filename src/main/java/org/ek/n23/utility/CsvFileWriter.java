@@ -0,0 +1,117 @@
+package org.ek.n23.utility;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class writes a CSV file through a FileChannel.
+ * Rows are collected in a direct ByteBuffer that is written to the channel
+ * whenever it is full, so the memory used does not depend on the size
+ * of the file.
+ *
+ * Fields are written as they are. Values that contain the delimiter,
+ * quotes or line breaks are not escaped.
+ */
+public class CsvFileWriter implements AutoCloseable {
+
+  private static final int BUFFER_SIZE = 1 << 20;
+
+  private static final byte DELIMITER = ',';
+
+  private static final byte LINE_BREAK = '\n';
+
+  private final FileChannel channel;
+
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+  // true as long as no field has been written to the current row
+  private boolean rowStart = true;
+
+  private long rowCount;
+
+  public CsvFileWriter(Path file) throws IOException {
+    this.channel =
+      FileChannel.open(
+        file,
+        StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.WRITE
+      );
+  }
+
+  // returns the number of rows written including the header
+  public long rowCount() {
+    return rowCount;
+  }
+
+  // writes a whole row of String fields, e.g. a header
+  public void writeRow(String... fields) throws IOException {
+    for (String field : fields) {
+      writeField(field);
+    }
+    endRow();
+  }
+
+  public void writeField(String field) throws IOException {
+    startField();
+    byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+    if (buffer.remaining() < bytes.length) {
+      flush();
+    }
+    if (bytes.length > buffer.capacity()) {
+      ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+      while (wrapped.hasRemaining()) {
+        channel.write(wrapped);
+      }
+    } else {
+      buffer.put(bytes);
+    }
+  }
+
+  public void writeField(long field) throws IOException {
+    writeField(Long.toString(field));
+  }
+
+  public void endRow() throws IOException {
+    put(LINE_BREAK);
+    rowStart = true;
+    rowCount++;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      channel.close();
+    }
+  }
+
+  /* writes the delimiter in front of every field but the first one of a row */
+  private void startField() throws IOException {
+    if (!rowStart) {
+      put(DELIMITER);
+    }
+    rowStart = false;
+  }
+
+  private void put(byte b) throws IOException {
+    if (!buffer.hasRemaining()) {
+      flush();
+    }
+    buffer.put(b);
+  }
+
+  // writes the content of the buffer to the channel and empties the buffer
+  private void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+}
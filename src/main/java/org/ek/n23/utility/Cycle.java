@@ -0,0 +1,40 @@
+package org.ek.n23.utility;
+
+import java.util.List;
+import org.neo4j.graphdb.Node;
+
+/**
+ * This Object is an Output object for the findCycles procedure.
+ * It contains one cycle of PRECEDES relationships, given by the names of
+ * its actions and the actions themselves. The first action is repeated
+ * at the end. The size is the number of actions that are connected by
+ * this and other cycles, all of them have to be looked at to resolve it.
+ *
+ * You obtain the output by using the following Cypher query:
+ * MATCH (s:Action {name:'Start'})
+ * CALL org.ek.n23.findCycles(s)
+ * YIELD cycle, size, names
+ * RETURN cycle, size, names
+ */
+@SuppressWarnings("java:S1104") // complains about there being public non static non final fields and no accessors. But Neo4j needs those in its wrapper objects
+public class Cycle {
+
+  public static final String CYCLE_NAME = "cycle";
+  public static final String SIZE_NAME = "size";
+  public static final String NAMES_NAME = "names";
+  public static final String NODES_NAME = "nodes";
+
+  /* The name of these public fields must always be the same as the static Strings above
+   * These strings are needed in the cypher to get to the content of the returned values */
+  public long cycle;
+  public long size;
+  public List<String> names;
+  public List<Node> nodes;
+
+  public Cycle(long cycle, long size, List<String> names, List<Node> nodes) {
+    this.cycle = cycle;
+    this.size = size;
+    this.names = names;
+    this.nodes = nodes;
+  }
+}
@@ -0,0 +1,33 @@
+package org.ek.n23.utility;
+
+import org.neo4j.graphdb.Node;
+
+/**
+ * This Object is an Output object for the {@link findGraph} procedure.
+ * It contains the start and the end node of a generated graph, which are
+ * the nodes to pass to forwardPath and backwardPath.
+ *
+ * You obtain the output by using the following Cypher query:
+ * CALL org.ek.n23.findGraph($graphId)
+ * YIELD start, end
+ * RETURN start, end
+ */
+@SuppressWarnings("java:S1104") // complains about there being public non static non final fields and no accessors. But Neo4j needs those in its wrapper objects
+public class GraphEnds {
+
+  public static final String GRAPH_ID_NAME = "graphId";
+  public static final String START_NAME = "start";
+  public static final String END_NAME = "end";
+
+  /* The name of these public fields must always be the same as the static Strings above
+   * These strings are needed in the cypher to get to the content of the returned values */
+  public String graphId;
+  public Node start;
+  public Node end;
+
+  public GraphEnds(String graphId, Node start, Node end) {
+    this.graphId = graphId;
+    this.start = start;
+    this.end = end;
+  }
+}
@@ -0,0 +1,88 @@
+package org.ek.n23.utility;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * This class is a set of int elements in the range 0 (inclusive) to
+ * capacity (exclusive) that supports adding, removing, checking for
+ * and picking a uniformly random element in constant time.
+ *
+ * The elements are kept densely packed in a backing array. A second array
+ * stores the position of every element in the backing array, so that an
+ * element can be removed by swapping the last element into its place.
+ * The order of the elements only depends on the sequence of operations,
+ * hence picking random elements is deterministic for a given seed.
+ */
+public class IndexedRandomSet {
+
+  private static final int ABSENT = -1;
+
+  private final int[] elements;
+
+  private final int[] positions;
+
+  private int size;
+
+  public IndexedRandomSet(int capacity) {
+    this.elements = new int[capacity];
+    this.positions = new int[capacity];
+    Arrays.fill(positions, ABSENT);
+  }
+
+  // returns a set that contains all elements from 0 to capacity - 1
+  public static IndexedRandomSet full(int capacity) {
+    IndexedRandomSet set = new IndexedRandomSet(capacity);
+    for (int i = 0; i < capacity; i++) {
+      set.add(i);
+    }
+    return set;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean contains(int element) {
+    return positions[element] != ABSENT;
+  }
+
+  // returns the element at position (0 <= position < size) of the backing array
+  public int get(int position) {
+    return elements[position];
+  }
+
+  // adds element and returns false if it already was in the set
+  public boolean add(int element) {
+    if (contains(element)) {
+      return false;
+    }
+    elements[size] = element;
+    positions[element] = size;
+    size++;
+    return true;
+  }
+
+  // removes element and returns false if it was not in the set
+  public boolean remove(int element) {
+    int position = positions[element];
+    if (position == ABSENT) {
+      return false;
+    }
+    // move the last element into the gap
+    int last = elements[--size];
+    elements[position] = last;
+    positions[last] = position;
+    positions[element] = ABSENT;
+    return true;
+  }
+
+  // returns a uniformly chosen random element of a non-empty set
+  public int randomElement(RandomGenerator random) {
+    return elements[random.nextInt(size)];
+  }
+}
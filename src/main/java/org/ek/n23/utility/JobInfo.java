@@ -0,0 +1,62 @@
+package org.ek.n23.utility;
+
+import org.ek.n23.job.GenerationJob;
+
+/**
+ * This Object is an Output object for the generation job procedures.
+ * It contains the state and the progress of a GenerationJob at the time
+ * of the call. The throughput is given in written nodes and relationships
+ * per second. After the job has succeeded, its summary can be obtained
+ * with showSummary(runId).
+ *
+ * You obtain the output by using e.g. the following Cypher query:
+ * CALL org.ek.n23.submitGeneration(5,"NODES2023")
+ * YIELD jobId, status
+ * RETURN jobId, status
+ */
+@SuppressWarnings("java:S1104") // complains about there being public non static non final fields and no accessors. But Neo4j needs those in its wrapper objects
+public class JobInfo {
+
+  public static final String JOB_ID_NAME = "jobId";
+  public static final String STATUS_NAME = "status";
+  public static final String SEED_NAME = "seed";
+  public static final String CONFIG_NAME_NAME = "configName";
+  public static final String NODES_WRITTEN_NAME = "nodesWritten";
+  public static final String RELATIONSHIPS_WRITTEN_NAME =
+    "relationshipsWritten";
+  public static final String ELAPSED_MILLIS_NAME = "elapsedMillis";
+  public static final String ENTITIES_PER_SECOND_NAME = "entitiesPerSecond";
+  public static final String RUN_ID_NAME = "runId";
+  public static final String ERROR_NAME = "error";
+
+  /* The name of these public fields must always be the same as the static Strings above
+   * These strings are needed in the cypher to get to the content of the returned values */
+  public long jobId;
+  public String status;
+  public long seed;
+  public String configName;
+  public long nodesWritten;
+  public long relationshipsWritten;
+  public long elapsedMillis;
+  public double entitiesPerSecond;
+  public long runId;
+  public String error;
+
+  public JobInfo(GenerationJob job) {
+    this.jobId = job.id();
+    this.status = job.status().name();
+    this.seed = job.seed();
+    this.configName = job.configName();
+    this.nodesWritten = job.progress().nodesWritten();
+    this.relationshipsWritten = job.progress().relationshipsWritten();
+    // read after the counters, so that the throughput is not overestimated
+    this.elapsedMillis = job.elapsedMillis();
+    this.entitiesPerSecond =
+      elapsedMillis == 0
+        ? 0
+        : (nodesWritten + relationshipsWritten) * 1000.0 / elapsedMillis;
+    Summary summary = job.summary();
+    this.runId = summary == null ? -1 : summary.runId;
+    this.error = job.error();
+  }
+}
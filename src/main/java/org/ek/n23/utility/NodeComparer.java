@@ -9,7 +9,8 @@ import org.neo4j.graphdb.Node;
  * It is used in the procedures to put nodes into a TreeSet.
  * The nodes need to be put into a sorted collection since using
  * unsorted collections (like hashsets) leads to non-deterministic
- * results.
+ * results. Nodes are ordered by their graph id first and by their
+ * name within a graph.
  *
  * @author Jens Deininger, Elena Kohlwey
  */
@@ -26,6 +27,15 @@ public class NodeComparer implements Comparator<Node> {
     if (n2 == null) {
       return 1;
     }
+    /* nodes of different generated graphs are ordered by their graph,
+     * so that nodes of one graph are never compared by name with
+     * nodes of another graph */
+    int graphComparison = Action
+      .getGraphId(n1)
+      .compareTo(Action.getGraphId(n2));
+    if (graphComparison != 0) {
+      return graphComparison;
+    }
     return ((String) n1.getProperty(Action.NAME_KEY, -1)).compareTo(
         (String) n2.getProperty(Action.NAME_KEY, -1)
       );
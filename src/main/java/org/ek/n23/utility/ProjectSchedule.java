@@ -0,0 +1,47 @@
+package org.ek.n23.utility;
+
+import java.util.Map;
+
+/**
+ * This Object is an Output object for the schedulePortfolio procedure.
+ * It contains the name and the graph id of the start node of one project
+ * and the values of the ScheduleSummary of its schedule: the number of
+ * nodes and relationships, the project duration, the number of written
+ * properties and the wall-clock time in milliseconds of every phase.
+ *
+ * You obtain the output by using the following Cypher query:
+ * CALL org.ek.n23.schedulePortfolio()
+ * YIELD name, graphId, actions, projectDuration, timings
+ * RETURN name, graphId, actions, projectDuration, timings
+ */
+@SuppressWarnings("java:S1104") // complains about there being public non static non final fields and no accessors. But Neo4j needs those in its wrapper objects
+public class ProjectSchedule {
+
+  public static final String NAME_NAME = "name";
+  public static final String GRAPH_ID_NAME = "graphId";
+  public static final String ACTIONS_NAME = "actions";
+  public static final String RELATIONSHIPS_NAME = "relationships";
+  public static final String PROJECT_DURATION_NAME = "projectDuration";
+  public static final String PROPERTIES_WRITTEN_NAME = "propertiesWritten";
+  public static final String TIMINGS_MAP = "timings";
+
+  /* The name of these public fields must always be the same as the static Strings above
+   * These strings are needed in the cypher to get to the content of the returned values */
+  public String name;
+  public String graphId;
+  public long actions;
+  public long relationships;
+  public long projectDuration;
+  public long propertiesWritten;
+  public Map<String, Long> timings;
+
+  public ProjectSchedule(String name, String graphId, ScheduleSummary summary) {
+    this.name = name;
+    this.graphId = graphId;
+    this.actions = summary.actions;
+    this.relationships = summary.relationships;
+    this.projectDuration = summary.projectDuration;
+    this.propertiesWritten = summary.propertiesWritten;
+    this.timings = summary.timings;
+  }
+}
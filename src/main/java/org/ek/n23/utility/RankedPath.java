@@ -0,0 +1,39 @@
+package org.ek.n23.utility;
+
+import org.neo4j.graphdb.Path;
+
+/**
+ * This Object is an Output object for the longestPaths procedure.
+ * It contains one path of PRECEDES relationships from the start to the
+ * end node, its rank (0 for the longest path), its length, i.e. the sum
+ * of the durations of its actions, and its slack, i.e. how much shorter
+ * it is than the longest path.
+ *
+ * You obtain the output by using the following Cypher query:
+ * MATCH (s:Action {name:'Start'}), (e:Action {name:'End'})
+ * CALL org.ek.n23.longestPaths(s, e, 5)
+ * YIELD rank, path, length, slack
+ * RETURN rank, path, length, slack
+ */
+@SuppressWarnings("java:S1104") // complains about there being public non static non final fields and no accessors. But Neo4j needs those in its wrapper objects
+public class RankedPath {
+
+  public static final String RANK_NAME = "rank";
+  public static final String PATH_NAME = "path";
+  public static final String LENGTH_NAME = "length";
+  public static final String SLACK_NAME = "slack";
+
+  /* The name of these public fields must always be the same as the static Strings above
+   * These strings are needed in the cypher to get to the content of the returned values */
+  public long rank;
+  public Path path;
+  public long length;
+  public long slack;
+
+  public RankedPath(long rank, Path path, long length, long slack) {
+    this.rank = rank;
+    this.path = path;
+    this.length = length;
+    this.slack = slack;
+  }
+}
@@ -0,0 +1,61 @@
+package org.ek.n23.utility;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class keeps the summaries of the most recent generation runs.
+ * Every run gets a unique run id from newRun() and is recorded when it
+ * has finished. Only the last capacity runs are kept, older ones are
+ * dropped. All methods can be called from concurrent procedure calls.
+ */
+public class RunHistory {
+
+  private final int capacity;
+
+  private final AtomicLong lastRunId = new AtomicLong();
+
+  // recorded runs, the most recent one first
+  private final Deque<Summary> runs = new ArrayDeque<>();
+
+  public RunHistory(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1");
+    }
+    this.capacity = capacity;
+  }
+
+  /* returns an empty summary of a run with seed, a new run id
+   * and a new graph id for the graph that the run generates */
+  public Summary newRun(long seed) {
+    Summary summary = new Summary(lastRunId.incrementAndGet());
+    summary.seed = seed;
+    summary.graphId = UUID.randomUUID().toString();
+    return summary;
+  }
+
+  // adds the summary of a finished run and drops the oldest run if needed
+  public synchronized void record(Summary summary) {
+    runs.addFirst(summary);
+    if (runs.size() > capacity) {
+      runs.removeLast();
+    }
+  }
+
+  // returns the summary of the most recently recorded run or null if there is none
+  public synchronized Summary latest() {
+    return runs.peekFirst();
+  }
+
+  // returns the summary of the run with runId or null if it is not kept anymore
+  public synchronized Summary get(long runId) {
+    for (Summary summary : runs) {
+      if (summary.runId == runId) {
+        return summary;
+      }
+    }
+    return null;
+  }
+}
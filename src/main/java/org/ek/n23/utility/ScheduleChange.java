@@ -0,0 +1,61 @@
+package org.ek.n23.utility;
+
+import org.neo4j.graphdb.Node;
+
+/**
+ * This Object is an Output object for the whatIf procedure.
+ * It contains one action whose schedule would change, its earliest and
+ * latest start and finish after the changes, the project duration after
+ * the changes and how much longer (or, if negative, shorter) the project
+ * would take. The stored schedule is not changed.
+ *
+ * You obtain the output by using the following Cypher query:
+ * MATCH (s:Action {name:'Start'})
+ * CALL org.ek.n23.whatIf(s, {E: 5}, [['D', 'F']])
+ * YIELD name, earliestStart, latestStart, projectDuration
+ * RETURN name, earliestStart, latestStart, projectDuration
+ */
+@SuppressWarnings("java:S1104") // complains about there being public non static non final fields and no accessors. But Neo4j needs those in its wrapper objects
+public class ScheduleChange {
+
+  public static final String NODE_NAME = "node";
+  public static final String NAME_NAME = "name";
+  public static final String EARLIEST_START_NAME = "earliestStart";
+  public static final String EARLIEST_FINISH_NAME = "earliestFinish";
+  public static final String LATEST_START_NAME = "latestStart";
+  public static final String LATEST_FINISH_NAME = "latestFinish";
+  public static final String PROJECT_DURATION_NAME = "projectDuration";
+  public static final String PROJECT_DURATION_CHANGE_NAME =
+    "projectDurationChange";
+
+  /* The name of these public fields must always be the same as the static Strings above
+   * These strings are needed in the cypher to get to the content of the returned values */
+  public Node node;
+  public String name;
+  public long earliestStart;
+  public long earliestFinish;
+  public long latestStart;
+  public long latestFinish;
+  public long projectDuration;
+  public long projectDurationChange;
+
+  public ScheduleChange(
+    Node node,
+    String name,
+    long earliestStart,
+    long earliestFinish,
+    long latestStart,
+    long latestFinish,
+    long projectDuration,
+    long projectDurationChange
+  ) {
+    this.node = node;
+    this.name = name;
+    this.earliestStart = earliestStart;
+    this.earliestFinish = earliestFinish;
+    this.latestStart = latestStart;
+    this.latestFinish = latestFinish;
+    this.projectDuration = projectDuration;
+    this.projectDurationChange = projectDurationChange;
+  }
+}
@@ -0,0 +1,50 @@
+package org.ek.n23.utility;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This Object is an Output object for the schedule procedures.
+ * It contains the number of nodes and relationships of the calculated
+ * schedule, the project duration, the number of schedule properties that
+ * had a different value and have been written and the wall-clock time in
+ * milliseconds of every phase of the calculation. If the properties are
+ * written in separate transactions, it also contains the number of commits
+ * and the written properties per second, otherwise these are 0.
+ *
+ * You obtain the output by using the following Cypher query:
+ * MATCH (a:Action {name:'Action0'})
+ * CALL org.ek.n23.computeSchedule(a)
+ * YIELD actions, relationships, projectDuration, propertiesWritten, timings
+ * RETURN actions, relationships, projectDuration, propertiesWritten, timings
+ */
+@SuppressWarnings("java:S1104") // complains about there being public non static non final fields and no accessors. But Neo4j needs those in its wrapper objects
+public class ScheduleSummary {
+
+  public static final String ACTIONS_NAME = "actions";
+  public static final String RELATIONSHIPS_NAME = "relationships";
+  public static final String PROJECT_DURATION_NAME = "projectDuration";
+  public static final String PROPERTIES_WRITTEN_NAME = "propertiesWritten";
+  public static final String COMMITS_NAME = "commits";
+  public static final String PROPERTIES_PER_SECOND_NAME = "propertiesPerSecond";
+  public static final String TIMINGS_MAP = "timings";
+
+  /* The name of these public fields must always be the same as the static Strings above
+   * These strings are needed in the cypher to get to the content of the returned values */
+  public long actions;
+  public long relationships;
+  public long projectDuration;
+  public long propertiesWritten;
+  public long commits;
+  public double propertiesPerSecond;
+  public Map<String, Long> timings;
+
+  public ScheduleSummary() {
+    this.timings = new HashMap<>();
+  }
+
+  // adds the time elapsed since startNanos (taken from System.nanoTime()) in milliseconds
+  public void addTiming(String phase, long startNanos) {
+    this.timings.put(phase, (System.nanoTime() - startNanos) / 1_000_000);
+  }
+}
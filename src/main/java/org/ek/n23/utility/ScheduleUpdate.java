@@ -0,0 +1,37 @@
+package org.ek.n23.utility;
+
+/**
+ * This Object is an Output object for the procedures that update an
+ * existing schedule. It contains the number of nodes whose schedule has
+ * been recalculated, the number of nodes whose values have actually
+ * changed and the project duration after the update.
+ *
+ * You obtain the output by using the following Cypher query:
+ * MATCH (a:Action {name:'B'})
+ * CALL org.ek.n23.updateDuration(a, 6)
+ * YIELD nodesTouched, nodesChanged, projectDuration
+ * RETURN nodesTouched, nodesChanged, projectDuration
+ */
+@SuppressWarnings("java:S1104") // complains about there being public non static non final fields and no accessors. But Neo4j needs those in its wrapper objects
+public class ScheduleUpdate {
+
+  public static final String NODES_TOUCHED_NAME = "nodesTouched";
+  public static final String NODES_CHANGED_NAME = "nodesChanged";
+  public static final String PROJECT_DURATION_NAME = "projectDuration";
+
+  /* The name of these public fields must always be the same as the static Strings above
+   * These strings are needed in the cypher to get to the content of the returned values */
+  public long nodesTouched;
+  public long nodesChanged;
+  public long projectDuration;
+
+  public ScheduleUpdate(
+    long nodesTouched,
+    long nodesChanged,
+    long projectDuration
+  ) {
+    this.nodesTouched = nodesTouched;
+    this.nodesChanged = nodesChanged;
+    this.projectDuration = projectDuration;
+  }
+}
@@ -0,0 +1,25 @@
+package org.ek.n23.utility;
+
+/**
+ * This Object is an Output object for the {@link createGraphIndexes}
+ * procedure. It contains the name of a constraint or an index that has
+ * been created.
+ *
+ * You obtain the output by using the following Cypher query:
+ * CALL org.ek.n23.createGraphIndexes()
+ * YIELD name
+ * RETURN name
+ */
+@SuppressWarnings("java:S1104") // complains about there being public non static non final fields and no accessors. But Neo4j needs those in its wrapper objects
+public class SchemaEntry {
+
+  public static final String NAME_NAME = "name";
+
+  /* The name of this public field must always be the same as the static String above
+   * This string is needed in the cypher to get to the content of the returned values */
+  public String name;
+
+  public SchemaEntry(String name) {
+    this.name = name;
+  }
+}
@@ -7,6 +7,9 @@ import java.util.Map;
  * This Object is an Output object for the {@link generateGraph} procedures.
  * It contains the information about the number of nodes and relationships
  * that have been created by the procedure and some other additional information.
+ * Every generation call owns its Summary. It is identified by the run id
+ * and holds the wall-clock time in milliseconds of every phase of the run.
+ * All nodes of the generated graph carry the graph id of the summary.
  *
  * You obtain the output by using one of the following Cypher queries:
  * If you are using a ConfigObject to generate a node:
@@ -15,8 +18,11 @@ import java.util.Map;
  * If you are using an already existing ConfigNode:
  * MATCH (n:ConfigNode)
  * CALL org.ek.n23.generateGraphBySeedAndConfig(5,n)
- * YIELD nodes, relationships, other
- * RETURN nodes, relationships, other
+ * YIELD runId, seed, graphId, nodes, relationships, other, timings
+ * RETURN runId, seed, graphId, nodes, relationships, other, timings
+ *
+ * The summary of a previous run is returned by
+ * CALL org.ek.n23.showSummary(runId)
  *
  * @author Elena Kohlwey
  */
@@ -29,17 +35,35 @@ public class Summary {
 
   public static final String OTHER_MAP = "other";
 
+  public static final String RUN_ID = "runId";
+
+  public static final String TIMINGS_MAP = "timings";
+
+  public static final String SEED = "seed";
+
+  public static final String GRAPH_ID = "graphId";
+
   /* The name of these public fields must always be the same as the static Strings above
    * These strings are needed in the cypher to get to the content of the returned values */
 
   public Map<String, Integer> nodes;
   public Map<String, Integer> relationships;
   public Map<String, Integer> other;
+  public long runId;
+  public Map<String, Long> timings;
+  public long seed;
+  public String graphId;
 
   public Summary() {
+    this(0);
+  }
+
+  public Summary(long runId) {
+    this.runId = runId;
     this.nodes = new HashMap<>();
     this.relationships = new HashMap<>();
     this.other = new HashMap<>();
+    this.timings = new HashMap<>();
   }
 
   public void addNodeInfo(String label, int count) {
@@ -54,9 +78,20 @@ public class Summary {
     this.other.put(label, count);
   }
 
+  // adds the time elapsed since startNanos (taken from System.nanoTime()) in milliseconds
+  public void addTiming(String phase, long startNanos) {
+    this.timings.put(phase, (System.nanoTime() - startNanos) / 1_000_000);
+  }
+
+  // adds nanos nanoseconds in milliseconds, e.g. for a phase done in parts
+  public void addDuration(String phase, long nanos) {
+    this.timings.put(phase, nanos / 1_000_000);
+  }
+
   public void clear() {
     this.nodes.clear();
     this.relationships.clear();
     this.other.clear();
+    this.timings.clear();
   }
 }
@@ -0,0 +1,47 @@
+package org.ek.n23.utility;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * This class runs a list of tasks on an executor and waits for all of them,
+ * e.g. the groups of a level of the PartitionedScheduleCalculator or the
+ * blocks of the MonteCarloSimulation. Unlike CompletionOrderStream, the
+ * results are returned at the end, in the order of the tasks.
+ */
+public class Tasks {
+
+  private Tasks() {}
+
+  /**
+   * This method runs tasks on executor and waits until all of them have
+   * finished. The first failure in the order of the tasks is thrown.
+   * @param executor: executor that runs the tasks, it is not shut down
+   * @param tasks: tasks to run
+   * @return the results of the tasks in the order of the tasks
+   */
+  public static <T> List<T> runAll(
+    ExecutorService executor,
+    List<Callable<T>> tasks
+  ) {
+    try {
+      List<T> results = new ArrayList<>();
+      for (Future<T> future : executor.invokeAll(tasks)) {
+        results.add(future.get());
+      }
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for tasks", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package org.ek.n23.utility;
+
+import java.util.function.Consumer;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+
+/**
+ * This class splits a large write into several transactions.
+ * Every written entity has to be reported by calling entityWritten().
+ * As soon as batchSize entities have been written, the current
+ * transaction is committed and a new one is opened, so the transaction
+ * state never grows beyond batchSize entities.
+ *
+ * Usage:
+ * try (TransactionBatches batches = new TransactionBatches(db, 50000)) {
+ *   Node node = batches.tx().createNode();
+ *   batches.entityWritten();
+ *   ...
+ *   batches.finish();
+ * }
+ *
+ * A beginAction can be given that is run on every transaction that is
+ * opened, e.g. to set transaction metadata.
+ *
+ * If finish() has not been called when the object is closed, the
+ * current batch is rolled back. Batches committed before stay committed.
+ * Only the number of commits and the sizes of the largest and the last
+ * batch are kept, so any number of batches can be written.
+ */
+public class TransactionBatches implements AutoCloseable {
+
+  private final GraphDatabaseService db;
+
+  private final int batchSize;
+
+  private final Consumer<Transaction> beginAction;
+
+  private int commits;
+
+  private int largestBatch;
+
+  private int lastBatch;
+
+  private Transaction tx;
+
+  private int entitiesInBatch;
+
+  public TransactionBatches(GraphDatabaseService db, long batchSize) {
+    this(db, batchSize, tx -> {});
+  }
+
+  public TransactionBatches(
+    GraphDatabaseService db,
+    long batchSize,
+    Consumer<Transaction> beginAction
+  ) {
+    if (batchSize < 1 || batchSize > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(
+        "batchSize must be between 1 and " + Integer.MAX_VALUE
+      );
+    }
+    this.db = db;
+    this.batchSize = (int) batchSize;
+    this.beginAction = beginAction;
+    begin();
+  }
+
+  // returns the transaction of the current batch
+  public Transaction tx() {
+    return tx;
+  }
+
+  // returns the number of entities that fit into the current batch
+  public int remainingInBatch() {
+    return batchSize - entitiesInBatch;
+  }
+
+  // returns the number of committed batches
+  public int commits() {
+    return commits;
+  }
+
+  // returns the number of entities of the largest committed batch
+  public int largestBatch() {
+    return largestBatch;
+  }
+
+  // returns the number of entities of the last committed batch
+  public int lastBatch() {
+    return lastBatch;
+  }
+
+  /**
+   * This method counts a written entity and commits the current
+   * transaction if the batch is full. Node and relationship objects of
+   * the committed transaction must not be used afterwards.
+   * @return true if the batch has been committed and false otherwise.
+   */
+  public boolean entityWritten() {
+    entitiesInBatch++;
+    if (entitiesInBatch < batchSize) {
+      return false;
+    }
+    commit();
+    begin();
+    return true;
+  }
+
+  // commits the last batch
+  public void finish() {
+    if (entitiesInBatch > 0) {
+      commit();
+    } else {
+      tx.close();
+    }
+    tx = null;
+  }
+
+  @Override
+  public void close() {
+    if (tx != null) {
+      tx.close();
+      tx = null;
+    }
+  }
+
+  private void begin() {
+    tx = db.beginTx();
+    beginAction.accept(tx);
+  }
+
+  private void commit() {
+    tx.commit();
+    tx.close();
+    commits++;
+    largestBatch = Math.max(largestBatch, entitiesInBatch);
+    lastBatch = entitiesInBatch;
+    entitiesInBatch = 0;
+  }
+}
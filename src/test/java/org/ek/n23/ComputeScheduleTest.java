@@ -0,0 +1,266 @@
+package org.ek.n23;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.ek.n23.entity.Action;
+import org.ek.n23.utility.ScheduleSummary;
+import org.ek.n23.utility.TestBase;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.exceptions.ClientException;
+
+/**
+ * These tests verify the functionality of the computeSchedule
+ * method. The expected values are the ones of the forward and
+ * backward path tests.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ComputeScheduleTest extends TestBase {
+
+  HashMap<String, int[]> results;
+
+  @Override
+  protected InputStream inputStreamOfCypherFile() {
+    // read in the cypher file in the folder test/resources
+    return getClass().getResourceAsStream("/projectScheduleForward.cypher");
+  }
+
+  @Override
+  protected Stream<Class<?>> procedureClasses() {
+    // state the class (or classes) that these tests apply to
+    return Stream.of(ProcedureGraphTraversal.class);
+  }
+
+  @Override
+  protected String[] initialCypher() {
+    /*  state a cypher query (e.g. call of a procedure)
+    that shall be called before any test is executed */
+    return new String[] {
+      String.format(
+        "MATCH (a:%s {%s:'Start'}) CALL %s(a) YIELD projectDuration RETURN projectDuration",
+        Action.LABEL_NAME,
+        Action.NAME_KEY,
+        ProcedureGraphTraversal.ProcedureName.COMPUTE_SCHEDULE
+      ),
+    };
+  }
+
+  @BeforeAll
+  public void initializeResults() {
+    // earliest start, earliest finish, latest start, latest finish
+    results = new HashMap<>();
+    results.put("Start", new int[] { 0, 0, 0, 0 });
+    results.put("A", new int[] { 0, 3, 0, 3 });
+    results.put("B", new int[] { 3, 7, 5, 9 });
+    results.put("C", new int[] { 3, 9, 3, 9 });
+    results.put("D", new int[] { 7, 13, 9, 15 });
+    results.put("E", new int[] { 7, 11, 9, 13 });
+    results.put("F", new int[] { 9, 13, 9, 13 });
+    results.put("G", new int[] { 13, 19, 15, 21 });
+    results.put("H", new int[] { 13, 21, 13, 21 });
+    results.put("End", new int[] { 21, 21, 21, 21 });
+  }
+
+  @Test
+  void parallelScheduleMatchesSequentialSchedule() {
+    try (Session session = driver().session()) {
+      // a graph of 5 levels with 1000 nodes each that are not in the fixture
+      session.run(
+        String.format(
+          "CREATE (s:%s {%s:'PStart', %s:0}) WITH s UNWIND range(0,4999) AS i " +
+          "CREATE (a:%s {%s:'P'+i, %s:(i*7919)%%13}) WITH s, collect(a) AS nodes " +
+          "CALL { WITH s, nodes UNWIND range(0,999) AS i " +
+          "WITH s, nodes[i] AS a CREATE (s)-[:PRECEDES]->(a) } " +
+          "WITH nodes UNWIND range(0,3999) AS i " +
+          "WITH nodes[i] AS a, nodes[i+1000] AS b, nodes[(i/1000+1)*1000 + (i*31)%%1000] AS c " +
+          "CREATE (a)-[:PRECEDES]->(b), (a)-[:PRECEDES]->(c)",
+          Action.LABEL_NAME,
+          Action.NAME_KEY,
+          Action.DURATION_KEY,
+          Action.LABEL_NAME,
+          Action.NAME_KEY,
+          Action.DURATION_KEY
+        )
+      );
+
+      String computeCypher = String.format(
+        "MATCH (s:%s {%s:'PStart'}) CALL %s(s, $workers) YIELD projectDuration " +
+        "MATCH (a:Action) WHERE a.name STARTS WITH 'P' AND a <> s " +
+        "RETURN projectDuration, collect([a.%s, a.%s, a.%s, a.%s, a.%s]) AS values",
+        Action.LABEL_NAME,
+        Action.NAME_KEY,
+        ProcedureGraphTraversal.ProcedureName.COMPUTE_SCHEDULE,
+        Action.NAME_KEY,
+        Action.EARLIEST_START_KEY,
+        Action.EARLIEST_FINISH_KEY,
+        Action.LATEST_START_KEY,
+        Action.LATEST_FINISH_KEY
+      );
+      Record sequential = session
+        .run(computeCypher, Map.of("workers", 1))
+        .single();
+      session.run(
+        "MATCH (a:Action) WHERE a.name STARTS WITH 'P' " +
+        "REMOVE a.earliestStart, a.earliestFinish, a.latestStart, a.latestFinish"
+      );
+      Record parallel = session.run(computeCypher, Map.of("workers", 4)).single();
+
+      assertEquals(
+        sequential.get("projectDuration").asLong(),
+        parallel.get("projectDuration").asLong()
+      );
+      assertEquals(
+        new HashSet<>(sequential.get("values").asList()),
+        new HashSet<>(parallel.get("values").asList())
+      );
+      assertEquals(5000, parallel.get("values").size());
+    }
+  }
+
+  @Test
+  void workersAreValidated() {
+    String cypher = String.format(
+      "MATCH (a:%s {%s:'Start'}) CALL %s(a, $workers) YIELD projectDuration " +
+      "RETURN projectDuration",
+      Action.LABEL_NAME,
+      Action.NAME_KEY,
+      ProcedureGraphTraversal.ProcedureName.COMPUTE_SCHEDULE
+    );
+    try (Session session = driver().session()) {
+      // more workers than an int can hold are limited instead of truncated
+      long duration = session
+        .run(cypher, Map.of("workers", (1L << 32) + 1))
+        .single()
+        .get("projectDuration")
+        .asLong();
+      assertEquals(
+        session
+          .run(cypher, Map.of("workers", 1))
+          .single()
+          .get("projectDuration")
+          .asLong(),
+        duration
+      );
+
+      ClientException exception = assertThrows(
+        ClientException.class,
+        () -> session.run(cypher, Map.of("workers", 0)).consume()
+      );
+      assertTrue(
+        exception.getMessage().contains(ProcedureGraphTraversal.NO_WORKERS)
+      );
+    }
+  }
+
+  @Test
+  void nodes_ES_EF_LS_LF() {
+    Record nodeRecord;
+
+    for (Map.Entry<String, int[]> result : results.entrySet()) {
+      try (Session session = driver().session()) {
+        nodeRecord =
+          session
+            .run(
+              String.format(
+                "MATCH (a:%s {%s:'%s'}) RETURN a.%s AS %s, a.%s AS %s, a.%s AS %s, a.%s AS %s",
+                Action.LABEL_NAME,
+                Action.NAME_KEY,
+                result.getKey(),
+                Action.EARLIEST_START_KEY,
+                Action.EARLIEST_START_KEY,
+                Action.EARLIEST_FINISH_KEY,
+                Action.EARLIEST_FINISH_KEY,
+                Action.LATEST_START_KEY,
+                Action.LATEST_START_KEY,
+                Action.LATEST_FINISH_KEY,
+                Action.LATEST_FINISH_KEY
+              )
+            )
+            .single();
+      }
+      assertEquals(
+        result.getValue()[0],
+        nodeRecord.get(Action.EARLIEST_START_KEY, -1l)
+      );
+      assertEquals(
+        result.getValue()[1],
+        nodeRecord.get(Action.EARLIEST_FINISH_KEY, -1l)
+      );
+      assertEquals(
+        result.getValue()[2],
+        nodeRecord.get(Action.LATEST_START_KEY, -1l)
+      );
+      assertEquals(
+        result.getValue()[3],
+        nodeRecord.get(Action.LATEST_FINISH_KEY, -1l)
+      );
+    }
+  }
+
+  @Test
+  void repeatedRunWritesNothing() {
+    try (Session session = driver().session()) {
+      long propertiesWritten = session
+        .run(
+          String.format(
+            "MATCH (a:%s {%s:'Start'}) CALL %s(a) YIELD %s RETURN %s",
+            Action.LABEL_NAME,
+            Action.NAME_KEY,
+            ProcedureGraphTraversal.ProcedureName.COMPUTE_SCHEDULE,
+            ScheduleSummary.PROPERTIES_WRITTEN_NAME,
+            ScheduleSummary.PROPERTIES_WRITTEN_NAME
+          )
+        )
+        .single()
+        .get(ScheduleSummary.PROPERTIES_WRITTEN_NAME)
+        .asLong();
+      assertEquals(0, propertiesWritten);
+    }
+  }
+
+  @Test
+  void scheduleIsCommittedInBatches() {
+    try (Session session = driver().session()) {
+      session.run(
+        String.format(
+          "MATCH (a:%s) WHERE NOT a.%s STARTS WITH 'P' REMOVE a.%s",
+          Action.LABEL_NAME,
+          Action.NAME_KEY,
+          Action.EARLIEST_START_KEY
+        )
+      );
+      Record summary = session
+        .run(
+          String.format(
+            "MATCH (a:%s {%s:'Start'}) CALL %s(a, 3) YIELD %s, %s RETURN %s, %s",
+            Action.LABEL_NAME,
+            Action.NAME_KEY,
+            ProcedureGraphTraversal.ProcedureName.COMPUTE_SCHEDULE_IN_BATCHES,
+            ScheduleSummary.PROPERTIES_WRITTEN_NAME,
+            ScheduleSummary.COMMITS_NAME,
+            ScheduleSummary.PROPERTIES_WRITTEN_NAME,
+            ScheduleSummary.COMMITS_NAME
+          )
+        )
+        .single();
+
+      // the 10 nodes of the example are committed in batches of 3
+      assertEquals(
+        10,
+        summary.get(ScheduleSummary.PROPERTIES_WRITTEN_NAME).asLong()
+      );
+      assertEquals(4, summary.get(ScheduleSummary.COMMITS_NAME).asLong());
+    }
+    nodes_ES_EF_LS_LF();
+  }
+}
@@ -0,0 +1,230 @@
+package org.ek.n23;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.ek.n23.entity.Action;
+import org.ek.n23.utility.CriticalAction;
+import org.ek.n23.utility.TestBase;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Session;
+
+/**
+ * These tests verify the functionality of the criticalPath
+ * method on the example of the forward and backward path tests.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CriticalPathTest extends TestBase {
+
+  private static final String CRITICAL_PATH_CYPHER = String.format(
+    "MATCH (s:%s {%s:'Start'}), (e:%s {%s:'End'}) CALL %s(s, e) YIELD %s, %s, %s RETURN %s, %s, %s ORDER BY %s",
+    Action.LABEL_NAME,
+    Action.NAME_KEY,
+    Action.LABEL_NAME,
+    Action.NAME_KEY,
+    ProcedureGraphTraversal.ProcedureName.CRITICAL_PATH,
+    CriticalAction.POSITION_NAME,
+    CriticalAction.NAME_NAME,
+    CriticalAction.PROJECT_DURATION_NAME,
+    CriticalAction.POSITION_NAME,
+    CriticalAction.NAME_NAME,
+    CriticalAction.PROJECT_DURATION_NAME,
+    CriticalAction.POSITION_NAME
+  );
+
+  HashMap<String, int[]> results;
+
+  List<Record> criticalActions;
+
+  @Override
+  protected InputStream inputStreamOfCypherFile() {
+    // read in the cypher file in the folder test/resources
+    return getClass().getResourceAsStream("/projectScheduleForward.cypher");
+  }
+
+  @Override
+  protected Stream<Class<?>> procedureClasses() {
+    // state the class (or classes) that these tests apply to
+    return Stream.of(ProcedureGraphTraversal.class);
+  }
+
+  @Override
+  protected String[] initialCypher() {
+    // the procedure is called in otherBeforeAllStuff to keep its results
+    return new String[0];
+  }
+
+  @Override
+  protected void otherBeforeAllStuff() {
+    try (Session session = driver().session()) {
+      criticalActions = session.run(CRITICAL_PATH_CYPHER).list();
+    }
+  }
+
+  @BeforeAll
+  public void initializeResults() {
+    // total float, free float
+    results = new HashMap<>();
+    results.put("Start", new int[] { 0, 0 });
+    results.put("A", new int[] { 0, 0 });
+    results.put("B", new int[] { 2, 0 });
+    results.put("C", new int[] { 0, 0 });
+    results.put("D", new int[] { 2, 0 });
+    results.put("E", new int[] { 2, 2 });
+    results.put("F", new int[] { 0, 0 });
+    results.put("G", new int[] { 2, 2 });
+    results.put("H", new int[] { 0, 0 });
+    results.put("End", new int[] { 0, 0 });
+  }
+
+  @Test
+  void criticalChainIsReturnedInOrder() {
+    List<String> expectedChain = List.of("Start", "A", "C", "F", "H", "End");
+
+    assertEquals(expectedChain.size(), criticalActions.size());
+    for (int i = 0; i < expectedChain.size(); i++) {
+      Record criticalAction = criticalActions.get(i);
+      assertEquals(
+        expectedChain.get(i),
+        criticalAction.get(CriticalAction.NAME_NAME).asString()
+      );
+      assertEquals(
+        21,
+        criticalAction.get(CriticalAction.PROJECT_DURATION_NAME).asLong()
+      );
+    }
+  }
+
+  @Test
+  void chainEndsAtEndNode() {
+    // F is not the end of the project, the chain is the longest path to F
+    List<Record> chain = criticalChain("Start", "F");
+
+    assertEquals(
+      List.of("Start", "A", "C", "F"),
+      chain
+        .stream()
+        .map(criticalAction ->
+          criticalAction.get(CriticalAction.NAME_NAME).asString()
+        )
+        .toList()
+    );
+    for (Record criticalAction : chain) {
+      assertEquals(
+        13,
+        criticalAction.get(CriticalAction.PROJECT_DURATION_NAME).asLong()
+      );
+    }
+  }
+
+  @Test
+  void onlyOneOfBranchingChainsIsReturned() {
+    try (Session session = driver().session()) {
+      session.run(
+        String.format(
+          "CREATE (s:%1$s {%2$s:'BranchStart', %3$s:0})," +
+          " (x:%1$s {%2$s:'BranchX', %3$s:2})," +
+          " (y:%1$s {%2$s:'BranchY', %3$s:2})," +
+          " (e:%1$s {%2$s:'BranchEnd', %3$s:0})," +
+          " (s)-[:PRECEDES]->(x), (s)-[:PRECEDES]->(y)," +
+          " (x)-[:PRECEDES]->(e), (y)-[:PRECEDES]->(e)",
+          Action.LABEL_NAME,
+          Action.NAME_KEY,
+          Action.DURATION_KEY
+        )
+      );
+    }
+
+    // both branches are critical, but a chain only contains one of them
+    List<Record> chain = criticalChain("BranchStart", "BranchEnd");
+    assertEquals(3, chain.size());
+    assertEquals(
+      "BranchStart",
+      chain.get(0).get(CriticalAction.NAME_NAME).asString()
+    );
+    assertEquals(
+      "BranchEnd",
+      chain.get(2).get(CriticalAction.NAME_NAME).asString()
+    );
+    for (int i = 0; i < chain.size(); i++) {
+      assertEquals(i, chain.get(i).get(CriticalAction.POSITION_NAME).asLong());
+      assertEquals(
+        2,
+        chain.get(i).get(CriticalAction.PROJECT_DURATION_NAME).asLong()
+      );
+    }
+  }
+
+  @Test
+  void nodes_TotalFloat_FreeFloat_Critical() {
+    Record nodeRecord;
+
+    for (Map.Entry<String, int[]> result : results.entrySet()) {
+      try (Session session = driver().session()) {
+        nodeRecord =
+          session
+            .run(
+              String.format(
+                "MATCH (a:%s {%s:'%s'}) RETURN a.%s AS %s, a.%s AS %s, a.%s AS %s",
+                Action.LABEL_NAME,
+                Action.NAME_KEY,
+                result.getKey(),
+                Action.TOTAL_FLOAT_KEY,
+                Action.TOTAL_FLOAT_KEY,
+                Action.FREE_FLOAT_KEY,
+                Action.FREE_FLOAT_KEY,
+                Action.CRITICAL_KEY,
+                Action.CRITICAL_KEY
+              )
+            )
+            .single();
+      }
+      assertEquals(
+        result.getValue()[0],
+        nodeRecord.get(Action.TOTAL_FLOAT_KEY, -1l)
+      );
+      assertEquals(
+        result.getValue()[1],
+        nodeRecord.get(Action.FREE_FLOAT_KEY, -1l)
+      );
+      assertEquals(
+        result.getValue()[0] == 0,
+        nodeRecord.get(Action.CRITICAL_KEY).asBoolean()
+      );
+    }
+  }
+
+  /* calls criticalPath between the actions with the given names */
+  private List<Record> criticalChain(String startName, String endName) {
+    try (Session session = driver().session()) {
+      return session
+        .run(
+          String.format(
+            "MATCH (s:%s {%s:'%s'}), (e:%s {%s:'%s'}) CALL %s(s, e) YIELD %s, %s, %s RETURN %s, %s, %s ORDER BY %s",
+            Action.LABEL_NAME,
+            Action.NAME_KEY,
+            startName,
+            Action.LABEL_NAME,
+            Action.NAME_KEY,
+            endName,
+            ProcedureGraphTraversal.ProcedureName.CRITICAL_PATH,
+            CriticalAction.POSITION_NAME,
+            CriticalAction.NAME_NAME,
+            CriticalAction.PROJECT_DURATION_NAME,
+            CriticalAction.POSITION_NAME,
+            CriticalAction.NAME_NAME,
+            CriticalAction.PROJECT_DURATION_NAME,
+            CriticalAction.POSITION_NAME
+          )
+        )
+        .list();
+    }
+  }
+}
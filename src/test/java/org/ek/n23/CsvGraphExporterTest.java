@@ -0,0 +1,84 @@
+package org.ek.n23;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import org.ek.n23.entity.Action;
+import org.ek.n23.generator.ActionGraph;
+import org.ek.n23.generator.ActionGraphGenerator;
+import org.ek.n23.generator.CsvGraphExporter;
+import org.ek.n23.utility.Summary;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CsvGraphExporterTest {
+
+  private ConfigObject conf = ConfigObject.SampleConfig;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void exportedGraphMeetsRequirements() throws IOException {
+    long seed = -16719473;
+    Summary summary = CsvGraphExporter.export(seed, conf, directory);
+
+    List<String> actions = Files.readAllLines(
+      directory.resolve(CsvGraphExporter.ACTIONS_FILE_NAME)
+    );
+    List<String> precedes = Files.readAllLines(
+      directory.resolve(CsvGraphExporter.PRECEDES_FILE_NAME)
+    );
+
+    // header, start node, Action nodes and end node
+    int actionCount = actions.size() - 3;
+
+    // test that the Action nodes are the same as the ones of the procedures
+    ActionGraph graph = ActionGraphGenerator.generate(new Random(seed), conf);
+    assertEquals(graph.actionCount(), actionCount);
+    for (int i = 0; i < actionCount; i++) {
+      String expectedRow = String.join(
+        ",",
+        ActionGraph.nameOf(i),
+        summary.graphId,
+        Long.toString(graph.duration(i)),
+        Action.LABEL_NAME
+      );
+      assertEquals(expectedRow, actions.get(i + 2));
+    }
+
+    // count the incoming and outgoing relationships of every node
+    int[] incoming = new int[actionCount + 2];
+    int[] outgoingToActions = new int[actionCount + 2];
+    for (String row : precedes.subList(1, precedes.size())) {
+      String[] fields = row.split(",");
+      int start = Integer.parseInt(fields[0].substring(6));
+      int end = Integer.parseInt(fields[1].substring(6));
+      // the graph is acyclic since every relationship leads to a higher number
+      assertTrue(start < end);
+      incoming[end]++;
+      if (start != 0 && end != actionCount + 1) {
+        outgoingToActions[start]++;
+      }
+    }
+
+    // test starting nodes count
+    int startingNodesCount = (int) precedes
+      .stream()
+      .filter(row -> row.startsWith(Action.transformToNodeName(0) + ","))
+      .count();
+    assertTrue(conf.startingNodesCount().min() <= startingNodesCount);
+    assertTrue(startingNodesCount <= conf.startingNodesCount().max());
+
+    // test that all Action nodes can be reached and the outgoing rels count
+    for (int i = 1; i <= actionCount; i++) {
+      assertTrue(incoming[i] > 0);
+      assertTrue(outgoingToActions[i] <= conf.outgoingRelationsCount().max());
+    }
+  }
+}
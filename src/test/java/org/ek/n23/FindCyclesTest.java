@@ -0,0 +1,102 @@
+package org.ek.n23;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.ek.n23.entity.Action;
+import org.ek.n23.utility.Cycle;
+import org.ek.n23.utility.TestBase;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.exceptions.ClientException;
+
+/**
+ * These tests verify that findCycles returns every cycle of the example
+ * and that forwardPath refuses to run on it when asked to check.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FindCyclesTest extends TestBase {
+
+  private static final String FIND_CYCLES_CYPHER = String.format(
+    "MATCH (s:%s {%s:'Start'}) CALL %s(s) YIELD %s, %s RETURN %s, %s",
+    Action.LABEL_NAME,
+    Action.NAME_KEY,
+    ProcedureGraphTraversal.ProcedureName.FIND_CYCLES,
+    Cycle.SIZE_NAME,
+    Cycle.NAMES_NAME,
+    Cycle.SIZE_NAME,
+    Cycle.NAMES_NAME
+  );
+
+  @Override
+  protected InputStream inputStreamOfCypherFile() {
+    // read in the cypher file in the folder test/resources
+    return getClass().getResourceAsStream("/projectScheduleCycles.cypher");
+  }
+
+  @Override
+  protected Stream<Class<?>> procedureClasses() {
+    // state the class (or classes) that these tests apply to
+    return Stream.of(ProcedureGraphTraversal.class);
+  }
+
+  @Override
+  protected String[] initialCypher() {
+    return new String[0];
+  }
+
+  @Test
+  void everyCycleIsFound() {
+    Map<Long, List<Object>> cyclesBySize;
+    try (Session session = driver().session()) {
+      cyclesBySize =
+        session
+          .run(FIND_CYCLES_CYPHER)
+          .stream()
+          .collect(
+            Collectors.toMap(
+              (Record rec) -> rec.get(Cycle.SIZE_NAME).asLong(),
+              rec -> rec.get(Cycle.NAMES_NAME).asList()
+            )
+          );
+    }
+
+    assertEquals(2, cyclesBySize.size());
+    assertEquals(List.of("F", "F"), cyclesBySize.get(1l));
+
+    // the cycle starts and ends with the same action of B, D and E
+    List<Object> cycle = cyclesBySize.get(3l);
+    assertEquals(cycle.get(0), cycle.get(cycle.size() - 1));
+    assertTrue(List.of("B", "D", "E").containsAll(cycle));
+    assertTrue(cycle.size() >= 3);
+  }
+
+  @Test
+  void forwardPathRejectsCycles() {
+    String cypher = String.format(
+      "MATCH (s:%s {%s:'Start'}) CALL %s(s, true) YIELD actions RETURN actions",
+      Action.LABEL_NAME,
+      Action.NAME_KEY,
+      ProcedureGraphTraversal.ProcedureName.FORWARD_PATH
+    );
+    try (Session session = driver().session()) {
+      ClientException exception = assertThrows(
+        ClientException.class,
+        () -> session.run(cypher).consume()
+      );
+      assertTrue(
+        exception
+          .getMessage()
+          .contains(ProcedureGraphTraversal.CYCLE_FOUND)
+      );
+    }
+  }
+}
@@ -7,6 +7,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.stream.Stream;
 import org.ek.n23.entity.Action;
+import org.ek.n23.utility.ScheduleSummary;
 import org.ek.n23.utility.TestBase;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -42,10 +43,12 @@ class ForwardPathTest extends TestBase {
     that shall be called before any test is executed */
     return new String[] {
       String.format(
-        "MATCH (a:%s {%s:'Start'}) CALL %s(a)",
+        "MATCH (a:%s {%s:'Start'}) CALL %s(a) YIELD %s RETURN %s",
         Action.LABEL_NAME,
         Action.NAME_KEY,
-        ProcedureGraphTraversal.ProcedureName.FORWARD_PATH
+        ProcedureGraphTraversal.ProcedureName.FORWARD_PATH,
+        ScheduleSummary.PROPERTIES_WRITTEN_NAME,
+        ScheduleSummary.PROPERTIES_WRITTEN_NAME
       ),
     };
   }
@@ -94,4 +97,16 @@ class ForwardPathTest extends TestBase {
       assertEquals(result.getValue()[1], earliestFinish);
     }
   }
+
+  @Test
+  void repeatedRunWritesNothing() {
+    try (Session session = driver().session()) {
+      long propertiesWritten = session
+        .run(initialCypher()[0])
+        .single()
+        .get(ScheduleSummary.PROPERTIES_WRITTEN_NAME)
+        .asLong();
+      assertEquals(0, propertiesWritten);
+    }
+  }
 }
@@ -1,12 +1,25 @@
 package org.ek.n23;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.ek.n23.entity.Action;
 import org.ek.n23.entity.Precedes;
+import org.ek.n23.generator.ActionGraphWriter;
+import org.ek.n23.utility.GraphEnds;
+import org.ek.n23.utility.JobInfo;
+import org.ek.n23.utility.SchemaEntry;
 import org.ek.n23.utility.Summary;
 import org.ek.n23.utility.TestBase;
 import org.junit.jupiter.api.Test;
@@ -67,6 +80,9 @@ class GenerateGraphFromConfigNodeTest extends TestBase {
 
   @Test
   void createdGraphMeetsRequirementsSingle() {
+    // clear out the database
+    deleteGraph();
+
     // create graph
     createGraph(-16719473);
 
@@ -86,10 +102,397 @@ class GenerateGraphFromConfigNodeTest extends TestBase {
     testOutgoingRelsCount(nodesCount);
   }
 
+  @Test
+  void createdGraphMeetsRequirementsBatched() {
+    // clear out the database
+    deleteGraph();
+
+    // create graph in batches of 7 nodes and relationships
+    Record summary = createGraphBatched(-16719473, 7);
+
+    // fetch nodesCount
+    int nodesCount = getNodesCount();
+
+    // test that Action node count
+    testActionNodesCount(nodesCount);
+
+    // test Action duration
+    testActionDuration(nodesCount);
+
+    // test starting nodes count
+    testStartingNodesCount();
+
+    // test outgoing rels count
+    testOutgoingRelsCount(nodesCount);
+
+    // test that every batch but the last one has been full
+    testBatchTotals(summary, nodesCount, 7);
+  }
+
+  @Test
+  void createdGraphMeetsRequirementsParallel() {
+    // clear out the database
+    deleteGraph();
+
+    // create graph with 3 workers
+    createGraphParallel(-16719473, 3);
+    List<String> edges = getEdges();
+
+    // fetch nodesCount
+    int nodesCount = getNodesCount();
+
+    // test that Action node count
+    testActionNodesCount(nodesCount);
+
+    // test Action duration
+    testActionDuration(nodesCount);
+
+    // test starting nodes count
+    testStartingNodesCount();
+
+    // test outgoing rels count
+    testOutgoingRelsCount(nodesCount);
+
+    // test that stitching the partitions has not created a cycle
+    testAcyclic(edges, nodesCount);
+
+    // test that the same seed and workers create the same graph again
+    deleteGraph();
+    createGraphParallel(-16719473, 3);
+    assertEquals(nodesCount, getNodesCount());
+    assertEquals(edges, getEdges());
+
+    // test that more workers than processors are accepted
+    deleteGraph();
+    createGraphParallel(-16719473, 100000);
+    testActionNodesCount(getNodesCount());
+  }
+
+  @Test
+  void createdGraphMeetsRequirementsJob() throws InterruptedException {
+    // clear out the database
+    deleteGraph();
+
+    // submit the generation and wait for the job to finish
+    Record job;
+    try (Session session = driver().session()) {
+      long jobId = session
+        .run(
+          String.format(
+            "CALL %s(%s,'%s',%s)",
+            Procedures.ProcedureName.SUBMIT_GENERATION,
+            -16719473,
+            conf.name(),
+            7
+          )
+        )
+        .single()
+        .get(JobInfo.JOB_ID_NAME)
+        .asLong();
+
+      String statusCypher = String.format(
+        "CALL %s(%s)",
+        Procedures.ProcedureName.GENERATION_JOB_STATUS,
+        jobId
+      );
+      job = session.run(statusCypher).single();
+      List<String> unfinished = List.of("QUEUED", "RUNNING");
+      int polls = 0;
+      while (
+        unfinished.contains(job.get(JobInfo.STATUS_NAME).asString()) &&
+        polls++ < 600
+      ) {
+        Thread.sleep(100);
+        job = session.run(statusCypher).single();
+      }
+    }
+
+    // test that the job has written the whole graph
+    assertEquals("SUCCEEDED", job.get(JobInfo.STATUS_NAME).asString());
+    int nodesCount = getNodesCount();
+    assertEquals(nodesCount, job.get(JobInfo.NODES_WRITTEN_NAME).asInt());
+
+    // test that Action node count
+    testActionNodesCount(nodesCount);
+
+    // test Action duration
+    testActionDuration(nodesCount);
+
+    // test starting nodes count
+    testStartingNodesCount();
+
+    // test outgoing rels count
+    testOutgoingRelsCount(nodesCount);
+  }
+
+  @Test
+  void createdGraphsMatchSeeds() {
+    // clear out the database
+    deleteGraph();
+
+    // create one graph per seed on two threads
+    List<Long> seeds = List.of(-16719473L, 42L, 4711L);
+    List<Record> summaries;
+    try (Session session = driver().session()) {
+      summaries =
+        session
+          .run(
+            String.format(
+              "CALL %s(%s,'%s',%s)",
+              Procedures.ProcedureName.GENERATE_GRAPHS_BY_SEEDS_AND_CONFIG,
+              seeds,
+              conf.name(),
+              2
+            )
+          )
+          .list();
+    }
+
+    // test that there is one summary per seed
+    assertEquals(
+      Set.copyOf(seeds),
+      summaries
+        .stream()
+        .map(summary -> summary.get(Summary.SEED).asLong())
+        .collect(Collectors.toSet())
+    );
+
+    // test that all graphs have been created, each with a start and end node
+    int actionCount = summaries
+      .stream()
+      .mapToInt(summary ->
+        summary
+          .get(Summary.NODES_MAP)
+          .get(Action.LABEL_NAME + " (without start and end node)")
+          .asInt() +
+        2
+      )
+      .sum();
+    assertEquals(actionCount, getNodesCount());
+  }
+
+  @Test
+  void graphCanBeFoundByGraphId() {
+    // clear out the database
+    deleteGraph();
+
+    Record created;
+    Record found;
+    try (Session session = driver().session()) {
+      String createIndexesCypher = String.format(
+        "CALL %s() YIELD %s RETURN %s",
+        Procedures.ProcedureName.CREATE_GRAPH_INDEXES,
+        SchemaEntry.NAME_NAME,
+        SchemaEntry.NAME_NAME
+      );
+      session.run(createIndexesCypher).consume();
+
+      // existing indexes are kept, so a second call creates nothing
+      assertEquals(List.of(), session.run(createIndexesCypher).list());
+      assertTrue(
+        session
+          .run("SHOW INDEXES YIELD name RETURN collect(name) AS names")
+          .single()
+          .get("names")
+          .asList()
+          .contains(Action.LABEL_NAME + "_" + Action.GRAPH_ID_KEY)
+      );
+
+      // create two graphs and look up the first one
+      created =
+        session
+          .run(
+            String.format(
+              "CALL %s(%s,'%s')",
+              Procedures.ProcedureName.GENERATE_GRAPH_BY_SEED_AND_CONFIG,
+              -16719473,
+              conf.name()
+            )
+          )
+          .single();
+      createGraph(42);
+
+      found =
+        session
+          .run(
+            String.format(
+              "CALL %s('%s') YIELD %s, %s RETURN %s.%s AS startGraph, %s.%s AS startName, %s.%s AS endGraph, %s.%s AS endName",
+              Procedures.ProcedureName.FIND_GRAPH,
+              created.get(Summary.GRAPH_ID).asString(),
+              GraphEnds.START_NAME,
+              GraphEnds.END_NAME,
+              GraphEnds.START_NAME,
+              Action.GRAPH_ID_KEY,
+              GraphEnds.START_NAME,
+              Action.NAME_KEY,
+              GraphEnds.END_NAME,
+              Action.GRAPH_ID_KEY,
+              GraphEnds.END_NAME,
+              Action.NAME_KEY
+            )
+          )
+          .single();
+    }
+
+    // test that start and end node of the first graph are returned
+    int actionCount = created
+      .get(Summary.NODES_MAP)
+      .get(Action.LABEL_NAME + " (without start and end node)")
+      .asInt();
+    assertEquals(created.get(Summary.GRAPH_ID), found.get("startGraph"));
+    assertEquals(created.get(Summary.GRAPH_ID), found.get("endGraph"));
+    assertEquals(
+      Action.transformToNodeName(0),
+      found.get("startName").asString()
+    );
+    assertEquals(
+      Action.transformToNodeName(actionCount + 1),
+      found.get("endName").asString()
+    );
+  }
+
+  @Test
+  void deletedGraphIsRemovedCompletely() {
+    // clear out the database
+    deleteGraph();
+
+    // create two graphs and delete the first one in batches of 7
+    Record created;
+    Record deleted;
+    try (Session session = driver().session()) {
+      created =
+        session
+          .run(
+            String.format(
+              "CALL %s(%s,'%s')",
+              Procedures.ProcedureName.GENERATE_GRAPH_BY_SEED_AND_CONFIG,
+              -16719473,
+              conf.name()
+            )
+          )
+          .single();
+      createGraph(42);
+      int nodesCountBefore = getNodesCount();
+
+      deleted =
+        session
+          .run(
+            String.format(
+              "CALL %s('%s',false,%s)",
+              Procedures.ProcedureName.DELETE_GRAPHS,
+              created.get(Summary.GRAPH_ID).asString(),
+              7
+            )
+          )
+          .single();
+
+      // test that exactly the nodes of the first graph are gone
+      int actionCount = created
+        .get(Summary.NODES_MAP)
+        .get(Action.LABEL_NAME + " (without start and end node)")
+        .asInt();
+      assertEquals(
+        actionCount + 2,
+        deleted.get(Summary.NODES_MAP).get(Action.LABEL_NAME).asInt()
+      );
+      assertEquals(nodesCountBefore - actionCount - 2, getNodesCount());
+      assertEquals(
+        0,
+        session
+          .run(
+            String.format(
+              "MATCH (a:%s {%s:'%s'}) RETURN count(a) AS count",
+              Action.LABEL_NAME,
+              Action.GRAPH_ID_KEY,
+              created.get(Summary.GRAPH_ID).asString()
+            )
+          )
+          .single()
+          .get("count")
+          .asInt()
+      );
+    }
+
+    // test that the relationships of start and end node were deleted as well
+    int relationshipsCount =
+      created
+        .get(Summary.RELATIONSHIPS_MAP)
+        .get(Precedes.TYPE_NAME)
+        .asInt();
+    assertTrue(
+      relationshipsCount <
+      deleted.get(Summary.RELATIONSHIPS_MAP).get(Precedes.TYPE_NAME).asInt()
+    );
+  }
+
+  @Test
+  void summaryOfRunCanBeShown() {
+    // clear out the database
+    deleteGraph();
+
+    Record created;
+    Record shown;
+    try (Session session = driver().session()) {
+      created =
+        session
+          .run(
+            String.format(
+              "CALL %s(%s,'%s')",
+              Procedures.ProcedureName.GENERATE_GRAPH_BY_SEED_AND_CONFIG,
+              -16719473,
+              conf.name()
+            )
+          )
+          .single();
+
+      // create another graph so that the first run is not the latest one
+      createGraph(42);
+
+      shown =
+        session
+          .run(
+            String.format(
+              "CALL %s(%s)",
+              Procedures.ProcedureName.SHOW_SUMMARY,
+              created.get(Summary.RUN_ID).asLong()
+            )
+          )
+          .single();
+    }
+
+    // test that the summary of the first run is returned
+    assertEquals(created.get(Summary.RUN_ID), shown.get(Summary.RUN_ID));
+    assertEquals(created.get(Summary.NODES_MAP), shown.get(Summary.NODES_MAP));
+    assertEquals(
+      created.get(Summary.RELATIONSHIPS_MAP),
+      shown.get(Summary.RELATIONSHIPS_MAP)
+    );
+
+    // test that the phases of the run have been timed
+    assertTrue(
+      shown
+        .get(Summary.TIMINGS_MAP)
+        .asMap()
+        .containsKey(ActionGraphWriter.CREATE_NODES_PHASE)
+    );
+    assertTrue(
+      shown
+        .get(Summary.TIMINGS_MAP)
+        .asMap()
+        .containsKey(ActionGraphWriter.CONNECT_START_AND_END_PHASE)
+    );
+  }
+
   /** deletes existing graph in db */
   private void deleteGraph() {
     try (Session session = driver().session()) {
-      session.run(DELETE_ALL_CYPHER);
+      session.run(
+        String.format(
+          "CALL %s('',true,%s)",
+          Procedures.ProcedureName.DELETE_GRAPHS,
+          50
+        )
+      );
     }
   }
 
@@ -113,6 +516,50 @@ class GenerateGraphFromConfigNodeTest extends TestBase {
     }
   }
 
+  /** creates a graph with given seed in batches of batchSize entities */
+  private Record createGraphBatched(int seed, int batchSize) {
+    try (Session session = driver().session()) {
+      return session
+        .run(
+          String.format(
+            "CALL %s(%s,'%s',%s) YIELD %s, %s, %s RETURN %s, %s, %s",
+            Procedures.ProcedureName.GENERATE_GRAPH_BY_SEED_AND_CONFIG_BATCHED,
+            seed,
+            conf.name(),
+            batchSize,
+            Summary.NODES_MAP,
+            Summary.RELATIONSHIPS_MAP,
+            Summary.OTHER_MAP,
+            Summary.NODES_MAP,
+            Summary.RELATIONSHIPS_MAP,
+            Summary.OTHER_MAP
+          )
+        )
+        .single();
+    }
+  }
+
+  /** creates a graph with given seed using the given number of workers */
+  private void createGraphParallel(int seed, int workers) {
+    try (Session session = driver().session()) {
+      session.run(
+        String.format(
+          "CALL %s(%s,'%s',%s) YIELD %s, %s, %s RETURN %s, %s, %s",
+          Procedures.ProcedureName.GENERATE_GRAPH_BY_SEED_AND_CONFIG_PARALLEL,
+          seed,
+          conf.name(),
+          workers,
+          Summary.NODES_MAP,
+          Summary.RELATIONSHIPS_MAP,
+          Summary.OTHER_MAP,
+          Summary.NODES_MAP,
+          Summary.RELATIONSHIPS_MAP,
+          Summary.OTHER_MAP
+        )
+      );
+    }
+  }
+
   /** fetches amount of created Action nodes */
   private int getNodesCount() {
     int nodesCount;
@@ -134,6 +581,99 @@ class GenerateGraphFromConfigNodeTest extends TestBase {
     return nodesCount;
   }
 
+  /** tests that the batch totals of summary add up to the written nodes
+   * and relationships and that every batch but the last one is full */
+  private void testBatchTotals(Record summary, int nodesCount, int batchSize) {
+    int relsCount;
+    String variableName = "relsCount";
+    try (Session session = driver().session()) {
+      relsCount =
+        session
+          .run(
+            String.format(
+              "MATCH ()-[r:%s]->() RETURN count(r) AS %s",
+              Precedes.TYPE_NAME,
+              variableName
+            )
+          )
+          .single()
+          .get(variableName)
+          .asInt();
+    }
+    int entities = nodesCount + relsCount;
+    int batches = (entities + batchSize - 1) / batchSize;
+
+    Map<String, Object> other = summary.get(Summary.OTHER_MAP).asMap();
+    assertEquals(
+      (long) batches,
+      other.get(ActionGraphWriter.BATCHES_INFO)
+    );
+    assertEquals(
+      (long) batchSize,
+      other.get(ActionGraphWriter.LARGEST_BATCH_INFO)
+    );
+    assertEquals(
+      (long) entities - (batches - 1) * batchSize,
+      other.get(ActionGraphWriter.LAST_BATCH_INFO)
+    );
+  }
+
+  /** fetches the PRECEDES relationships as "start name->end name" strings,
+   * together with the durations of their nodes, in a fixed order */
+  private List<String> getEdges() {
+    String variableName = "edge";
+    try (Session session = driver().session()) {
+      return session
+        .run(
+          String.format(
+            "MATCH (a:%s)-[:%s]->(b:%s) RETURN a.%s + ':' + a.%s + '->' + b.%s + ':' + b.%s AS %s ORDER BY %s",
+            Action.LABEL_NAME,
+            Precedes.TYPE_NAME,
+            Action.LABEL_NAME,
+            Action.NAME_KEY,
+            Action.DURATION_KEY,
+            Action.NAME_KEY,
+            Action.DURATION_KEY,
+            variableName,
+            variableName
+          )
+        )
+        .list(resultRecord -> resultRecord.get(variableName).asString());
+    }
+  }
+
+  /** tests that the edges contain no cycle by removing nodes without
+   * predecessors until all nodes are removed (Kahn's algorithm) */
+  private void testAcyclic(List<String> edges, int nodesCount) {
+    Map<String, List<String>> successors = new HashMap<>();
+    Map<String, Integer> predecessorCounts = new HashMap<>();
+    for (String edge : edges) {
+      String[] ends = edge.split("->");
+      successors.computeIfAbsent(ends[0], k -> new ArrayList<>()).add(ends[1]);
+      predecessorCounts.putIfAbsent(ends[0], 0);
+      predecessorCounts.merge(ends[1], 1, Integer::sum);
+    }
+
+    Deque<String> withoutPredecessors = new ArrayDeque<>();
+    predecessorCounts.forEach((node, count) -> {
+      if (count == 0) {
+        withoutPredecessors.add(node);
+      }
+    });
+    int removed = 0;
+    while (!withoutPredecessors.isEmpty()) {
+      String node = withoutPredecessors.poll();
+      removed++;
+      for (String successor : successors.getOrDefault(node, List.of())) {
+        if (predecessorCounts.merge(successor, -1, Integer::sum) == 0) {
+          withoutPredecessors.add(successor);
+        }
+      }
+    }
+    assertEquals(nodesCount, predecessorCounts.size());
+    assertEquals(nodesCount, removed);
+  }
+
   /** tests that Action node count is conform with config */
   private void testActionNodesCount(int nodesCount) {
     assertTrue(conf.actionCount().min() <= nodesCount);
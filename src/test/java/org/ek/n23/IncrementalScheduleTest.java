@@ -0,0 +1,221 @@
+package org.ek.n23;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.ek.n23.entity.Action;
+import org.ek.n23.utility.ScheduleUpdate;
+import org.ek.n23.utility.TestBase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.exceptions.ClientException;
+
+/**
+ * These tests verify that updateDuration and addDependency leave the
+ * same schedule on the nodes as a calculation from scratch and that they
+ * only touch the nodes whose values can change.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class IncrementalScheduleTest extends TestBase {
+
+  private static final String SCHEDULE_CYPHER = String.format(
+    "MATCH (a:%s) RETURN a.%s AS name, [a.%s, a.%s, a.%s, a.%s] AS schedule",
+    Action.LABEL_NAME,
+    Action.NAME_KEY,
+    Action.EARLIEST_START_KEY,
+    Action.EARLIEST_FINISH_KEY,
+    Action.LATEST_START_KEY,
+    Action.LATEST_FINISH_KEY
+  );
+
+  private static final String COMPUTE_CYPHER = String.format(
+    "MATCH (a:%s {%s:'Start'}) CALL %s(a) YIELD projectDuration RETURN projectDuration",
+    Action.LABEL_NAME,
+    Action.NAME_KEY,
+    ProcedureGraphTraversal.ProcedureName.COMPUTE_SCHEDULE
+  );
+
+  private String fixture;
+
+  @Override
+  protected InputStream inputStreamOfCypherFile() {
+    // read in the cypher file in the folder test/resources
+    return getClass().getResourceAsStream("/projectScheduleForward.cypher");
+  }
+
+  @Override
+  protected Stream<Class<?>> procedureClasses() {
+    // state the class (or classes) that these tests apply to
+    return Stream.of(ProcedureGraphTraversal.class);
+  }
+
+  @Override
+  protected String[] initialCypher() {
+    // the graph is recreated before every test
+    return new String[0];
+  }
+
+  @Override
+  protected void otherBeforeAllStuff() {
+    try (InputStream inputStream = inputStreamOfCypherFile()) {
+      fixture = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @BeforeEach
+  void recreateGraphWithSchedule() {
+    try (Session session = driver().session()) {
+      session.run(DELETE_ALL_CYPHER).consume();
+      session.run(fixture).consume();
+      session.run(COMPUTE_CYPHER).consume();
+    }
+  }
+
+  @Test
+  void durationChangeOfNonCriticalActionTouchesFewNodes() {
+    Record update = callUpdate(
+      ProcedureGraphTraversal.ProcedureName.UPDATE_DURATION,
+      "E",
+      "5"
+    );
+
+    // E finishes later, B has to start earlier, A and H stay the same
+    assertEquals(4, update.get(ScheduleUpdate.NODES_TOUCHED_NAME).asLong());
+    assertEquals(2, update.get(ScheduleUpdate.NODES_CHANGED_NAME).asLong());
+    assertEquals(21, update.get(ScheduleUpdate.PROJECT_DURATION_NAME).asLong());
+    assertScheduleIsUpToDate();
+  }
+
+  @Test
+  void durationChangeOfCriticalActionChangesProjectDuration() {
+    Record update = callUpdate(
+      ProcedureGraphTraversal.ProcedureName.UPDATE_DURATION,
+      "H",
+      "10"
+    );
+    assertEquals(23, update.get(ScheduleUpdate.PROJECT_DURATION_NAME).asLong());
+    assertScheduleIsUpToDate();
+
+    update =
+      callUpdate(
+        ProcedureGraphTraversal.ProcedureName.UPDATE_DURATION,
+        "H",
+        "2"
+      );
+    assertEquals(19, update.get(ScheduleUpdate.PROJECT_DURATION_NAME).asLong());
+    assertScheduleIsUpToDate();
+  }
+
+  @Test
+  void addedDependencyUpdatesSchedule() {
+    Record update = callUpdate(
+      ProcedureGraphTraversal.ProcedureName.ADD_DEPENDENCY,
+      "D",
+      "(:Action {name:'F'})"
+    );
+
+    // F now starts after D, which delays H and the end by 4
+    assertEquals(25, update.get(ScheduleUpdate.PROJECT_DURATION_NAME).asLong());
+    assertScheduleIsUpToDate();
+  }
+
+  @Test
+  void dependencyCreatingACycleIsRejected() {
+    assertThrows(
+      ClientException.class,
+      () ->
+        callUpdate(
+          ProcedureGraphTraversal.ProcedureName.ADD_DEPENDENCY,
+          "H",
+          "(:Action {name:'B'})"
+        )
+    );
+  }
+
+  @Test
+  void cycleIsFoundWithOutdatedSchedule() {
+    // the stored start of every node but H now lies after the one of H
+    try (Session session = driver().session()) {
+      session
+        .run(
+          String.format(
+            "MATCH (a:%s) WHERE a.%s <> 'H' SET a.%s = 100",
+            Action.LABEL_NAME,
+            Action.NAME_KEY,
+            Action.EARLIEST_START_KEY
+          )
+        )
+        .consume();
+    }
+
+    assertThrows(
+      ClientException.class,
+      () ->
+        callUpdate(
+          ProcedureGraphTraversal.ProcedureName.ADD_DEPENDENCY,
+          "H",
+          "(:Action {name:'B'})"
+        )
+    );
+  }
+
+  /* calls procedure on the node named name and argument, which is
+   * either a value or a pattern that matches exactly one node */
+  private Record callUpdate(String procedure, String name, String argument) {
+    String cypher = argument.startsWith("(")
+      ? String.format(
+        "MATCH (a:Action {name:'%s'}), (b%s CALL %s(a, b) YIELD %s, %s, %s RETURN *",
+        name,
+        argument.substring(1),
+        procedure,
+        ScheduleUpdate.NODES_TOUCHED_NAME,
+        ScheduleUpdate.NODES_CHANGED_NAME,
+        ScheduleUpdate.PROJECT_DURATION_NAME
+      )
+      : String.format(
+        "MATCH (a:Action {name:'%s'}) CALL %s(a, %s) YIELD %s, %s, %s RETURN *",
+        name,
+        procedure,
+        argument,
+        ScheduleUpdate.NODES_TOUCHED_NAME,
+        ScheduleUpdate.NODES_CHANGED_NAME,
+        ScheduleUpdate.PROJECT_DURATION_NAME
+      );
+    try (Session session = driver().session()) {
+      return session.run(cypher).single();
+    }
+  }
+
+  // compares the schedule on the nodes with a calculation from scratch
+  private void assertScheduleIsUpToDate() {
+    try (Session session = driver().session()) {
+      Map<String, List<Object>> updated = readSchedule(session);
+      session.run(COMPUTE_CYPHER).consume();
+      assertEquals(readSchedule(session), updated);
+    }
+  }
+
+  private Map<String, List<Object>> readSchedule(Session session) {
+    return session
+      .run(SCHEDULE_CYPHER)
+      .stream()
+      .collect(
+        Collectors.toMap(
+          rec -> rec.get("name").asString(),
+          rec -> rec.get("schedule").asList()
+        )
+      );
+  }
+}
@@ -0,0 +1,92 @@
+package org.ek.n23;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.stream.Stream;
+import org.ek.n23.entity.Action;
+import org.ek.n23.utility.RankedPath;
+import org.ek.n23.utility.TestBase;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Session;
+
+/**
+ * These tests verify that longestPaths returns the paths of the example
+ * of the forward path test in the order of their length.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class LongestPathsTest extends TestBase {
+
+  @Override
+  protected InputStream inputStreamOfCypherFile() {
+    // read in the cypher file in the folder test/resources
+    return getClass().getResourceAsStream("/projectScheduleForward.cypher");
+  }
+
+  @Override
+  protected Stream<Class<?>> procedureClasses() {
+    // state the class (or classes) that these tests apply to
+    return Stream.of(ProcedureGraphTraversal.class);
+  }
+
+  @Override
+  protected String[] initialCypher() {
+    return new String[0];
+  }
+
+  @Test
+  void pathsAreReturnedLongestFirst() {
+    List<Record> paths = longestPaths(10);
+
+    // there are only three paths from Start to End
+    assertEquals(3, paths.size());
+    assertEquals(
+      List.of("Start", "A", "C", "F", "H", "End"),
+      paths.get(0).get("names").asList()
+    );
+    for (int rank = 0; rank < paths.size(); rank++) {
+      Record path = paths.get(rank);
+      assertEquals(rank, path.get(RankedPath.RANK_NAME).asLong());
+      assertEquals(
+        rank == 0 ? 21 : 19,
+        path.get(RankedPath.LENGTH_NAME).asLong()
+      );
+      assertEquals(rank == 0 ? 0 : 2, path.get(RankedPath.SLACK_NAME).asLong());
+    }
+  }
+
+  @Test
+  void onlyKPathsAreReturned() {
+    assertEquals(1, longestPaths(1).size());
+  }
+
+  private List<Record> longestPaths(int k) {
+    try (Session session = driver().session()) {
+      return session
+        .run(
+          String.format(
+            "MATCH (s:%s {%s:'Start'}), (e:%s {%s:'End'}) CALL %s(s, e, %d) YIELD %s, %s, %s, %s RETURN %s, %s, %s, [n IN nodes(%s) | n.%s] AS names",
+            Action.LABEL_NAME,
+            Action.NAME_KEY,
+            Action.LABEL_NAME,
+            Action.NAME_KEY,
+            ProcedureGraphTraversal.ProcedureName.LONGEST_PATHS,
+            k,
+            RankedPath.RANK_NAME,
+            RankedPath.PATH_NAME,
+            RankedPath.LENGTH_NAME,
+            RankedPath.SLACK_NAME,
+            RankedPath.RANK_NAME,
+            RankedPath.LENGTH_NAME,
+            RankedPath.SLACK_NAME,
+            RankedPath.PATH_NAME,
+            Action.NAME_KEY
+          )
+        )
+        .list();
+    }
+  }
+}
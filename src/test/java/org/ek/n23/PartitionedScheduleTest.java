@@ -0,0 +1,173 @@
+package org.ek.n23;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.ek.n23.entity.Action;
+import org.ek.n23.utility.ScheduleSummary;
+import org.ek.n23.utility.TestBase;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Session;
+
+/**
+ * These tests verify that computeSchedulePartitioned leaves the same
+ * schedule on the nodes as computeSchedule, on the example of the forward
+ * path test split into four partitions, and that projects that precede
+ * the program are found.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PartitionedScheduleTest extends TestBase {
+
+  private static final String SCHEDULE_CYPHER = String.format(
+    "MATCH (a:%s) RETURN a.%s AS name, [a.%s, a.%s, a.%s, a.%s] AS schedule",
+    Action.LABEL_NAME,
+    Action.NAME_KEY,
+    Action.EARLIEST_START_KEY,
+    Action.EARLIEST_FINISH_KEY,
+    Action.LATEST_START_KEY,
+    Action.LATEST_FINISH_KEY
+  );
+
+  @Override
+  protected InputStream inputStreamOfCypherFile() {
+    // read in the cypher file in the folder test/resources
+    return getClass().getResourceAsStream("/projectSchedulePartitioned.cypher");
+  }
+
+  @Override
+  protected Stream<Class<?>> procedureClasses() {
+    // state the class (or classes) that these tests apply to
+    return Stream.of(ProcedureGraphTraversal.class);
+  }
+
+  @Override
+  protected String[] initialCypher() {
+    return new String[0];
+  }
+
+  @Test
+  void partitionedScheduleMatchesSchedule() {
+    try (Session session = driver().session()) {
+      Record summary = callOnStart(
+        session,
+        "Start",
+        ProcedureGraphTraversal.ProcedureName.COMPUTE_SCHEDULE_PARTITIONED
+      );
+
+      // p1, p3 and the group of p2 and p4
+      assertEquals(3, summary.get(ScheduleSummary.COMMITS_NAME).asLong());
+      assertEquals(10, summary.get(ScheduleSummary.ACTIONS_NAME).asLong());
+      assertEquals(
+        11,
+        summary.get(ScheduleSummary.RELATIONSHIPS_NAME).asLong()
+      );
+      assertEquals(
+        21,
+        summary.get(ScheduleSummary.PROJECT_DURATION_NAME).asLong()
+      );
+
+      // a calculation from scratch does not change anything
+      Map<String, List<Object>> partitioned = readSchedule(session);
+      summary =
+        callOnStart(
+          session,
+          "Start",
+          ProcedureGraphTraversal.ProcedureName.COMPUTE_SCHEDULE
+        );
+      assertEquals(
+        0,
+        summary.get(ScheduleSummary.PROPERTIES_WRITTEN_NAME).asLong()
+      );
+      assertEquals(readSchedule(session), partitioned);
+    }
+  }
+
+  @Test
+  void upstreamProjectIsFound() {
+    try (Session session = driver().session()) {
+      Record summary = callOnStart(
+        session,
+        "QStart",
+        ProcedureGraphTraversal.ProcedureName.COMPUTE_SCHEDULE_PARTITIONED
+      );
+
+      // q1 and q0, which QA has to wait for
+      assertEquals(2, summary.get(ScheduleSummary.COMMITS_NAME).asLong());
+      assertEquals(4, summary.get(ScheduleSummary.ACTIONS_NAME).asLong());
+      assertEquals(
+        7,
+        summary.get(ScheduleSummary.PROJECT_DURATION_NAME).asLong()
+      );
+
+      Map<String, List<Object>> schedule = readSchedule(session);
+      assertEquals(List.of(0l, 5l, 0l, 5l), schedule.get("QU"));
+      assertEquals(List.of(5l, 7l, 5l, 7l), schedule.get("QA"));
+      assertEquals(List.of(7l, 7l, 7l, 7l), schedule.get("QEnd"));
+    }
+  }
+
+  @Test
+  void unconnectedPartitionIsLoaded() {
+    try (Session session = driver().session()) {
+      Record summary = callOnStart(
+        session,
+        "RStart",
+        ProcedureGraphTraversal.ProcedureName.COMPUTE_SCHEDULE_PARTITIONED
+      );
+
+      // RU1 and RU2 of r0 are only connected through RA of r1
+      assertEquals(2, summary.get(ScheduleSummary.COMMITS_NAME).asLong());
+      assertEquals(4, summary.get(ScheduleSummary.ACTIONS_NAME).asLong());
+      assertEquals(
+        6,
+        summary.get(ScheduleSummary.PROJECT_DURATION_NAME).asLong()
+      );
+
+      Map<String, List<Object>> schedule = readSchedule(session);
+      assertEquals(List.of(0l, 3l, 1l, 4l), schedule.get("RU1"));
+      assertEquals(List.of(0l, 4l, 0l, 4l), schedule.get("RU2"));
+      assertEquals(List.of(4l, 6l, 4l, 6l), schedule.get("RA"));
+    }
+  }
+
+  private Record callOnStart(
+    Session session,
+    String startName,
+    String procedure
+  ) {
+    return session
+      .run(
+        String.format(
+          "MATCH (s:%s {%s:'%s'}) CALL %s(s) YIELD %s, %s, %s, %s, %s RETURN *",
+          Action.LABEL_NAME,
+          Action.NAME_KEY,
+          startName,
+          procedure,
+          ScheduleSummary.ACTIONS_NAME,
+          ScheduleSummary.RELATIONSHIPS_NAME,
+          ScheduleSummary.PROJECT_DURATION_NAME,
+          ScheduleSummary.PROPERTIES_WRITTEN_NAME,
+          ScheduleSummary.COMMITS_NAME
+        )
+      )
+      .single();
+  }
+
+  private Map<String, List<Object>> readSchedule(Session session) {
+    return session
+      .run(SCHEDULE_CYPHER)
+      .stream()
+      .collect(
+        Collectors.toMap(
+          rec -> rec.get("name").asString(),
+          rec -> rec.get("schedule").asList()
+        )
+      );
+  }
+}
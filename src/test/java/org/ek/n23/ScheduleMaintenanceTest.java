@@ -0,0 +1,206 @@
+package org.ek.n23;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.ek.n23.entity.Action;
+import org.ek.n23.extension.ScheduleMaintenance;
+import org.ek.n23.utility.TestBase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.TransactionConfig;
+
+/**
+ * These tests verify that the ScheduleMaintenance extension updates the
+ * schedule after changes that are made with plain Cypher.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ScheduleMaintenanceTest extends TestBase {
+
+  // time the tests wait for the update at most
+  private static final long TIMEOUT_MILLIS =
+    100 * ScheduleMaintenance.DELAY_MILLIS;
+
+  private static final String COMPUTE_CYPHER = String.format(
+    "MATCH (a:%s {%s:'Start'}) CALL %s(a) YIELD projectDuration RETURN projectDuration",
+    Action.LABEL_NAME,
+    Action.NAME_KEY,
+    ProcedureGraphTraversal.ProcedureName.COMPUTE_SCHEDULE
+  );
+
+  private String fixture;
+
+  @Override
+  protected InputStream inputStreamOfCypherFile() {
+    // read in the cypher file in the folder test/resources
+    return getClass().getResourceAsStream("/projectScheduleForward.cypher");
+  }
+
+  @Override
+  protected Stream<Class<?>> procedureClasses() {
+    // state the class (or classes) that these tests apply to
+    return Stream.of(ProcedureGraphTraversal.class);
+  }
+
+  @Override
+  protected String[] initialCypher() {
+    // the graph is recreated before every test
+    return new String[0];
+  }
+
+  @Override
+  protected void otherBeforeAllStuff() {
+    try (InputStream inputStream = inputStreamOfCypherFile()) {
+      fixture = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @BeforeEach
+  void recreateGraphWithSchedule() {
+    try (Session session = driver().session()) {
+      session.run(DELETE_ALL_CYPHER).consume();
+      session.run(fixture).consume();
+      session.run(COMPUTE_CYPHER).consume();
+    }
+  }
+
+  @Test
+  void durationChangeIsPickedUp() throws InterruptedException {
+    try (Session session = driver().session()) {
+      session.run("MATCH (e:Action {name:'E'}) SET e.duration = 5").consume();
+    }
+
+    // earliest start, earliest finish, latest start, latest finish
+    awaitSchedule("E", List.of(7l, 12l, 8l, 13l));
+    awaitSchedule("B", List.of(3l, 7l, 4l, 8l));
+  }
+
+  @Test
+  void burstOfNewDependenciesIsPickedUp() throws InterruptedException {
+    try (Session session = driver().session()) {
+      for (String name : List.of("B", "C", "D")) {
+        session
+          .run(
+            "MATCH (a:Action {name:$name}), (f:Action {name:'F'}) CREATE (a)-[:PRECEDES]->(f)",
+            Map.of("name", name)
+          )
+          .consume();
+      }
+    }
+
+    // F now starts after D, which delays H and the end by 4
+    awaitSchedule("F", List.of(13l, 17l, 13l, 17l));
+    awaitSchedule("End", List.of(25l, 25l, 25l, 25l));
+  }
+
+  @Test
+  void updatesGoOnAfterCycle() throws InterruptedException {
+    try (Session session = driver().session()) {
+      // a second graph that is not connected to the fixture
+      session
+        .run(
+          String.format(
+            "CREATE (x:%s {%s:'X', %s:2, %s:'other'})-[:PRECEDES]->" +
+            "(:%s {%s:'Y', %s:3, %s:'other'}) WITH x CALL %s(x) YIELD projectDuration " +
+            "RETURN projectDuration",
+            Action.LABEL_NAME,
+            Action.NAME_KEY,
+            Action.DURATION_KEY,
+            Action.GRAPH_ID_KEY,
+            Action.LABEL_NAME,
+            Action.NAME_KEY,
+            Action.DURATION_KEY,
+            Action.GRAPH_ID_KEY,
+            ProcedureGraphTraversal.ProcedureName.COMPUTE_SCHEDULE
+          )
+        )
+        .consume();
+
+      // the update of this change fails, since H already follows B
+      session
+        .run(
+          "MATCH (h:Action {name:'H'}), (b:Action {name:'B'}) CREATE (h)-[:PRECEDES]->(b)"
+        )
+        .consume();
+      Thread.sleep(10 * ScheduleMaintenance.DELAY_MILLIS);
+
+      // the other graph is still updated
+      session.run("MATCH (x:Action {name:'X'}) SET x.duration = 4").consume();
+      awaitSchedule("Y", List.of(4l, 7l, 4l, 7l));
+
+      session
+        .run(
+          "MATCH (:Action {name:'H'})-[p:PRECEDES]->(:Action {name:'B'}) DELETE p"
+        )
+        .consume();
+      session.run("MATCH (e:Action {name:'E'}) SET e.duration = 5").consume();
+    }
+
+    // without the cycle, the fixture is updated again
+    awaitSchedule("E", List.of(7l, 12l, 8l, 13l));
+    awaitSchedule("B", List.of(3l, 7l, 4l, 8l));
+  }
+
+  @Test
+  void markedTransactionIsSkipped() throws InterruptedException {
+    List<Object> before = schedule("E");
+    try (Session session = driver().session()) {
+      session
+        .run(
+          "MATCH (e:Action {name:'E'}) SET e.duration = 5",
+          TransactionConfig
+            .builder()
+            .withMetadata(Map.of(ScheduleMaintenance.IGNORE_CHANGES_KEY, true))
+            .build()
+        )
+        .consume();
+    }
+
+    // no update is planned, so the old schedule stays
+    Thread.sleep(10 * ScheduleMaintenance.DELAY_MILLIS);
+    assertEquals(before, schedule("E"));
+  }
+
+  // waits until the schedule of the node named name is expected
+  private void awaitSchedule(String name, List<Long> expected)
+    throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    List<Object> schedule;
+    do {
+      Thread.sleep(ScheduleMaintenance.DELAY_MILLIS / 2);
+      schedule = schedule(name);
+    } while (
+      !schedule.equals(expected) && System.currentTimeMillis() < deadline
+    );
+    assertEquals(expected, schedule);
+  }
+
+  // returns the stored schedule of the node named name
+  private List<Object> schedule(String name) {
+    String cypher = String.format(
+      "MATCH (a:%s {%s:$name}) RETURN [a.%s, a.%s, a.%s, a.%s] AS schedule",
+      Action.LABEL_NAME,
+      Action.NAME_KEY,
+      Action.EARLIEST_START_KEY,
+      Action.EARLIEST_FINISH_KEY,
+      Action.LATEST_START_KEY,
+      Action.LATEST_FINISH_KEY
+    );
+    try (Session session = driver().session()) {
+      return session
+        .run(cypher, Map.of("name", name))
+        .single()
+        .get("schedule")
+        .asList();
+    }
+  }
+}
@@ -0,0 +1,183 @@
+package org.ek.n23;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Stream;
+import org.ek.n23.entity.Action;
+import org.ek.n23.utility.ProjectSchedule;
+import org.ek.n23.utility.TestBase;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Session;
+
+/**
+ * These tests verify that schedulePortfolio calculates the schedule of
+ * every project on three copies of the example of the forward path test.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SchedulePortfolioTest extends TestBase {
+
+  private static final int PROJECTS = 3;
+
+  @Override
+  protected InputStream inputStreamOfCypherFile() {
+    // read in the cypher file in the folder test/resources
+    return getClass().getResourceAsStream("/projectScheduleForward.cypher");
+  }
+
+  @Override
+  protected Stream<Class<?>> procedureClasses() {
+    // state the class (or classes) that these tests apply to
+    return Stream.of(ProcedureGraphTraversal.class);
+  }
+
+  @Override
+  protected String[] initialCypher() {
+    return new String[0];
+  }
+
+  @Override
+  protected void otherBeforeAllStuff() {
+    // the cypher file has been run once, add the other copies
+    try (
+      InputStream inputStream = inputStreamOfCypherFile();
+      Session session = driver().session()
+    ) {
+      String fixture = new String(
+        inputStream.readAllBytes(),
+        StandardCharsets.UTF_8
+      );
+      for (int i = 1; i < PROJECTS; i++) {
+        session.run(fixture).consume();
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Test
+  void everySourceIsScheduled() {
+    List<Record> projects;
+    try (Session session = driver().session()) {
+      projects =
+        session
+          .run(
+            String.format(
+              "CALL %s() YIELD %s, %s, %s RETURN *",
+              ProcedureGraphTraversal.ProcedureName.SCHEDULE_PORTFOLIO,
+              ProjectSchedule.NAME_NAME,
+              ProjectSchedule.ACTIONS_NAME,
+              ProjectSchedule.PROJECT_DURATION_NAME
+            )
+          )
+          .list();
+    }
+
+    assertEquals(PROJECTS, projects.size());
+    for (Record project : projects) {
+      assertEquals("Start", project.get(ProjectSchedule.NAME_NAME).asString());
+      assertEquals(10, project.get(ProjectSchedule.ACTIONS_NAME).asLong());
+      assertEquals(
+        21,
+        project.get(ProjectSchedule.PROJECT_DURATION_NAME).asLong()
+      );
+    }
+    assertEveryEndIsScheduled();
+  }
+
+  @Test
+  void givenStartNodesAreScheduled() {
+    List<Record> projects;
+    try (Session session = driver().session()) {
+      projects =
+        session
+          .run(
+            String.format(
+              "MATCH (s:%s {%s:'Start'}) WITH collect(s)[0..2] AS starts CALL %s(starts, 2) YIELD %s RETURN *",
+              Action.LABEL_NAME,
+              Action.NAME_KEY,
+              ProcedureGraphTraversal.ProcedureName.SCHEDULE_PORTFOLIO,
+              ProjectSchedule.PROJECT_DURATION_NAME
+            )
+          )
+          .list();
+    }
+    assertEquals(2, projects.size());
+  }
+
+  @Test
+  void projectWithTwoSourcesIsScheduledOnce() {
+    String deleteCypher = String.format(
+      "MATCH (a:%s {%s:'two sources'}) DETACH DELETE a",
+      Action.LABEL_NAME,
+      Action.GRAPH_ID_KEY
+    );
+    try (Session session = driver().session()) {
+      session
+        .run(
+          String.format(
+            "CREATE (:%1$s {%2$s:'S1', %3$s:2, %4$s:'two sources'})-[:PRECEDES]->" +
+            "(m:%1$s {%2$s:'M', %3$s:3, %4$s:'two sources'}), " +
+            "(:%1$s {%2$s:'S2', %3$s:5, %4$s:'two sources'})-[:PRECEDES]->(m)",
+            Action.LABEL_NAME,
+            Action.NAME_KEY,
+            Action.DURATION_KEY,
+            Action.GRAPH_ID_KEY
+          )
+        )
+        .consume();
+      try {
+        List<Record> projects = session
+          .run(
+            String.format(
+              "MATCH (s:%s) WHERE s.%s IN ['S1', 'S2'] WITH collect(s) AS starts " +
+              "CALL %s(starts) YIELD %s, %s RETURN *",
+              Action.LABEL_NAME,
+              Action.NAME_KEY,
+              ProcedureGraphTraversal.ProcedureName.SCHEDULE_PORTFOLIO,
+              ProjectSchedule.ACTIONS_NAME,
+              ProjectSchedule.PROJECT_DURATION_NAME
+            )
+          )
+          .list();
+
+        // M waits for S2, which is not reachable from S1
+        assertEquals(1, projects.size());
+        assertEquals(
+          3,
+          projects.get(0).get(ProjectSchedule.ACTIONS_NAME).asLong()
+        );
+        assertEquals(
+          8,
+          projects.get(0).get(ProjectSchedule.PROJECT_DURATION_NAME).asLong()
+        );
+      } finally {
+        session.run(deleteCypher).consume();
+      }
+    }
+  }
+
+  // checks the latest finish of the End nodes of all projects
+  private void assertEveryEndIsScheduled() {
+    try (Session session = driver().session()) {
+      List<Object> latestFinishes = session
+        .run(
+          String.format(
+            "MATCH (e:%s {%s:'End'}) RETURN collect(e.%s) AS latestFinishes",
+            Action.LABEL_NAME,
+            Action.NAME_KEY,
+            Action.LATEST_FINISH_KEY
+          )
+        )
+        .single()
+        .get("latestFinishes")
+        .asList();
+      assertEquals(List.of(21l, 21l, 21l), latestFinishes);
+    }
+  }
+}
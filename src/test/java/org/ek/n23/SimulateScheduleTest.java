@@ -0,0 +1,130 @@
+package org.ek.n23;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.ek.n23.cpm.MonteCarloSimulation;
+import org.ek.n23.entity.Action;
+import org.ek.n23.utility.ActionCriticality;
+import org.ek.n23.utility.TestBase;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.exceptions.ClientException;
+
+/**
+ * These tests verify simulateSchedule on the example of the forward path
+ * test, in which only E has an uncertain duration between 4 and 8.
+ * The project takes 21 as long as E takes at most 6, which happens in
+ * about 75 percent of the iterations, otherwise E is critical instead of C.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SimulateScheduleTest extends TestBase {
+
+  @Override
+  protected InputStream inputStreamOfCypherFile() {
+    // read in the cypher file in the folder test/resources
+    return getClass().getResourceAsStream("/projectScheduleForward.cypher");
+  }
+
+  @Override
+  protected Stream<Class<?>> procedureClasses() {
+    // state the class (or classes) that these tests apply to
+    return Stream.of(ProcedureGraphTraversal.class);
+  }
+
+  @Override
+  protected String[] initialCypher() {
+    return new String[] {
+      String.format(
+        "MATCH (e:%s {%s:'E'}) SET e.%s = 4, e.%s = 4, e.%s = 8",
+        Action.LABEL_NAME,
+        Action.NAME_KEY,
+        Action.OPTIMISTIC_DURATION_KEY,
+        Action.LIKELY_DURATION_KEY,
+        Action.PESSIMISTIC_DURATION_KEY
+      ),
+    };
+  }
+
+  @Test
+  void uncertainActionIsSometimesCritical() {
+    Map<String, Record> actions = simulate(1);
+    Map<String, Object> percentiles = actions
+      .get("Start")
+      .get(ActionCriticality.PERCENTILES_MAP)
+      .asMap();
+
+    assertEquals(21.0, (double) percentiles.get("p50"));
+    assertTrue((double) percentiles.get("p99") > 21);
+    assertEquals(1.0, criticality(actions, "A"));
+    assertEquals(0.0, criticality(actions, "G"));
+    assertTrue(criticality(actions, "E") > 0.2);
+    assertTrue(criticality(actions, "E") < 0.3);
+    assertEquals(
+      1.0,
+      criticality(actions, "C") + criticality(actions, "E"),
+      0.001
+    );
+  }
+
+  @Test
+  void resultsDoNotDependOnWorkers() {
+    assertEquals(simulate(1), simulate(3));
+  }
+
+  @Test
+  void tooManyIterationsAreRejected() {
+    // the project durations of all iterations would be allocated at once
+    assertThrows(
+      ClientException.class,
+      () -> simulate(MonteCarloSimulation.MAX_ITERATIONS + 1L, 1)
+    );
+  }
+
+  // simulates 5000 iterations with seed 7 and returns the rows by name
+  private Map<String, Record> simulate(int workers) {
+    return simulate(5000, workers);
+  }
+
+  private Map<String, Record> simulate(long iterations, int workers) {
+    try (Session session = driver().session()) {
+      return session
+        .run(
+          String.format(
+            "MATCH (s:%s {%s:'Start'}) CALL %s(s, %d, 7, %d) YIELD %s, %s, %s, %s RETURN *",
+            Action.LABEL_NAME,
+            Action.NAME_KEY,
+            ProcedureGraphTraversal.ProcedureName.SIMULATE_SCHEDULE,
+            iterations,
+            workers,
+            ActionCriticality.NAME_NAME,
+            ActionCriticality.CRITICALITY_NAME,
+            ActionCriticality.MEAN_DURATION_NAME,
+            ActionCriticality.PERCENTILES_MAP
+          )
+        )
+        .stream()
+        .collect(
+          Collectors.toMap(
+            rec -> rec.get(ActionCriticality.NAME_NAME).asString(),
+            rec -> rec
+          )
+        );
+    }
+  }
+
+  private double criticality(Map<String, Record> actions, String name) {
+    return actions
+      .get(name)
+      .get(ActionCriticality.CRITICALITY_NAME)
+      .asDouble();
+  }
+}
@@ -0,0 +1,148 @@
+package org.ek.n23;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.ek.n23.entity.Action;
+import org.ek.n23.utility.ScheduleChange;
+import org.ek.n23.utility.TestBase;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.exceptions.ClientException;
+
+/**
+ * These tests verify that whatIf returns the same changes as
+ * updateDuration and addDependency on the example of the forward path
+ * test, without writing anything.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class WhatIfTest extends TestBase {
+
+  @Override
+  protected InputStream inputStreamOfCypherFile() {
+    // read in the cypher file in the folder test/resources
+    return getClass().getResourceAsStream("/projectScheduleForward.cypher");
+  }
+
+  @Override
+  protected Stream<Class<?>> procedureClasses() {
+    // state the class (or classes) that these tests apply to
+    return Stream.of(ProcedureGraphTraversal.class);
+  }
+
+  @Override
+  protected String[] initialCypher() {
+    return new String[0];
+  }
+
+  @Test
+  void longerDurationMovesOnlyAffectedActions() {
+    Map<String, Record> changes = whatIf("{E: 5}, []");
+
+    // E finishes later, B has to start earlier, the end stays the same
+    assertEquals(
+      List.of("B", "E"),
+      changes.keySet().stream().sorted().toList()
+    );
+    assertEquals(List.of(7l, 12l, 8l, 13l), values(changes.get("E")));
+    assertEquals(List.of(3l, 7l, 4l, 8l), values(changes.get("B")));
+    assertEquals(
+      0,
+      changes
+        .get("E")
+        .get(ScheduleChange.PROJECT_DURATION_CHANGE_NAME)
+        .asLong()
+    );
+    assertNothingWritten();
+  }
+
+  @Test
+  void addedDependencyDelaysProject() {
+    Map<String, Record> changes = whatIf("{}, [['D', 'F']]");
+
+    // F now starts after D, which delays H and the end by 4
+    assertEquals(List.of(13l, 17l, 13l, 17l), values(changes.get("F")));
+    assertEquals(
+      25,
+      changes.get("End").get(ScheduleChange.PROJECT_DURATION_NAME).asLong()
+    );
+    assertEquals(
+      4,
+      changes
+        .get("End")
+        .get(ScheduleChange.PROJECT_DURATION_CHANGE_NAME)
+        .asLong()
+    );
+    assertNothingWritten();
+  }
+
+  @Test
+  void removedDependencyMustExist() {
+    assertThrows(ClientException.class, () -> whatIf("{}, [], [['D', 'F']]"));
+  }
+
+  // calls whatIf with arguments and returns the rows by name
+  private Map<String, Record> whatIf(String arguments) {
+    try (Session session = driver().session()) {
+      return session
+        .run(
+          String.format(
+            "MATCH (s:%s {%s:'Start'}) CALL %s(s, %s) YIELD %s, %s, %s, %s, %s, %s, %s RETURN *",
+            Action.LABEL_NAME,
+            Action.NAME_KEY,
+            ProcedureGraphTraversal.ProcedureName.WHAT_IF,
+            arguments,
+            ScheduleChange.NAME_NAME,
+            ScheduleChange.EARLIEST_START_NAME,
+            ScheduleChange.EARLIEST_FINISH_NAME,
+            ScheduleChange.LATEST_START_NAME,
+            ScheduleChange.LATEST_FINISH_NAME,
+            ScheduleChange.PROJECT_DURATION_NAME,
+            ScheduleChange.PROJECT_DURATION_CHANGE_NAME
+          )
+        )
+        .stream()
+        .collect(
+          Collectors.toMap(
+            rec -> rec.get(ScheduleChange.NAME_NAME).asString(),
+            rec -> rec
+          )
+        );
+    }
+  }
+
+  // earliest start, earliest finish, latest start, latest finish
+  private List<Long> values(Record change) {
+    return List.of(
+      change.get(ScheduleChange.EARLIEST_START_NAME).asLong(),
+      change.get(ScheduleChange.EARLIEST_FINISH_NAME).asLong(),
+      change.get(ScheduleChange.LATEST_START_NAME).asLong(),
+      change.get(ScheduleChange.LATEST_FINISH_NAME).asLong()
+    );
+  }
+
+  // the durations are unchanged and no schedule has been written
+  private void assertNothingWritten() {
+    try (Session session = driver().session()) {
+      Record counts = session
+        .run(
+          String.format(
+            "MATCH (a:%s) RETURN sum(a.%s) AS durations, count(a.%s) AS schedules",
+            Action.LABEL_NAME,
+            Action.DURATION_KEY,
+            Action.EARLIEST_START_KEY
+          )
+        )
+        .single();
+      assertEquals(41, counts.get("durations").asLong());
+      assertEquals(0, counts.get("schedules").asLong());
+    }
+  }
+}
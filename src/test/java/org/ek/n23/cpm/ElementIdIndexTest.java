@@ -0,0 +1,45 @@
+package org.ek.n23.cpm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * These tests verify that the ElementIdIndex finds the indices of the
+ * element ids it has been given, also after it has grown.
+ */
+class ElementIdIndexTest {
+
+  @Test
+  void indicesAreFoundAfterGrowing() {
+    ElementIdIndex index = new ElementIdIndex(1);
+
+    // ids far apart and close together, more than the initial capacity
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(ElementIdIndex.ABSENT, index.putIfAbsent(elementId(i), i));
+    }
+
+    assertEquals(1000, index.size());
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i, index.get(elementId(i)));
+    }
+    assertEquals(ElementIdIndex.ABSENT, index.get(elementId(1000)));
+  }
+
+  @Test
+  void firstIndexOfAnElementIdIsKept() {
+    ElementIdIndex index = new ElementIdIndex(4);
+    assertEquals(ElementIdIndex.ABSENT, index.putIfAbsent(elementId(42), 0));
+
+    // adding an element id again returns its index and does not change it
+    assertEquals(0, index.putIfAbsent(elementId(42), 1));
+    assertEquals(0, index.get(new String(elementId(42))));
+    assertEquals(1, index.size());
+  }
+
+  // element ids in the format of the store, "4:<database id>:<node id>"
+  private static String elementId(int i) {
+    long id = i % 2 == 0 ? i : (long) i << 33;
+    return "4:c0a8e0f1-5b6d-4c1e-9f4b-3d2a1e0b7c9d:" + id;
+  }
+}
@@ -0,0 +1,126 @@
+package org.ek.n23.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * These tests verify the set operations of the IndexedRandomSet and that
+ * its random elements are picked uniformly.
+ */
+class IndexedRandomSetTest {
+
+  @Test
+  void addedElementsAreContained() {
+    IndexedRandomSet set = new IndexedRandomSet(10);
+    assertTrue(set.isEmpty());
+
+    assertTrue(set.add(3));
+    assertTrue(set.add(7));
+    // adding an element twice does not change the set
+    assertFalse(set.add(3));
+
+    assertEquals(2, set.size());
+    assertTrue(set.contains(3));
+    assertTrue(set.contains(7));
+    assertFalse(set.contains(0));
+  }
+
+  @Test
+  void removeSwapsLastElementIntoGap() {
+    IndexedRandomSet set = IndexedRandomSet.full(5);
+
+    // 0 is at position 0 and 4 is the last element
+    assertTrue(set.remove(0));
+    assertEquals(4, set.size());
+    assertEquals(4, set.get(0));
+    assertEquals(List.of(4, 1, 2, 3), elementsOf(set));
+
+    // removing the last element leaves the others in place
+    assertTrue(set.remove(3));
+    assertEquals(List.of(4, 1, 2), elementsOf(set));
+
+    // the moved element can still be removed at its new position
+    assertTrue(set.remove(4));
+    assertEquals(List.of(2, 1), elementsOf(set));
+  }
+
+  @Test
+  void removedElementsAreNotContained() {
+    IndexedRandomSet set = IndexedRandomSet.full(3);
+    assertTrue(set.remove(1));
+
+    assertFalse(set.contains(1));
+    assertTrue(set.contains(0));
+    assertTrue(set.contains(2));
+    // removing an element twice does not change the set
+    assertFalse(set.remove(1));
+    assertEquals(2, set.size());
+
+    // a removed element can be added again
+    assertTrue(set.add(1));
+    assertTrue(set.contains(1));
+    assertEquals(3, set.size());
+  }
+
+  @Test
+  void randomElementsArePickedUniformly() {
+    int capacity = 10;
+    int picks = 100_000;
+    IndexedRandomSet set = IndexedRandomSet.full(capacity);
+    // only the even elements remain, so removed elements must not be picked
+    for (int i = 1; i < capacity; i += 2) {
+      set.remove(i);
+    }
+
+    SplittableRandom random = new SplittableRandom(42);
+    int[] counts = new int[capacity];
+    for (int i = 0; i < picks; i++) {
+      counts[set.randomElement(random)]++;
+    }
+
+    double expected = (double) picks / set.size();
+    for (int element = 0; element < capacity; element++) {
+      if (element % 2 == 1) {
+        assertEquals(0, counts[element]);
+      } else {
+        // far more than five standard deviations would be needed to fail
+        assertEquals(expected, counts[element], expected * 0.05);
+      }
+    }
+  }
+
+  @Test
+  void randomElementsDependOnlyOnSeed() {
+    IndexedRandomSet first = IndexedRandomSet.full(100);
+    IndexedRandomSet second = IndexedRandomSet.full(100);
+    SplittableRandom firstRandom = new SplittableRandom(7);
+    SplittableRandom secondRandom = new SplittableRandom(7);
+
+    Set<Integer> picked = new HashSet<>();
+    for (int i = 0; i < 50; i++) {
+      int element = first.randomElement(firstRandom);
+      assertEquals(element, second.randomElement(secondRandom));
+      first.remove(element);
+      second.remove(element);
+      picked.add(element);
+    }
+    assertEquals(50, picked.size());
+    assertEquals(elementsOf(first), elementsOf(second));
+  }
+
+  // the elements in the order of the backing array
+  private static List<Integer> elementsOf(IndexedRandomSet set) {
+    Integer[] elements = new Integer[set.size()];
+    for (int position = 0; position < set.size(); position++) {
+      elements[position] = set.get(position);
+    }
+    return List.of(elements);
+  }
+}
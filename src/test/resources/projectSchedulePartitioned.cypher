@@ -0,0 +1,44 @@
+// the example of projectScheduleForward.cypher in four partitions:
+// p1 precedes p3 and the group of p2 and p4, which precede each other.
+// A second program, in which the upstream project q0 precedes q1, but
+// cannot be reached from the start node of q1. A third program, whose
+// upstream project r0 consists of two actions that are not connected
+
+CREATE
+    (start:Action {name: "Start", duration: 0, graphId: "p1"}),
+    (a:Action {name:"A", duration: 3, graphId: "p1"}),
+    (b:Action {name:"B", duration: 4, graphId: "p2"}),
+    (c:Action {name:"C", duration: 6, graphId: "p3"}),
+    (d:Action {name:"D", duration: 6, graphId: "p4"}),
+    (e:Action {name:"E", duration: 4, graphId: "p2"}),
+    (f:Action {name:"F", duration: 4, graphId: "p3"}),
+    (g:Action {name:"G", duration: 6, graphId: "p2"}),
+    (h:Action {name:"H", duration: 8, graphId: "p4"}),
+    (end:Action {name: "End", duration:0, graphId: "p4"}),
+    (qStart:Action {name: "QStart", duration: 0, graphId: "q1"}),
+    (qa:Action {name:"QA", duration: 2, graphId: "q1"}),
+    (qu:Action {name:"QU", duration: 5, graphId: "q0"}),
+    (qEnd:Action {name: "QEnd", duration: 0, graphId: "q1"}),
+    (rStart:Action {name: "RStart", duration: 0, graphId: "r1"}),
+    (ra:Action {name:"RA", duration: 2, graphId: "r1"}),
+    (ru1:Action {name:"RU1", duration: 3, graphId: "r0"}),
+    (ru2:Action {name:"RU2", duration: 4, graphId: "r0"})
+
+CREATE
+    (start)-[:PRECEDES]->(a),
+    (a)-[:PRECEDES]->(b),
+    (a)-[:PRECEDES]->(c),
+    (b)-[:PRECEDES]->(d),
+    (b)-[:PRECEDES]->(e),
+    (c)-[:PRECEDES]->(f),
+    (d)-[:PRECEDES]->(g),
+    (e)-[:PRECEDES]->(h),
+    (f)-[:PRECEDES]->(h),
+    (g)-[:PRECEDES]->(end),
+    (h)-[:PRECEDES]->(end),
+    (qStart)-[:PRECEDES]->(qa),
+    (qu)-[:PRECEDES]->(qa),
+    (qa)-[:PRECEDES]->(qEnd),
+    (rStart)-[:PRECEDES]->(ra),
+    (ru1)-[:PRECEDES]->(ra),
+    (ru2)-[:PRECEDES]->(ra)